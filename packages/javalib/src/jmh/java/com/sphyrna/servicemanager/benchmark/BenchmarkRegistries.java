@@ -0,0 +1,47 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceManagerConstants;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+
+/**
+ * Helpers to build service registries of a given size for the benchmarks
+ */
+final class BenchmarkRegistries
+{
+    private BenchmarkRegistries() {}
+
+    static String[] createServiceNames(int serviceCount)
+    {
+        String[] serviceNames = new String[serviceCount];
+        for (int i = 0; i < serviceCount; i++)
+        {
+            serviceNames[i] = "benchmarkService" + i;
+        }
+
+        return serviceNames;
+    }
+
+    static ServiceManagerStrategyImpl createStrategy(String[] serviceNames) throws ServiceException
+    {
+        ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+        for (String nextServiceName : serviceNames)
+        {
+            strategy.registerSingletonService(nextServiceName, BenchmarkService.class,
+                                              ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION);
+        }
+
+        return strategy;
+    }
+
+    static ServiceManagerStrategyImpl createWarmStrategy(String[] serviceNames) throws ServiceException
+    {
+        ServiceManagerStrategyImpl strategy = createStrategy(serviceNames);
+        for (String nextServiceName : serviceNames)
+        {
+            strategy.getService(nextServiceName);
+        }
+
+        return strategy;
+    }
+}
@@ -0,0 +1,15 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.providers.BaseService;
+
+/**
+ * A no-op service used by the benchmarks so that measurements reflect the cost of the framework only
+ */
+public class BenchmarkService extends BaseService<ServiceConfiguration>
+{
+    public BenchmarkService()
+    {
+        super();
+    }
+}
@@ -0,0 +1,61 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.providers.CompactConfiguration;
+import com.sphyrna.servicemanager.providers.MapConfiguration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading an int property from a MapConfiguration holding a String, as loaded from a descriptor, with reading
+ * it from a CompactConfiguration
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark
+{
+    private static final int PROPERTY_COUNT = 16;
+
+    private MapConfiguration mapConfiguration;
+    private CompactConfiguration compactConfiguration;
+    private String propertyName;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        this.mapConfiguration = new MapConfiguration();
+        CompactConfiguration.Builder builder = CompactConfiguration.builder();
+        for (int i = 0; i < PROPERTY_COUNT; i++)
+        {
+            this.mapConfiguration.setProperty("property" + i, Integer.toString(i));
+            builder.set("property" + i, Integer.toString(i));
+        }
+        this.compactConfiguration = builder.build();
+        this.propertyName = "property" + (PROPERTY_COUNT / 2);
+    }
+
+    @Benchmark
+    public int mapConfigurationGetInt()
+    {
+        return Integer.parseInt((String)this.mapConfiguration.getProperty(this.propertyName));
+    }
+
+    @Benchmark
+    public int compactConfigurationGetInt()
+    {
+        return this.compactConfiguration.getInt(this.propertyName);
+    }
+}
@@ -0,0 +1,76 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceManagerConstants;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import com.sphyrna.servicemanager.providers.KnownServiceLifecycleControllers;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ServiceManagerStrategyImpl.registerServiceByClass against a shared registry of the given size.  Each thread
+ * repeatedly overrides its own slice of the registry
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegistrationBenchmark
+{
+    @State(Scope.Benchmark)
+    public static class Registry
+    {
+        @Param({"10", "1000", "100000"})
+        public int serviceCount;
+
+        String[] serviceNames;
+        ServiceManagerStrategyImpl strategy;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ServiceException
+        {
+            this.serviceNames = BenchmarkRegistries.createServiceNames(this.serviceCount);
+            this.strategy = BenchmarkRegistries.createStrategy(this.serviceNames);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            this.strategy.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RegistrationCursor
+    {
+        int position;
+
+        int next(int bound)
+        {
+            this.position = (this.position + 1) % bound;
+            return this.position;
+        }
+    }
+
+    @Benchmark
+    public void registerServiceByClass(Registry registry, RegistrationCursor cursor) throws ServiceException
+    {
+        String[] serviceNames = registry.serviceNames;
+        registry.strategy.registerServiceByClass(serviceNames[cursor.next(serviceNames.length)],
+                                                 BenchmarkService.class, KnownServiceLifecycleControllers.SINGLETON,
+                                                 ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION, true);
+    }
+}
@@ -0,0 +1,48 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceInstanceProviderImpl;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares ServiceInstanceProviderImpl.createServiceInstance with calling the service constructor directly
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ServiceInstanceProviderBenchmark
+{
+    private ServiceInstanceProviderImpl<BenchmarkService> provider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServiceException
+    {
+        this.provider = new ServiceInstanceProviderImpl<BenchmarkService>(BenchmarkService.class);
+    }
+
+    @Benchmark
+    public BenchmarkService createServiceInstance() throws ServiceException
+    {
+        return this.provider.createServiceInstance();
+    }
+
+    @Benchmark
+    public BenchmarkService constructor()
+    {
+        return new BenchmarkService();
+    }
+}
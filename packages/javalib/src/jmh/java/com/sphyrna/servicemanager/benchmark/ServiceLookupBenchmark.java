@@ -0,0 +1,198 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceNotAvailableException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceKey;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures ServiceManagerStrategyImpl.getService for services that are already active (warm), for services that
+ * are activated by the lookup (cold), for active services retrieved through a pre-resolved ServiceKey, for active
+ * services retrieved by name from a frozen registry, for active services retrieved through a chain of child
+ * strategies that define none of them and for probes of undefined services, with getService and with findService
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ServiceLookupBenchmark
+{
+    private static final int DESCENDANT_DEPTH = 8;
+
+    @State(Scope.Benchmark)
+    public static class WarmRegistry
+    {
+        @Param({"10", "1000", "100000"})
+        public int serviceCount;
+
+        String[] serviceNames;
+        ServiceKey<Service>[] serviceKeys;
+        ServiceManagerStrategyImpl strategy;
+        ServiceManagerStrategyImpl frozenStrategy;
+        ServiceManagerStrategyImpl descendantStrategy;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ServiceException
+        {
+            this.serviceNames = BenchmarkRegistries.createServiceNames(this.serviceCount);
+            this.strategy = BenchmarkRegistries.createWarmStrategy(this.serviceNames);
+
+            this.serviceKeys = new ServiceKey[this.serviceCount];
+            for (int i = 0; i < this.serviceCount; i++)
+            {
+                this.serviceKeys[i] = this.strategy.getServiceKey(this.serviceNames[i]);
+            }
+
+            this.frozenStrategy = BenchmarkRegistries.createWarmStrategy(this.serviceNames);
+            this.frozenStrategy.freeze();
+
+            this.descendantStrategy = this.strategy;
+            for (int i = 0; i < DESCENDANT_DEPTH; i++)
+            {
+                this.descendantStrategy = new ServiceManagerStrategyImpl(this.descendantStrategy);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            this.strategy.shutdown();
+            this.frozenStrategy.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ColdRegistry
+    {
+        @Param({"10", "1000", "100000"})
+        public int serviceCount;
+
+        String[] serviceNames;
+        ServiceManagerStrategyImpl strategy;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws ServiceException
+        {
+            this.serviceNames = BenchmarkRegistries.createServiceNames(this.serviceCount);
+            this.strategy = BenchmarkRegistries.createStrategy(this.serviceNames);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown()
+        {
+            this.strategy.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LookupCursor
+    {
+        int position;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            // Start each thread at a different position so threads do not walk the registry in lock step
+            this.position = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        }
+
+        int next(int bound)
+        {
+            this.position = (this.position + 1) % bound;
+            return this.position;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Service warmLookup(WarmRegistry registry, LookupCursor cursor) throws ServiceException
+    {
+        String[] serviceNames = registry.serviceNames;
+        return registry.strategy.getService(serviceNames[cursor.next(serviceNames.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Service warmKeyLookup(WarmRegistry registry, LookupCursor cursor) throws ServiceException
+    {
+        ServiceKey<Service>[] serviceKeys = registry.serviceKeys;
+        return serviceKeys[cursor.next(serviceKeys.length)].getService();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Service warmFrozenLookup(WarmRegistry registry, LookupCursor cursor) throws ServiceException
+    {
+        String[] serviceNames = registry.serviceNames;
+        return registry.frozenStrategy.getService(serviceNames[cursor.next(serviceNames.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Service warmDescendantLookup(WarmRegistry registry, LookupCursor cursor) throws ServiceException
+    {
+        String[] serviceNames = registry.serviceNames;
+        return registry.descendantStrategy.getService(serviceNames[cursor.next(serviceNames.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object undefinedLookup(WarmRegistry registry) throws ServiceException
+    {
+        try
+        {
+            return registry.descendantStrategy.getService("undefinedService");
+        }
+        catch (ServiceNotAvailableException exception)
+        {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<Service> undefinedFind(WarmRegistry registry) throws ServiceException
+    {
+        return registry.descendantStrategy.findService("undefinedService");
+    }
+
+    /**
+     * Every thread activates the complete registry, racing the other threads for the first lookup of each service
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 10, batchSize = 1)
+    public void coldLookup(ColdRegistry registry, LookupCursor cursor, Blackhole blackhole) throws ServiceException
+    {
+        String[] serviceNames = registry.serviceNames;
+        for (int i = 0; i < serviceNames.length; i++)
+        {
+            blackhole.consume(registry.strategy.getService(serviceNames[cursor.next(serviceNames.length)]));
+        }
+    }
+}
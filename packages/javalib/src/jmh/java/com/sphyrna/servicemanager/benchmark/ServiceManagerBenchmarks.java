@@ -0,0 +1,53 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import java.io.File;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the service manager benchmarks once per configured thread count and writes the results of each run as JSON
+ *
+ * The following system properties control a run:
+ * <ul>
+ * <li>jmh.threads - comma separated thread counts. Defaults to 1,2,4,8,16,32,64</li>
+ * <li>jmh.serviceCounts - comma separated registry sizes. Defaults to 10,1000,100000</li>
+ * <li>jmh.include - regular expression selecting the benchmarks to run. Defaults to all service manager benchmarks</li>
+ * </ul>
+ */
+public class ServiceManagerBenchmarks
+{
+    private ServiceManagerBenchmarks() {}
+
+    /**
+     * @param args a single, optional argument naming the directory that results are written to.  Defaults to
+     *     target/jmh
+     */
+    public static void main(String[] args) throws RunnerException
+    {
+        File resultDirectory = new File((args.length > 0) ? args[0] : "target/jmh");
+        resultDirectory.mkdirs();
+
+        String[] threadCounts = System.getProperty("jmh.threads", "1,2,4,8,16,32,64").split(",");
+        String[] serviceCounts = System.getProperty("jmh.serviceCounts", "10,1000,100000").split(",");
+        String include = System.getProperty("jmh.include", ServiceManagerBenchmarks.class.getPackageName() + ".*");
+
+        for (String nextThreadCount : threadCounts)
+        {
+            int threads = Integer.parseInt(nextThreadCount.trim());
+            File resultFile = new File(resultDirectory, "jmh-result-threads-" + threads + ".json");
+
+            Options options = new OptionsBuilder()
+                                  .include(include)
+                                  .threads(threads)
+                                  .param("serviceCount", serviceCounts)
+                                  .resultFormat(ResultFormatType.JSON)
+                                  .result(resultFile.getPath())
+                                  .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ServiceManagerStrategyImpl.shutdown of a registry in which every service is active.  Each thread shuts down
+ * its own registry
+ */
+@Fork(1)
+@Warmup(iterations = 3, batchSize = 1)
+@Measurement(iterations = 10, batchSize = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ShutdownBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    public int serviceCount;
+
+    private String[] serviceNames;
+    private ServiceManagerStrategyImpl strategy;
+
+    @Setup(Level.Trial)
+    public void setUpNames()
+    {
+        this.serviceNames = BenchmarkRegistries.createServiceNames(this.serviceCount);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpStrategy() throws ServiceException
+    {
+        this.strategy = BenchmarkRegistries.createWarmStrategy(this.serviceNames);
+    }
+
+    @Benchmark
+    public void shutdown()
+    {
+        this.strategy.shutdown();
+    }
+}
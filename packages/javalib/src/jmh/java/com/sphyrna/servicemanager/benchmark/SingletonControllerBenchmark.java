@@ -0,0 +1,55 @@
+package com.sphyrna.servicemanager.benchmark;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceManagerConstants;
+import com.sphyrna.servicemanager.defaultimpl.ServiceInstanceProviderImpl;
+import com.sphyrna.servicemanager.providers.SingletonServiceLifecycleController;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures SingletonServiceLifecycleController.getService once the singleton has been published
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SingletonControllerBenchmark
+{
+    private SingletonServiceLifecycleController<BenchmarkService, ServiceConfiguration> controller;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServiceException
+    {
+        this.controller = new SingletonServiceLifecycleController<BenchmarkService, ServiceConfiguration>();
+        this.controller.init(new ServiceInstanceProviderImpl<BenchmarkService>(BenchmarkService.class),
+                             ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION);
+        this.controller.getService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        this.controller.shutdown();
+    }
+
+    @Benchmark
+    public BenchmarkService getService() throws ServiceException
+    {
+        return this.controller.getService();
+    }
+}
@@ -24,6 +24,86 @@ public interface ServiceLifecycleController<S extends Service<C>, C extends Serv
      */
     public S getService() throws ServiceException;
 
+    /**
+     * Retrieve the wrapped Service for an instance level configuration, supplied by the caller of
+     * ServiceManager.getService(name, configuration).  By default, the configuration is ignored and this returns
+     * getService()
+     *
+     * @param configuration the instance level configuration
+     * @return the wrapped Service
+     * @throws ServiceException
+     */
+    default S getService(C configuration) throws ServiceException
+    {
+        return this.getService();
+    }
+
+    /**
+     * Return a Service obtained from getService() to the controller.  Controllers that hand out a dedicated instance
+     * per caller, such as pools, use this to reclaim the instance.  By default, this does nothing
+     *
+     * @param service the Service to release
+     */
+    default void releaseService(S service) {}
+
+    /**
+     * Determine if a Service was obtained from this controller.  Used to return an instance to the right controller
+     * while an old and a new version of a service are both in use.  Controllers that implement releaseService() should
+     * override this.  By default, this returns true
+     *
+     * @param service the Service to check
+     * @return true if the Service was obtained from this controller, false otherwise
+     */
+    default boolean ownsService(S service)
+    {
+        return true;
+    }
+
+    /**
+     * Determine if instances obtained from getService() are still in use, that is, have not been released.  Used to
+     * shut down a replaced controller as soon as its callers are done with it.  Controllers that do not track their
+     * instances can not tell, so by default this returns true and a replaced controller is kept until its drain
+     * timeout
+     *
+     * @return true if instances may still be in use, false if all of them have been released
+     */
+    default boolean hasOutstandingServices()
+    {
+        return true;
+    }
+
+    /**
+     * Determine if getService() returns the same instance to every caller for as long as the controller is running, so
+     * that callers may hold on to the instance.  Lazy service proxies require this.  By default, this returns false
+     *
+     * @return true if a single instance is shared between callers, false otherwise
+     */
+    default boolean isInstanceShared()
+    {
+        return false;
+    }
+
+    /**
+     * Prepare the service ahead of its first use, so that the first call to getService() does not pay for creating and
+     * starting it.  Invoked after init() when services are started eagerly.  By default, this retrieves an instance and
+     * releases it
+     *
+     * @throws ServiceException
+     *             if the service fails to start
+     */
+    default void warmup() throws ServiceException
+    {
+        this.releaseService(this.getService());
+    }
+
+    /**
+     * Supply the recorder used to time the lifecycle phases of the service instances created by this controller.
+     * Invoked by the strategy before init().  By default, this does nothing
+     *
+     * @param metricsRecorder the recorder for the service
+     */
+    default void setServiceMetricsRecorder(ServiceMetricsRecorder metricsRecorder) {}
+
     /**
      * Shutdown the service lifecycle and clean up
      */
@@ -0,0 +1,12 @@
+package com.sphyrna.servicemanager;
+
+/**
+ * The phases of a service instance's lifecycle that are timed by {@link ServiceMetricsRecorder}
+ */
+public enum ServiceLifecyclePhase
+{
+    INIT,
+    START,
+    STOP,
+    DESTROY
+}
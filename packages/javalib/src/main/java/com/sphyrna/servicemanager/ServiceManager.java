@@ -3,6 +3,8 @@ package com.sphyrna.servicemanager;
 import com.sphyrna.servicemanager.providers.ConfigServiceManagerStrategy;
 import com.sphyrna.servicemanager.providers.MapConfiguration;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The ServiceManager is used to manage and retrieve services
@@ -55,6 +57,72 @@ public class ServiceManager
         return serviceManagerStrategy.getService(name, serviceConfig);
     }
 
+    /**
+     * Retrieve a service if it exists.  Intended for optional services, as a service that does not exist is not
+     * reported with an exception
+     *
+     * @param name
+     *            the name of the service
+     * @return the service associated with the specified name, or an empty Optional if the specified service does not
+     *         exist
+     */
+    public static <S extends Service<ServiceConfiguration>> Optional<S> findService(String name) throws ServiceException
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return serviceManagerStrategy.findService(name);
+    }
+
+    /**
+     * Retrieve a service without blocking the calling thread while it is created and started
+     *
+     * @param name
+     *            the name of the service
+     * @return a future completed with the service associated with the specified name.  It is completed exceptionally
+     *         with a ServiceNotAvailableException if the specified service does not exist
+     */
+    public static <S extends Service<ServiceConfiguration>> CompletableFuture<S> getServiceAsync(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return serviceManagerStrategy.getServiceAsync(name);
+    }
+
+    /**
+     * Retrieve a service without blocking the calling thread while it is created and started
+     *
+     * @param name
+     *            the name of the service
+     * @param serviceConfig
+     * @return a future completed with the service associated with the specified name.  It is completed exceptionally
+     *         with a ServiceNotAvailableException if the specified service does not exist
+     */
+    public static <S extends Service<C>, C extends ServiceConfiguration> CompletableFuture<S>
+    getServiceAsync(String name, C serviceConfig)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(serviceConfig, "serviceConfig cannot be null");
+
+        return serviceManagerStrategy.getServiceAsync(name, serviceConfig);
+    }
+
+    /**
+     * Release a service.  Services managed by a controller that hands out a dedicated instance per caller, such as a
+     * pool, must be released once the caller is done with them
+     *
+     * @param name
+     *            the name of the service
+     * @param service
+     *            the service instance to release
+     */
+    public static void releaseService(String name, Service<?> service)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(service, "service cannot be null");
+
+        serviceManagerStrategy.releaseService(name, service);
+    }
+
     /**
      * Determine if a service with the specified name is defined
      *
@@ -1,5 +1,9 @@
 package com.sphyrna.servicemanager;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Defines a Service Manager Strategy that controls the behavior of the ServiceManager
  */
@@ -24,6 +28,79 @@ public interface ServiceManagerStrategy
     public <S extends Service<C>, C extends ServiceConfiguration> S getService(String name, C serviceConfiguration)
         throws ServiceException;
 
+    /**
+     * Retrieve a service if it is defined.  Unlike getService(String), an undefined service is not an error and does
+     * not throw a ServiceNotAvailableException
+     *
+     * @param name the name of the service
+     * @return the requested service, or an empty Optional if it is not defined
+     */
+    public default <S extends Service<ServiceConfiguration>> Optional<S> findService(String name)
+        throws ServiceException
+    {
+        if (!this.isServiceDefined(name))
+        {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(this.getService(name));
+    }
+
+    /**
+     * Retrieve a service without blocking the calling thread while it is created and started.  By default, the service
+     * is retrieved with getService(String) on the common pool
+     *
+     * @param name the name of the service
+     * @return a future completed with the requested service, or exceptionally if it could not be retrieved
+     */
+    public default <S extends Service<ServiceConfiguration>> CompletableFuture<S> getServiceAsync(String name)
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                return this.<S>getService(name);
+            }
+            catch (ServiceException exception)
+            {
+                throw new CompletionException(exception);
+            }
+        });
+    }
+
+    /**
+     * Retrieve a service without blocking the calling thread while it is created and started.  By default, the service
+     * is retrieved with getService(String, ServiceConfiguration) on the common pool
+     *
+     * @param name the name of the service
+     * @param serviceConfiguration service instance level configuration.  This must be supported by the associated
+     *     ServiceLifecycleManager
+     * @return a future completed with the requested service, or exceptionally if it could not be retrieved
+     */
+    public default <S extends Service<C>, C extends ServiceConfiguration> CompletableFuture<S>
+    getServiceAsync(String name, C serviceConfiguration)
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                return this.<S, C>getService(name, serviceConfiguration);
+            }
+            catch (ServiceException exception)
+            {
+                throw new CompletionException(exception);
+            }
+        });
+    }
+
+    /**
+     * Release a service that was retrieved from this strategy.  Services managed by a controller that hands out a
+     * dedicated instance per caller, such as a pool, must be released once the caller is done with them.  By default,
+     * releasing a service does nothing
+     *
+     * @param name the name of the service
+     * @param service the service instance to release
+     */
+    public default void releaseService(String name, Service<?> service) {}
+
     /**
      * Determine if a service with the specified name has been defined
      *
@@ -0,0 +1,21 @@
+package com.sphyrna.servicemanager;
+
+/**
+ * Collects metrics about services.  A ServiceManagerStrategy resolves one recorder per service and records lookups
+ * and lifecycle timings through it
+ */
+public interface ServiceMetrics
+{
+    /**
+     * Metrics that record nothing
+     */
+    public static final ServiceMetrics NONE = serviceName -> ServiceMetricsRecorder.NONE;
+
+    /**
+     * Retrieve the recorder for a service.  Callers keep the recorder, so this is not called on the lookup path
+     *
+     * @param serviceName the name of the service
+     * @return the recorder for the service
+     */
+    ServiceMetricsRecorder getRecorder(String serviceName);
+}
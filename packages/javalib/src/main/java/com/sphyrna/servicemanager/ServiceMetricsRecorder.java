@@ -0,0 +1,46 @@
+package com.sphyrna.servicemanager;
+
+/**
+ * Records the metrics of a single service.  Methods are called on the lookup path, so implementations must be thread
+ * safe, must not block and should not allocate
+ */
+public interface ServiceMetricsRecorder
+{
+    /**
+     * A recorder that records nothing
+     */
+    public static final ServiceMetricsRecorder NONE = new ServiceMetricsRecorder() {
+        @Override
+        public void recordLookup()
+        {
+        }
+
+        @Override
+        public void recordLookupMiss()
+        {
+        }
+
+        @Override
+        public void recordLifecycleDuration(ServiceLifecyclePhase phase, long durationNanos)
+        {
+        }
+    };
+
+    /**
+     * Record a successful lookup of the service
+     */
+    void recordLookup();
+
+    /**
+     * Record a lookup of the service that failed because it is not defined
+     */
+    void recordLookupMiss();
+
+    /**
+     * Record the time a service instance spent in a lifecycle phase
+     *
+     * @param phase the lifecycle phase
+     * @param durationNanos the duration of the phase in nanoseconds
+     */
+    void recordLifecycleDuration(ServiceLifecyclePhase phase, long durationNanos);
+}
@@ -0,0 +1,32 @@
+package com.sphyrna.servicemanager.annotation;
+
+import com.sphyrna.servicemanager.ServiceLifecycleController;
+import com.sphyrna.servicemanager.providers.SingletonServiceLifecycleController;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a Service class for registration through a generated ManagedServiceRegistry
+ *
+ * The annotated class must be a public, concrete, top level or static nested class with a public no-arg constructor.
+ * Its controller must be a public, concrete ServiceLifecycleController with a public no-arg constructor.  Both are
+ * checked by the ManagedServiceProcessor at compile time.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ManagedService
+{
+    /**
+     * The name the service is registered under
+     */
+    String name();
+
+    /**
+     * The class that controls the service lifecycle.  Defaults to a singleton
+     */
+    Class<? extends ServiceLifecycleController> controller() default SingletonServiceLifecycleController.class;
+}
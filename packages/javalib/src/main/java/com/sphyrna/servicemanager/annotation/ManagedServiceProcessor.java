@@ -0,0 +1,380 @@
+package com.sphyrna.servicemanager.annotation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a ManagedServiceRegistry for each package that contains classes annotated with ManagedService
+ *
+ * The generated registry, GeneratedManagedServiceRegistry, registers each service with a constructor reference and a
+ * new controller instance.  Each generated registry is listed in the META-INF/services file of ManagedServiceRegistry.
+ * Annotated classes that can not be registered that way are reported as compile errors.
+ */
+@SupportedAnnotationTypes(ManagedServiceProcessor.MANAGED_SERVICE_ANNOTATION)
+public class ManagedServiceProcessor extends AbstractProcessor
+{
+    static final String MANAGED_SERVICE_ANNOTATION = "com.sphyrna.servicemanager.annotation.ManagedService";
+    static final String REGISTRY_SIMPLE_NAME = "GeneratedManagedServiceRegistry";
+
+    private static final String SERVICE_CLASS = "com.sphyrna.servicemanager.Service";
+    private static final String SERVICE_LIFECYCLE_CONTROLLER_CLASS =
+        "com.sphyrna.servicemanager.ServiceLifecycleController";
+    private static final String SERVICE_EXCEPTION_CLASS = "com.sphyrna.servicemanager.ServiceException";
+    private static final String REGISTRY_SERVICES_FILE =
+        "META-INF/services/" + ManagedServiceRegistry.class.getName();
+
+    private final Set<String> registryNames = new TreeSet<String>();
+    private final Map<String, TypeElement> serviceClassesByName = new HashMap<String, TypeElement>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment)
+    {
+        if (roundEnvironment.processingOver())
+        {
+            if (!this.registryNames.isEmpty())
+            {
+                this.writeRegistryServicesFile();
+            }
+            return false;
+        }
+
+        TypeElement managedServiceElement = this.processingEnv.getElementUtils().getTypeElement(
+            MANAGED_SERVICE_ANNOTATION);
+        if (managedServiceElement == null)
+        {
+            return false;
+        }
+
+        Map<String, List<ManagedServiceEntry>> entriesByPackage = new TreeMap<String, List<ManagedServiceEntry>>();
+        for (Element nextElement : roundEnvironment.getElementsAnnotatedWith(managedServiceElement))
+        {
+            ManagedServiceEntry nextEntry = this.createEntry(nextElement);
+            if (nextEntry != null)
+            {
+                String packageName =
+                    this.processingEnv.getElementUtils().getPackageOf(nextElement).getQualifiedName().toString();
+                entriesByPackage.computeIfAbsent(packageName, key -> new ArrayList<ManagedServiceEntry>())
+                    .add(nextEntry);
+            }
+        }
+
+        for (Map.Entry<String, List<ManagedServiceEntry>> nextPackageEntries : entriesByPackage.entrySet())
+        {
+            this.writeRegistry(nextPackageEntries.getKey(), nextPackageEntries.getValue());
+        }
+
+        return true;
+    }
+
+    private ManagedServiceEntry createEntry(Element element)
+    {
+        if (element.getKind() != ElementKind.CLASS)
+        {
+            this.error(element, "@ManagedService can only be applied to classes");
+            return null;
+        }
+
+        TypeElement serviceElement = (TypeElement)element;
+        AnnotationMirror managedServiceMirror = this.findManagedServiceMirror(serviceElement);
+        String name = null;
+        TypeElement controllerElement = null;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> nextValue :
+             this.processingEnv.getElementUtils().getElementValuesWithDefaults(managedServiceMirror).entrySet())
+        {
+            String valueName = nextValue.getKey().getSimpleName().toString();
+            if (valueName.equals("name"))
+            {
+                name = (String)nextValue.getValue().getValue();
+            }
+            else if (valueName.equals("controller"))
+            {
+                TypeMirror controllerType = (TypeMirror)nextValue.getValue().getValue();
+                controllerElement = (TypeElement)((DeclaredType)controllerType).asElement();
+            }
+        }
+
+        boolean valid = true;
+        if ((name == null) || name.isBlank())
+        {
+            this.error(serviceElement, "@ManagedService name cannot be blank");
+            valid = false;
+        }
+        else
+        {
+            TypeElement existingServiceElement = this.serviceClassesByName.putIfAbsent(name, serviceElement);
+            if (existingServiceElement != null)
+            {
+                this.error(serviceElement, "Service name, " + name + ", is already used by " +
+                                               existingServiceElement.getQualifiedName());
+                valid = false;
+            }
+        }
+
+        valid &= this.validateConstructible(serviceElement, SERVICE_CLASS, "Service", serviceElement);
+        valid &= this.validateConstructible(controllerElement, SERVICE_LIFECYCLE_CONTROLLER_CLASS,
+                                            "ServiceLifecycleController", serviceElement);
+
+        return valid ? new ManagedServiceEntry(name, serviceElement, controllerElement) : null;
+    }
+
+    private AnnotationMirror findManagedServiceMirror(TypeElement serviceElement)
+    {
+        AnnotationMirror managedServiceMirror = null;
+        for (AnnotationMirror nextMirror : serviceElement.getAnnotationMirrors())
+        {
+            TypeElement annotationElement = (TypeElement)nextMirror.getAnnotationType().asElement();
+            if (annotationElement.getQualifiedName().contentEquals(MANAGED_SERVICE_ANNOTATION))
+            {
+                managedServiceMirror = nextMirror;
+            }
+        }
+
+        return managedServiceMirror;
+    }
+
+    /*
+     * The generated registry creates instances with direct constructor calls, so the class must be concrete, reachable
+     * and have a public no-arg constructor that throws nothing ServiceInstanceProvider can not
+     */
+    private boolean validateConstructible(TypeElement typeElement, String requiredType, String description,
+                                          Element errorElement)
+    {
+        String typeName = typeElement.getQualifiedName().toString();
+        TypeElement requiredElement = this.processingEnv.getElementUtils().getTypeElement(requiredType);
+        TypeMirror erasedType = this.processingEnv.getTypeUtils().erasure(typeElement.asType());
+        TypeMirror erasedRequiredType = this.processingEnv.getTypeUtils().erasure(requiredElement.asType());
+        if (!this.processingEnv.getTypeUtils().isAssignable(erasedType, erasedRequiredType))
+        {
+            this.error(errorElement, typeName + " does not implement " + description);
+            return false;
+        }
+
+        if ((typeElement.getKind() != ElementKind.CLASS) || typeElement.getModifiers().contains(Modifier.ABSTRACT))
+        {
+            this.error(errorElement, typeName + " is not a concrete class");
+            return false;
+        }
+
+        if (!this.isAccessible(typeElement))
+        {
+            this.error(errorElement, typeName + " must be a public top level or public static nested class");
+            return false;
+        }
+
+        for (ExecutableElement nextConstructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements()))
+        {
+            if (nextConstructor.getParameters().isEmpty() && nextConstructor.getModifiers().contains(Modifier.PUBLIC))
+            {
+                for (TypeMirror nextThrownType : nextConstructor.getThrownTypes())
+                {
+                    if (!this.isUncheckedOrServiceException(nextThrownType))
+                    {
+                        this.error(errorElement, "The no-arg constructor of " + typeName + " throws " +
+                                                     nextThrownType + ", which is not a ServiceException");
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+
+        this.error(errorElement, typeName + " does not have a public no-arg constructor");
+        return false;
+    }
+
+    private boolean isAccessible(TypeElement typeElement)
+    {
+        Element nextElement = typeElement;
+        while (!(nextElement instanceof PackageElement))
+        {
+            TypeElement nextTypeElement = (TypeElement)nextElement;
+            NestingKind nestingKind = nextTypeElement.getNestingKind();
+            if (!nextTypeElement.getModifiers().contains(Modifier.PUBLIC) ||
+                ((nestingKind != NestingKind.TOP_LEVEL) &&
+                 ((nestingKind != NestingKind.MEMBER) || !nextTypeElement.getModifiers().contains(Modifier.STATIC))))
+            {
+                return false;
+            }
+            nextElement = nextElement.getEnclosingElement();
+        }
+
+        return true;
+    }
+
+    private boolean isUncheckedOrServiceException(TypeMirror thrownType)
+    {
+        for (String nextAllowedType : List.of(RuntimeException.class.getName(), Error.class.getName(),
+                                              SERVICE_EXCEPTION_CLASS))
+        {
+            TypeMirror allowedType = this.processingEnv.getElementUtils().getTypeElement(nextAllowedType).asType();
+            if (this.processingEnv.getTypeUtils().isAssignable(thrownType, allowedType))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void writeRegistry(String packageName, List<ManagedServiceEntry> entries)
+    {
+        String registryName = packageName.isEmpty() ? REGISTRY_SIMPLE_NAME : packageName + "." + REGISTRY_SIMPLE_NAME;
+        if (!this.registryNames.add(registryName))
+        {
+            this.error(entries.get(0).serviceElement,
+                       registryName + " was already generated.  Services in generated sources must be in their own " +
+                           "package");
+            return;
+        }
+
+        Element[] originatingElements = new Element[entries.size()];
+        for (int i = 0; i < entries.size(); i++)
+        {
+            originatingElements[i] = entries.get(i).serviceElement;
+        }
+
+        try
+        {
+            JavaFileObject registryFile =
+                this.processingEnv.getFiler().createSourceFile(registryName, originatingElements);
+            try (Writer writer = registryFile.openWriter())
+            {
+                writer.write(this.generateRegistrySource(packageName, entries));
+            }
+        }
+        catch (IOException exception)
+        {
+            this.error(entries.get(0).serviceElement, "Failed to write " + registryName + ": " + exception);
+        }
+    }
+
+    private String generateRegistrySource(String packageName, List<ManagedServiceEntry> entries)
+    {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+        {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("@javax.annotation.processing.Generated(\"").append(ManagedServiceProcessor.class.getName())
+            .append("\")\n");
+        source.append("public final class ").append(REGISTRY_SIMPLE_NAME)
+            .append(" implements com.sphyrna.servicemanager.annotation.ManagedServiceRegistry\n");
+        source.append("{\n");
+        source.append("    @Override\n");
+        source.append("    @SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        source.append("    public void registerServices(")
+            .append("com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl serviceManagerStrategy)\n");
+        source.append("        throws com.sphyrna.servicemanager.ServiceException\n");
+        source.append("    {\n");
+        source.append("        java.util.Objects.requireNonNull(serviceManagerStrategy, ")
+            .append("\"serviceManagerStrategy cannot be null\");\n");
+        for (ManagedServiceEntry nextEntry : entries)
+        {
+            source.append("\n        serviceManagerStrategy.registerService(")
+                .append(this.processingEnv.getElementUtils().getConstantExpression(nextEntry.name)).append(",\n");
+            source.append("            (com.sphyrna.servicemanager.ServiceInstanceProvider)")
+                .append(nextEntry.serviceElement.getQualifiedName()).append("::new,\n");
+            source.append("            (com.sphyrna.servicemanager.ServiceLifecycleController)new ")
+                .append(nextEntry.controllerElement.getQualifiedName()).append("(),\n");
+            source.append("            com.sphyrna.servicemanager.ServiceManagerConstants")
+                .append(".EMPTY_SERVICE_CONFIGURATION);\n");
+        }
+        source.append("    }\n");
+        source.append("}\n");
+
+        return source.toString();
+    }
+
+    private void writeRegistryServicesFile()
+    {
+        // Keep the registries of an earlier, incremental compilation of the same module
+        Set<String> allRegistryNames = new TreeSet<String>(this.registryNames);
+        try
+        {
+            FileObject existingFile =
+                this.processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", REGISTRY_SERVICES_FILE);
+            try (Reader reader = existingFile.openReader(true); BufferedReader lineReader = new BufferedReader(reader))
+            {
+                lineReader.lines().map(String::trim).filter(line -> !line.isEmpty()).forEach(allRegistryNames::add);
+            }
+        }
+        catch (IOException exception)
+        {
+            // No earlier services file.  Nothing to keep
+        }
+
+        try
+        {
+            FileObject servicesFile =
+                this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", REGISTRY_SERVICES_FILE);
+            try (Writer writer = servicesFile.openWriter())
+            {
+                for (String nextRegistryName : allRegistryNames)
+                {
+                    writer.write(nextRegistryName);
+                    writer.write('\n');
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            String message = "Failed to write " + REGISTRY_SERVICES_FILE + ": " + exception;
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+        }
+    }
+
+    private void error(Element element, String message)
+    {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static class ManagedServiceEntry
+    {
+        private final String name;
+        private final TypeElement serviceElement;
+        private final TypeElement controllerElement;
+
+        private ManagedServiceEntry(String name, TypeElement serviceElement, TypeElement controllerElement)
+        {
+            this.name = name;
+            this.serviceElement = serviceElement;
+            this.controllerElement = controllerElement;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sphyrna.servicemanager.annotation;
+
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.util.Objects;
+import java.util.ServiceLoader;
+
+/**
+ * Registers a fixed set of services with a ServiceManagerStrategyImpl
+ *
+ * The ManagedServiceProcessor generates one implementation, named GeneratedManagedServiceRegistry, for each package
+ * that contains classes annotated with ManagedService.  The generated registry creates services and controllers with
+ * direct constructor calls, so registering through it uses no reflection.  Each generated registry is also listed in
+ * META-INF/services so that registerAll can find them without scanning the classpath.
+ */
+public interface ManagedServiceRegistry
+{
+    /**
+     * Register the services of this registry
+     *
+     * @param serviceManagerStrategy the strategy to register the services with
+     * @throws ServiceException if a service could not be registered, e.g. because its name is already defined
+     */
+    void registerServices(ServiceManagerStrategyImpl serviceManagerStrategy) throws ServiceException;
+
+    /**
+     * Register the services of every generated registry visible to a class loader
+     *
+     * @param serviceManagerStrategy the strategy to register the services with
+     * @param classLoader the class loader used to find the generated registries
+     * @throws ServiceException if a service could not be registered
+     */
+    static void registerAll(ServiceManagerStrategyImpl serviceManagerStrategy, ClassLoader classLoader)
+        throws ServiceException
+    {
+        Objects.requireNonNull(serviceManagerStrategy, "serviceManagerStrategy cannot be null");
+        Objects.requireNonNull(classLoader, "classLoader cannot be null");
+
+        for (ManagedServiceRegistry nextRegistry : ServiceLoader.load(ManagedServiceRegistry.class, classLoader))
+        {
+            nextRegistry.registerServices(serviceManagerStrategy);
+        }
+    }
+}
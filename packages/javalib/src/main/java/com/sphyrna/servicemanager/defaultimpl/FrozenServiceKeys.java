@@ -0,0 +1,203 @@
+package com.sphyrna.servicemanager.defaultimpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable table of the service keys of a frozen {@link ServiceManagerStrategyImpl}, indexed by a minimal perfect
+ * hash of the service names.
+ *
+ * The names are split into buckets by their hash code.  Each bucket is assigned a displacement that moves all of its
+ * names to free slots, so that every name has a slot of its own and the table holds exactly one slot per name.  A
+ * lookup hashes the name, reads the displacement of its bucket and compares the name in the resulting slot.  It
+ * takes no locks and, apart from the check for the fallback below, the only branch is the final comparison.  String
+ * caches its hash code, so a name is only scanned by equals().
+ *
+ * Names that share a hash code cannot be separated by a displacement.  If the names contain such a pair, the table
+ * falls back to an immutable map.
+ */
+final class FrozenServiceKeys
+{
+    // Bounds the search for the displacement of one bucket.  Exceeding it means the hash is degenerate
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private final int[] displacements;
+    private final int bucketMask;
+    private final String[] names;
+    private final ServiceKey<?>[] serviceKeys;
+
+    // Set only if the names could not be perfectly hashed
+    private final Map<String, ServiceKey<?>> fallbackKeys;
+
+    private FrozenServiceKeys(int[] displacements, String[] names, ServiceKey<?>[] serviceKeys,
+                              Map<String, ServiceKey<?>> fallbackKeys)
+    {
+        this.displacements = displacements;
+        this.bucketMask = displacements.length - 1;
+        this.names = names;
+        this.serviceKeys = serviceKeys;
+        this.fallbackKeys = fallbackKeys;
+    }
+
+    /**
+     * Build a table of the specified keys
+     *
+     * @param serviceKeys the keys to include.  Their names must be distinct
+     * @return the table
+     */
+    static FrozenServiceKeys build(Collection<ServiceKey<?>> serviceKeys)
+    {
+        Objects.requireNonNull(serviceKeys, "serviceKeys cannot be null");
+
+        int keyCount = serviceKeys.size();
+        int slotCount = Math.max(keyCount, 1);
+
+        // About two names per bucket keeps the displacement search short
+        int bucketCount = Integer.highestOneBit(Math.max(keyCount / 2, 1));
+        List<List<ServiceKey<?>>> buckets = new ArrayList<List<ServiceKey<?>>>(bucketCount);
+        for (int i = 0; i < bucketCount; i++)
+        {
+            buckets.add(new ArrayList<ServiceKey<?>>());
+        }
+
+        Set<Integer> hashCodes = new HashSet<Integer>();
+        for (ServiceKey<?> nextServiceKey : serviceKeys)
+        {
+            String nextName = nextServiceKey.getName();
+            if (!hashCodes.add(nextName.hashCode()))
+            {
+                return fallback(serviceKeys);
+            }
+
+            buckets.get(hash(nextName) & (bucketCount - 1)).add(nextServiceKey);
+        }
+
+        // Place the largest buckets first, while the table still has room for them
+        Integer[] bucketOrder = new Integer[bucketCount];
+        Arrays.setAll(bucketOrder, bucket -> bucket);
+        Arrays.sort(bucketOrder, Comparator.comparingInt((Integer bucket) -> buckets.get(bucket).size()).reversed());
+
+        int[] displacements = new int[bucketCount];
+        String[] names = new String[slotCount];
+        ServiceKey<?>[] slotKeys = new ServiceKey<?>[slotCount];
+        for (int nextBucket : bucketOrder)
+        {
+            List<ServiceKey<?>> bucketKeys = buckets.get(nextBucket);
+            if (bucketKeys.isEmpty())
+            {
+                break;
+            }
+
+            int[] bucketHashes = new int[bucketKeys.size()];
+            for (int i = 0; i < bucketHashes.length; i++)
+            {
+                bucketHashes[i] = hash(bucketKeys.get(i).getName());
+            }
+
+            int[] bucketSlots = new int[bucketHashes.length];
+            int displacement = 0;
+            while (!fits(bucketHashes, displacement, names, bucketSlots))
+            {
+                if (++displacement == MAX_DISPLACEMENT)
+                {
+                    return fallback(serviceKeys);
+                }
+            }
+
+            displacements[nextBucket] = displacement;
+            for (int i = 0; i < bucketSlots.length; i++)
+            {
+                names[bucketSlots[i]] = bucketKeys.get(i).getName();
+                slotKeys[bucketSlots[i]] = bucketKeys.get(i);
+            }
+        }
+
+        return new FrozenServiceKeys(displacements, names, slotKeys, null);
+    }
+
+    /**
+     * Retrieve the key for a service name
+     *
+     * @param name the name of the service
+     * @return the key, or null if the name is not in the table
+     */
+    ServiceKey<?> get(String name)
+    {
+        if (this.fallbackKeys != null)
+        {
+            return this.fallbackKeys.get(name);
+        }
+
+        int hash = hash(name);
+        int slot = slot(hash, this.displacements[hash & this.bucketMask], this.names.length);
+
+        return name.equals(this.names[slot]) ? this.serviceKeys[slot] : null;
+    }
+
+    private static FrozenServiceKeys fallback(Collection<ServiceKey<?>> serviceKeys)
+    {
+        Map<String, ServiceKey<?>> fallbackKeys = new HashMap<String, ServiceKey<?>>();
+        for (ServiceKey<?> nextServiceKey : serviceKeys)
+        {
+            fallbackKeys.put(nextServiceKey.getName(), nextServiceKey);
+        }
+
+        return new FrozenServiceKeys(new int[1], new String[1], new ServiceKey<?>[1], Map.copyOf(fallbackKeys));
+    }
+
+    // Determine the slots of the names of a bucket for a displacement.  Returns false if a slot is taken, either by a
+    // previous bucket or by another name of the bucket
+    private static boolean fits(int[] bucketHashes, int displacement, String[] names, int[] bucketSlots)
+    {
+        for (int i = 0; i < bucketSlots.length; i++)
+        {
+            int nextSlot = slot(bucketHashes[i], displacement, names.length);
+            if (names[nextSlot] != null)
+            {
+                return false;
+            }
+            for (int j = 0; j < i; j++)
+            {
+                if (bucketSlots[j] == nextSlot)
+                {
+                    return false;
+                }
+            }
+            bucketSlots[i] = nextSlot;
+        }
+
+        return true;
+    }
+
+    // Spread the bits of the hash code, so that the low bits used to select the bucket depend on the whole name
+    private static int hash(String name)
+    {
+        return mix(name.hashCode());
+    }
+
+    // Map a hash and displacement to a slot without division, by taking the high word of hash * slotCount
+    private static int slot(int hash, int displacement, int slotCount)
+    {
+        return (int)(((mix(hash + displacement * 0x9E3779B9) & 0xFFFFFFFFL) * slotCount) >>> 32);
+    }
+
+    // The finalizer of MurmurHash3
+    private static int mix(int hash)
+    {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+
+        return hash;
+    }
+}
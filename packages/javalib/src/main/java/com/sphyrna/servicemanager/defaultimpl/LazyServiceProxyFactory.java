@@ -0,0 +1,439 @@
+package com.sphyrna.servicemanager.defaultimpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates the proxies returned by {@link ServiceManagerStrategyImpl#getLazyService(String, Class)}
+ *
+ * For each interface, a hidden class is generated that implements every method by retrieving the target from its
+ * LazyServiceReference and invoking the same method on it directly.  Calls through the proxy are plain interface calls
+ * that the JIT compiler can inline.  Interfaces that the generated class can not link against, such as non-public
+ * interfaces or interfaces loaded by an unrelated class loader, fall back to a java.lang.reflect.Proxy.
+ */
+final class LazyServiceProxyFactory
+{
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final String PROXY_CLASS_NAME = "com/sphyrna/servicemanager/defaultimpl/LazyServiceProxy";
+    private static final String REFERENCE_CLASS_NAME = LazyServiceReference.class.getName().replace('.', '/');
+    private static final String REFERENCE_DESCRIPTOR = "L" + REFERENCE_CLASS_NAME + ";";
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, LazyServiceReference.class);
+
+    // The constructor of the generated proxy class for each interface, or null if the interface needs a Proxy
+    private static final ClassValue<MethodHandle> PROXY_CONSTRUCTORS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> interfaceType)
+        {
+            return defineProxyClass(interfaceType);
+        }
+    };
+
+    private LazyServiceProxyFactory()
+    {
+    }
+
+    /**
+     * Create a proxy that implements interfaceType by delegating to the service held by reference
+     *
+     * @param interfaceType the interface implemented by the proxy
+     * @param reference provides the service that calls are delegated to
+     * @return the proxy
+     */
+    static <T> T createProxy(Class<T> interfaceType, LazyServiceReference reference)
+    {
+        Objects.requireNonNull(interfaceType, "interfaceType cannot be null");
+        Objects.requireNonNull(reference, "reference cannot be null");
+
+        MethodHandle proxyConstructor = PROXY_CONSTRUCTORS.get(interfaceType);
+        if (proxyConstructor == null)
+        {
+            return createReflectionProxy(interfaceType, reference);
+        }
+
+        try
+        {
+            return (T)(Object)proxyConstructor.invokeExact(reference);
+        }
+        catch (RuntimeException | Error exception)
+        {
+            throw exception;
+        }
+        catch (Throwable exception)
+        {
+            throw new IllegalStateException("Failed to create lazy service proxy for " + interfaceType.getName(),
+                                            exception);
+        }
+    }
+
+    private static MethodHandle defineProxyClass(Class<?> interfaceType)
+    {
+        if (!isLinkable(interfaceType))
+        {
+            return null;
+        }
+
+        try
+        {
+            MethodHandles.Lookup proxyLookup = LOOKUP.defineHiddenClass(generateProxyClass(interfaceType), true);
+            MethodType constructorType = MethodType.methodType(void.class, LazyServiceReference.class);
+            return proxyLookup.findConstructor(proxyLookup.lookupClass(), constructorType).asType(CONSTRUCTOR_TYPE);
+        }
+        catch (IllegalAccessException | NoSuchMethodException | LinkageError exception)
+        {
+            return null;
+        }
+    }
+
+    // The generated class resolves the interface through this class's loader and must be allowed to access it
+    private static boolean isLinkable(Class<?> interfaceType)
+    {
+        if (!Modifier.isPublic(interfaceType.getModifiers()) || interfaceType.isHidden())
+        {
+            return false;
+        }
+
+        try
+        {
+            LOOKUP.accessClass(interfaceType);
+            return (Class.forName(interfaceType.getName(), false, LazyServiceProxyFactory.class.getClassLoader()) ==
+                    interfaceType);
+        }
+        catch (IllegalAccessException | ClassNotFoundException exception)
+        {
+            return false;
+        }
+    }
+
+    private static <T> T createReflectionProxy(Class<T> interfaceType, LazyServiceReference reference)
+    {
+        InvocationHandler invocationHandler = (proxy, method, arguments) -> {
+            if (method.getDeclaringClass() == Object.class)
+            {
+                // Keep the identity semantics of the generated proxies
+                switch (method.getName())
+                {
+                    case "equals":
+                        return (proxy == arguments[0]);
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "LazyServiceProxy[" + reference.getServiceName() + "]";
+                }
+            }
+
+            try
+            {
+                return method.invoke(reference.get(), arguments);
+            }
+            catch (InvocationTargetException exception)
+            {
+                throw exception.getCause();
+            }
+        };
+
+        return interfaceType.cast(
+            Proxy.newProxyInstance(interfaceType.getClassLoader(), new Class<?>[] {interfaceType}, invocationHandler));
+    }
+
+    private static byte[] generateProxyClass(Class<?> interfaceType)
+    {
+        String interfaceName = interfaceType.getName().replace('.', '/');
+
+        // One delegating method per distinct signature.  Default methods are delegated too, so that overrides in the
+        // service are called
+        Map<String, Method> proxiedMethods = new LinkedHashMap<String, Method>();
+        for (Method nextMethod : interfaceType.getMethods())
+        {
+            if (!Modifier.isStatic(nextMethod.getModifiers()))
+            {
+                proxiedMethods.putIfAbsent(nextMethod.getName() + getDescriptor(nextMethod), nextMethod);
+            }
+        }
+
+        try
+        {
+            ConstantPool constantPool = new ConstantPool();
+            int thisClass = constantPool.classInfo(PROXY_CLASS_NAME);
+            int superClass = constantPool.classInfo("java/lang/Object");
+            int interfaceClass = constantPool.classInfo(interfaceName);
+            int codeName = constantPool.utf8("Code");
+            int referenceFieldName = constantPool.utf8("reference");
+            int referenceFieldDescriptor = constantPool.utf8(REFERENCE_DESCRIPTOR);
+            int referenceField = constantPool.fieldRef(PROXY_CLASS_NAME, "reference", REFERENCE_DESCRIPTOR);
+            int referenceGet = constantPool.methodRef(REFERENCE_CLASS_NAME, "get", "()Ljava/lang/Object;");
+            int objectConstructor = constantPool.methodRef("java/lang/Object", "<init>", "()V");
+            int constructorName = constantPool.utf8("<init>");
+            int constructorDescriptor = constantPool.utf8("(" + REFERENCE_DESCRIPTOR + ")V");
+
+            List<byte[]> methodInfos = new ArrayList<byte[]>();
+
+            // <init>(LazyServiceReference): super(); this.reference = reference;
+            ByteArrayOutputStream constructorCode = new ByteArrayOutputStream();
+            DataOutputStream constructorOutput = new DataOutputStream(constructorCode);
+            constructorOutput.writeByte(0x2a); // aload_0
+            constructorOutput.writeByte(0xb7); // invokespecial
+            constructorOutput.writeShort(objectConstructor);
+            constructorOutput.writeByte(0x2a); // aload_0
+            constructorOutput.writeByte(0x2b); // aload_1
+            constructorOutput.writeByte(0xb5); // putfield
+            constructorOutput.writeShort(referenceField);
+            constructorOutput.writeByte(0xb1); // return
+            methodInfos.add(methodInfo(0x0001, constructorName, constructorDescriptor, codeName, 2, 2,
+                                       constructorCode.toByteArray()));
+
+            // Each method: return ((Interface)this.reference.get()).method(arguments...);
+            for (Method nextMethod : proxiedMethods.values())
+            {
+                String descriptor = getDescriptor(nextMethod);
+                int interfaceMethod = constantPool.interfaceMethodRef(interfaceName, nextMethod.getName(), descriptor);
+
+                ByteArrayOutputStream methodCode = new ByteArrayOutputStream();
+                DataOutputStream methodOutput = new DataOutputStream(methodCode);
+                methodOutput.writeByte(0x2a); // aload_0
+                methodOutput.writeByte(0xb4); // getfield
+                methodOutput.writeShort(referenceField);
+                methodOutput.writeByte(0xb6); // invokevirtual
+                methodOutput.writeShort(referenceGet);
+                methodOutput.writeByte(0xc0); // checkcast
+                methodOutput.writeShort(interfaceClass);
+
+                int slot = 1;
+                for (Class<?> nextParameterType : nextMethod.getParameterTypes())
+                {
+                    methodOutput.writeByte(loadOpcode(nextParameterType));
+                    methodOutput.writeByte(slot);
+                    slot += slotSize(nextParameterType);
+                }
+                int argumentSlots = slot - 1;
+
+                methodOutput.writeByte(0xb9); // invokeinterface
+                methodOutput.writeShort(interfaceMethod);
+                methodOutput.writeByte(argumentSlots + 1);
+                methodOutput.writeByte(0);
+                methodOutput.writeByte(returnOpcode(nextMethod.getReturnType()));
+
+                int maxStack = Math.max(argumentSlots + 1, slotSize(nextMethod.getReturnType()));
+                methodInfos.add(methodInfo(0x0001, constantPool.utf8(nextMethod.getName()),
+                                           constantPool.utf8(descriptor), codeName, maxStack, slot,
+                                           methodCode.toByteArray()));
+            }
+
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            DataOutputStream classOutput = new DataOutputStream(classBytes);
+            classOutput.writeInt(0xcafebabe);
+            classOutput.writeShort(0);  // minor version
+            classOutput.writeShort(61); // Java 17
+            constantPool.write(classOutput);
+            classOutput.writeShort(0x0010 | 0x0020); // ACC_FINAL | ACC_SUPER
+            classOutput.writeShort(thisClass);
+            classOutput.writeShort(superClass);
+            classOutput.writeShort(1);
+            classOutput.writeShort(interfaceClass);
+
+            classOutput.writeShort(1);
+            classOutput.writeShort(0x0002 | 0x0010); // ACC_PRIVATE | ACC_FINAL
+            classOutput.writeShort(referenceFieldName);
+            classOutput.writeShort(referenceFieldDescriptor);
+            classOutput.writeShort(0);
+
+            classOutput.writeShort(methodInfos.size());
+            for (byte[] nextMethodInfo : methodInfos)
+            {
+                classOutput.write(nextMethodInfo);
+            }
+            classOutput.writeShort(0);
+
+            return classBytes.toByteArray();
+        }
+        catch (IOException exception)
+        {
+            // Not thrown by ByteArrayOutputStream
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static byte[] methodInfo(int accessFlags, int name, int descriptor, int codeName, int maxStack,
+                                     int maxLocals, byte[] code) throws IOException
+    {
+        ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        DataOutputStream methodOutput = new DataOutputStream(methodBytes);
+        methodOutput.writeShort(accessFlags);
+        methodOutput.writeShort(name);
+        methodOutput.writeShort(descriptor);
+        methodOutput.writeShort(1);
+
+        methodOutput.writeShort(codeName);
+        methodOutput.writeInt(12 + code.length);
+        methodOutput.writeShort(maxStack);
+        methodOutput.writeShort(maxLocals);
+        methodOutput.writeInt(code.length);
+        methodOutput.write(code);
+        methodOutput.writeShort(0); // exception table
+        methodOutput.writeShort(0); // attributes
+
+        return methodBytes.toByteArray();
+    }
+
+    private static String getDescriptor(Method method)
+    {
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static int slotSize(Class<?> type)
+    {
+        if (type == void.class)
+        {
+            return 0;
+        }
+
+        return ((type == long.class) || (type == double.class)) ? 2 : 1;
+    }
+
+    private static int loadOpcode(Class<?> type)
+    {
+        if (!type.isPrimitive())
+        {
+            return 0x19; // aload
+        }
+        if (type == long.class)
+        {
+            return 0x16; // lload
+        }
+        if (type == float.class)
+        {
+            return 0x17; // fload
+        }
+        if (type == double.class)
+        {
+            return 0x18; // dload
+        }
+
+        return 0x15; // iload
+    }
+
+    private static int returnOpcode(Class<?> type)
+    {
+        if (type == void.class)
+        {
+            return 0xb1; // return
+        }
+        if (!type.isPrimitive())
+        {
+            return 0xb0; // areturn
+        }
+        if (type == long.class)
+        {
+            return 0xad; // lreturn
+        }
+        if (type == float.class)
+        {
+            return 0xae; // freturn
+        }
+        if (type == double.class)
+        {
+            return 0xaf; // dreturn
+        }
+
+        return 0xac; // ireturn
+    }
+
+    /**
+     * The constant pool of a generated class.  Entries are deduplicated
+     */
+    private static final class ConstantPool
+    {
+        private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+        private final DataOutputStream entryOutput = new DataOutputStream(this.entryBytes);
+        private final Map<String, Integer> entryIndexes = new HashMap<String, Integer>();
+        private int entryCount = 1;
+
+        int utf8(String value) throws IOException
+        {
+            Integer index = this.entryIndexes.get("utf8:" + value);
+            if (index == null)
+            {
+                this.entryOutput.writeByte(1);
+                this.entryOutput.writeUTF(value);
+                index = this.addEntry("utf8:" + value);
+            }
+
+            return index;
+        }
+
+        int classInfo(String internalName) throws IOException
+        {
+            return this.reference(7, "class:" + internalName, this.utf8(internalName), -1);
+        }
+
+        int fieldRef(String owner, String name, String descriptor) throws IOException
+        {
+            return this.memberRef(9, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) throws IOException
+        {
+            return this.memberRef(10, owner, name, descriptor);
+        }
+
+        int interfaceMethodRef(String owner, String name, String descriptor) throws IOException
+        {
+            return this.memberRef(11, owner, name, descriptor);
+        }
+
+        void write(DataOutputStream classOutput) throws IOException
+        {
+            classOutput.writeShort(this.entryCount);
+            this.entryBytes.writeTo(classOutput);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) throws IOException
+        {
+            int ownerIndex = this.classInfo(owner);
+            int nameAndTypeIndex = this.reference(12, "nameAndType:" + name + ":" + descriptor, this.utf8(name),
+                                                  this.utf8(descriptor));
+
+            return this.reference(tag, tag + ":" + owner + "." + name + ":" + descriptor, ownerIndex, nameAndTypeIndex);
+        }
+
+        private int reference(int tag, String key, int firstIndex, int secondIndex) throws IOException
+        {
+            Integer index = this.entryIndexes.get(key);
+            if (index == null)
+            {
+                this.entryOutput.writeByte(tag);
+                this.entryOutput.writeShort(firstIndex);
+                if (secondIndex >= 0)
+                {
+                    this.entryOutput.writeShort(secondIndex);
+                }
+                index = this.addEntry(key);
+            }
+
+            return index;
+        }
+
+        private int addEntry(String key)
+        {
+            int index = this.entryCount++;
+            this.entryIndexes.put(key, index);
+
+            return index;
+        }
+    }
+}
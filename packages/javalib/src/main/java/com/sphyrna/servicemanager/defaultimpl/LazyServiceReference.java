@@ -0,0 +1,106 @@
+package com.sphyrna.servicemanager.defaultimpl;
+
+import com.sphyrna.servicemanager.ServiceException;
+import java.util.Objects;
+
+/**
+ * The target of a lazy service proxy.  Retrieves the service through its key on first use and holds on to the
+ * instance, together with the definition it came from, until the key resolves to a different definition
+ */
+final class LazyServiceReference
+{
+    private final ServiceKey<?> serviceKey;
+    private final Class<?> interfaceType;
+
+    private volatile Resolution resolution;
+
+    LazyServiceReference(ServiceKey<?> serviceKey, Class<?> interfaceType)
+    {
+        this.serviceKey = Objects.requireNonNull(serviceKey, "serviceKey cannot be null");
+        this.interfaceType = Objects.requireNonNull(interfaceType, "interfaceType cannot be null");
+    }
+
+    /**
+     * Retrieve the service, creating it on the first call and after the service is overridden.  Called by every method
+     * of the proxy, so it is kept small enough to be inlined
+     *
+     * @return the service instance
+     * @throws IllegalStateException if the service could not be retrieved, or is not shared by its lifecycle controller
+     */
+    Object get()
+    {
+        Resolution currentResolution = this.resolution;
+        if ((currentResolution == null) || (currentResolution.serviceDefinition !=
+                                            this.serviceKey.getStrategy().resolveServiceDefinition(this.serviceKey)))
+        {
+            return this.resolve();
+        }
+
+        return currentResolution.serviceInstance;
+    }
+
+    String getServiceName()
+    {
+        return this.serviceKey.getName();
+    }
+
+    private synchronized Object resolve()
+    {
+        // Read the definition before retrieving the instance, so that an override made in between is seen by the next
+        // call and the instance is retrieved again
+        ServiceDefinition<?, ?> serviceDefinition =
+            this.serviceKey.getStrategy().resolveServiceDefinition(this.serviceKey);
+        Resolution currentResolution = this.resolution;
+        if ((currentResolution != null) && (currentResolution.serviceDefinition == serviceDefinition))
+        {
+            return currentResolution.serviceInstance;
+        }
+
+        if ((serviceDefinition != null) && !serviceDefinition.getServiceLifecycleController().isInstanceShared())
+        {
+            throw new IllegalStateException("Service with name, " + this.serviceKey.getName() +
+                                            ", is not shared by its lifecycle controller and can not be proxied");
+        }
+
+        Object instance;
+        try
+        {
+            instance = this.serviceKey.getService();
+        }
+        catch (ServiceException exception)
+        {
+            throw new IllegalStateException("Failed to retrieve lazy service with name, " + this.serviceKey.getName(),
+                                            exception);
+        }
+
+        if (!this.interfaceType.isInstance(instance))
+        {
+            throw new ClassCastException("Service with name, " + this.serviceKey.getName() + ", does not implement " +
+                                         this.interfaceType.getName());
+        }
+
+        // Services of an ancestor that is not a ServiceManagerStrategyImpl have no definition to follow, so they are
+        // retrieved on every call
+        if (serviceDefinition != null)
+        {
+            this.resolution = new Resolution(serviceDefinition, instance);
+        }
+
+        return instance;
+    }
+
+    /**
+     * A retrieved instance and the definition it was retrieved from
+     */
+    private static final class Resolution
+    {
+        private final ServiceDefinition<?, ?> serviceDefinition;
+        private final Object serviceInstance;
+
+        private Resolution(ServiceDefinition<?, ?> serviceDefinition, Object serviceInstance)
+        {
+            this.serviceDefinition = serviceDefinition;
+            this.serviceInstance = serviceInstance;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.sphyrna.servicemanager.defaultimpl;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.ServiceLifecycleController;
+import com.sphyrna.servicemanager.ServiceMetricsRecorder;
+import com.sphyrna.servicemanager.jfr.ServiceInitializedEvent;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A registered service definition and its activation state.  A definition is activated at most once and, once
+ * replaced or removed, is retired and never activated again
+ *
+ * Until its lifecycle controller has been initialized and warmed up, concurrent lookups share a single initialization
+ * attempt.  A failed attempt is remembered and reported to later lookups without retrying until a backoff delay has
+ * elapsed.  The delay starts at 100 milliseconds and doubles with each consecutive failure, up to 30 seconds.
+ * Failures to provide an instance once the controller is warm depend on the caller, for example on the open scope or
+ * the instance level configuration, so they are reported only to that caller and do not start a backoff
+ */
+class ServiceDefinition<S extends Service<C>, C extends ServiceConfiguration>
+{
+    private static final long INITIAL_RETRY_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ServiceInstanceProvider<S> serviceInstanceProvider;
+    private final C serviceConfiguration;
+    private final ServiceLifecycleController<S, C> serviceLifecycleController;
+
+    // Written while holding the definition's monitor.  Volatile so that the lookup path can read it lock-free
+    private volatile boolean active;
+    private boolean retired;
+
+    // The in-flight or completed asynchronous warmup.  Cleared if the warmup fails so that it can be retried
+    private volatile CompletableFuture<Boolean> warmupFuture;
+
+    // Set once the lifecycle controller has been initialized and warmed up.  Lookups then go straight to the controller
+    private volatile boolean available;
+
+    // The in-flight initialization attempt, completed with the result of activate().  Written while holding the
+    // definition's monitor
+    private CompletableFuture<Boolean> initializationFuture;
+
+    // The last failed initialization attempt.  Written while holding the definition's monitor
+    private volatile InitializationFailure initializationFailure;
+
+    ServiceDefinition(ServiceLifecycleController<S, C> serviceLifecycleController, C config)
+    {
+        Objects.requireNonNull(serviceLifecycleController, "serviceLifecycleController cannot be null");
+        Objects.requireNonNull(config, "config cannot be null");
+
+        this.serviceLifecycleController = serviceLifecycleController;
+        this.serviceConfiguration = config;
+        this.serviceInstanceProvider = null;
+    }
+
+    ServiceDefinition(ServiceLifecycleController<S, C> serviceLifecycleController,
+                      ServiceInstanceProvider<S> serviceInstanceProvider, C config)
+    {
+        Objects.requireNonNull(serviceLifecycleController, "serviceLifecycleController cannot be null");
+        Objects.requireNonNull(serviceInstanceProvider, "serviceInstanceProvider cannot be null");
+        Objects.requireNonNull(config, "config cannot be null");
+
+        this.serviceLifecycleController = serviceLifecycleController;
+        this.serviceInstanceProvider = serviceInstanceProvider;
+        this.serviceConfiguration = config;
+    }
+
+    boolean hasServiceInstanceProvider()
+    {
+        return (this.serviceInstanceProvider != null);
+    }
+
+    ServiceInstanceProvider<S> getServiceInstanceProvider()
+    {
+        if (this.serviceInstanceProvider == null)
+        {
+            throw new IllegalStateException("serviceInstanceProvider called when one doesn't exist");
+        }
+
+        return this.serviceInstanceProvider;
+    }
+
+    C getServiceConfiguration()
+    {
+        return this.serviceConfiguration;
+    }
+
+    ServiceLifecycleController<S, C> getServiceLifecycleController()
+    {
+        return this.serviceLifecycleController;
+    }
+
+    boolean isActive()
+    {
+        return this.active;
+    }
+
+    /**
+     * Initialize the lifecycle controller unless that has already happened
+     *
+     * @param name the name the definition is registered under
+     * @param metricsRecorder the recorder supplied to the lifecycle controller
+     * @return true if the definition is active; false if it was retired and the caller should retry with the current
+     *     definition
+     */
+    synchronized boolean activate(String name, ServiceMetricsRecorder metricsRecorder) throws ServiceException
+    {
+        if (this.retired)
+        {
+            return false;
+        }
+
+        if (!this.active)
+        {
+            this.serviceLifecycleController.setServiceMetricsRecorder(metricsRecorder);
+            if (this.hasServiceInstanceProvider())
+            {
+                ServiceInitializedEvent initializedEvent = new ServiceInitializedEvent();
+                initializedEvent.begin();
+                this.serviceLifecycleController.init(this.serviceInstanceProvider, this.serviceConfiguration);
+                initializedEvent.end();
+                if (initializedEvent.shouldCommit())
+                {
+                    initializedEvent.serviceName = name;
+                    initializedEvent.controllerClass = this.serviceLifecycleController.getClass().getName();
+                    initializedEvent.commit();
+                }
+            }
+            this.active = true;
+        }
+
+        return true;
+    }
+
+    /**
+     * Retrieve an instance from the lifecycle controller, activating the definition first if needed
+     *
+     * @param name the name the definition is registered under
+     * @param metricsRecorder the recorder supplied to the lifecycle controller
+     * @param configuration the instance level configuration passed to the controller, or null to use the registered
+     *     configuration
+     * @return the service instance.  Null if the definition was retired before it was activated, in which case it is
+     *     not active and the caller should retry with the current definition
+     * @throws ServiceException if the instance could not be provided, or a recent initialization attempt failed and
+     *     the backoff delay has not elapsed
+     */
+    S getService(String name, ServiceMetricsRecorder metricsRecorder, ServiceConfiguration configuration)
+        throws ServiceException
+    {
+        if (this.available)
+        {
+            return this.provideService(configuration);
+        }
+
+        return this.initializeService(name, metricsRecorder, configuration);
+    }
+
+    private S provideService(ServiceConfiguration configuration) throws ServiceException
+    {
+        return (configuration == null) ? this.serviceLifecycleController.getService()
+                                       : this.serviceLifecycleController.getService((C)configuration);
+    }
+
+    private S initializeService(String name, ServiceMetricsRecorder metricsRecorder, ServiceConfiguration configuration)
+        throws ServiceException
+    {
+        CompletableFuture<Boolean> currentInitializationFuture;
+        boolean initializing = false;
+        synchronized (this)
+        {
+            if (this.available)
+            {
+                currentInitializationFuture = CompletableFuture.completedFuture(true);
+            }
+            else
+            {
+                this.checkInitializationFailure(name);
+
+                currentInitializationFuture = this.initializationFuture;
+                if (currentInitializationFuture == null)
+                {
+                    currentInitializationFuture = new CompletableFuture<Boolean>();
+                    this.initializationFuture = currentInitializationFuture;
+                    initializing = true;
+                }
+            }
+        }
+
+        if (!initializing)
+        {
+            // Share the outcome of the attempt in flight rather than making another one
+            try
+            {
+                if (!currentInitializationFuture.join())
+                {
+                    return null;
+                }
+            }
+            catch (CompletionException exception)
+            {
+                throw new ServiceException("Service with name, " + name + ", failed to initialize",
+                                           exception.getCause());
+            }
+
+            return this.provideService(configuration);
+        }
+
+        try
+        {
+            if (!this.activate(name, metricsRecorder))
+            {
+                this.completeInitialization(currentInitializationFuture, false);
+                return null;
+            }
+
+            // The attempt covers only the phases that do not depend on the caller.  Controllers whose instances do,
+            // such as the scoped and thread-confined controllers, have nothing to warm up
+            this.serviceLifecycleController.warmup();
+            this.completeInitialization(currentInitializationFuture, true);
+        }
+        catch (ServiceException | RuntimeException | Error exception)
+        {
+            this.failInitialization(currentInitializationFuture, exception);
+            throw exception;
+        }
+
+        return this.provideService(configuration);
+    }
+
+    private void checkInitializationFailure(String name) throws ServiceException
+    {
+        InitializationFailure failure = this.initializationFailure;
+        if (failure != null)
+        {
+            long retryDelayNanos = failure.retryTimeNanos - System.nanoTime();
+            if (retryDelayNanos > 0)
+            {
+                throw new ServiceException("Service with name, " + name + ", failed to initialize.  Retrying in " +
+                                               TimeUnit.NANOSECONDS.toMillis(retryDelayNanos) + " ms",
+                                           failure.cause);
+            }
+        }
+    }
+
+    private void completeInitialization(CompletableFuture<Boolean> completedInitializationFuture, boolean activated)
+    {
+        synchronized (this)
+        {
+            if (activated)
+            {
+                this.available = true;
+                this.initializationFailure = null;
+            }
+            this.initializationFuture = null;
+        }
+        completedInitializationFuture.complete(activated);
+    }
+
+    private void failInitialization(CompletableFuture<Boolean> failedInitializationFuture, Throwable cause)
+    {
+        synchronized (this)
+        {
+            this.recordInitializationFailure(cause);
+            this.initializationFuture = null;
+        }
+        failedInitializationFuture.completeExceptionally(cause);
+    }
+
+    private synchronized void recordInitializationFailure(Throwable cause)
+    {
+        InitializationFailure previousFailure = this.initializationFailure;
+        int failureCount = (previousFailure == null) ? 1 : previousFailure.failureCount + 1;
+        long retryDelayNanos = (failureCount > 30) ? MAX_RETRY_DELAY_NANOS
+                                                   : Math.min(INITIAL_RETRY_DELAY_NANOS << (failureCount - 1),
+                                                              MAX_RETRY_DELAY_NANOS);
+        this.initializationFailure =
+            new InitializationFailure(cause, failureCount, System.nanoTime() + retryDelayNanos);
+    }
+
+    /**
+     * Activate the definition and warm up its lifecycle controller asynchronously.  Concurrent callers share a single
+     * warmup
+     *
+     * @param name the name the definition is registered under
+     * @param executor runs the warmup
+     * @param metricsRecorder the recorder supplied to the lifecycle controller
+     * @return a future completed with true once the definition is active and warmed up, with false if the definition
+     *     was retired and the caller should retry with the current definition, or exceptionally if the warmup failed
+     */
+    CompletableFuture<Boolean> warmupAsync(String name, Executor executor, ServiceMetricsRecorder metricsRecorder)
+    {
+        CompletableFuture<Boolean> currentWarmupFuture = this.warmupFuture;
+        if (currentWarmupFuture == null)
+        {
+            synchronized (this)
+            {
+                currentWarmupFuture = this.warmupFuture;
+                if (currentWarmupFuture == null)
+                {
+                    try
+                    {
+                        this.checkInitializationFailure(name);
+                    }
+                    catch (ServiceException exception)
+                    {
+                        return CompletableFuture.failedFuture(exception);
+                    }
+
+                    currentWarmupFuture = CompletableFuture.supplyAsync(() -> {
+                        try
+                        {
+                            if (!this.activate(name, metricsRecorder))
+                            {
+                                return false;
+                            }
+                            this.serviceLifecycleController.warmup();
+                            return true;
+                        }
+                        catch (ServiceException exception)
+                        {
+                            throw new CompletionException(exception);
+                        }
+                    }, executor);
+                    this.warmupFuture = currentWarmupFuture;
+
+                    CompletableFuture<Boolean> failedWarmupFuture = currentWarmupFuture;
+                    currentWarmupFuture.whenComplete((ignored, failure) -> {
+                        if (failure != null)
+                        {
+                            this.clearWarmupFuture(failedWarmupFuture, failure);
+                        }
+                    });
+                }
+            }
+        }
+
+        return currentWarmupFuture;
+    }
+
+    private synchronized void clearWarmupFuture(CompletableFuture<Boolean> failedWarmupFuture, Throwable failure)
+    {
+        if (this.warmupFuture == failedWarmupFuture)
+        {
+            this.warmupFuture = null;
+            this.recordInitializationFailure((failure instanceof CompletionException) ? failure.getCause() : failure);
+        }
+    }
+
+    synchronized boolean isRetired()
+    {
+        return this.retired;
+    }
+
+    /**
+     * Retire the definition so that it can no longer be activated
+     *
+     * @return true if its lifecycle controller should be shut down.  That is the case the first time a definition is
+     *     retired if it had been activated, or if the controller was registered without a provider, in which case the
+     *     client may have initialized it before registering it
+     */
+    synchronized boolean retire()
+    {
+        if (this.retired)
+        {
+            return false;
+        }
+
+        this.retired = true;
+        return (this.active || !this.hasServiceInstanceProvider());
+    }
+
+    private static final class InitializationFailure
+    {
+        final Throwable cause;
+        final int failureCount;
+        final long retryTimeNanos;
+
+        InitializationFailure(Throwable cause, int failureCount, long retryTimeNanos)
+        {
+            this.cause = cause;
+            this.failureCount = failureCount;
+            this.retryTimeNanos = retryTimeNanos;
+        }
+    }
+}
@@ -3,34 +3,202 @@ package com.sphyrna.servicemanager.defaultimpl;
 import com.sphyrna.servicemanager.Service;
 import com.sphyrna.servicemanager.ServiceException;
 import com.sphyrna.servicemanager.ServiceInstanceProvider;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.util.Objects;
+import java.util.function.Supplier;
 
+/**
+ * A ServiceInstanceProvider that creates instances of a service class through its no-arg constructor
+ *
+ * The constructor is resolved once, when the provider is built, and linked into a Supplier generated with
+ * LambdaMetafactory, so creating an instance costs about the same as calling new directly.  If the service class can
+ * not be linked that way, the provider falls back to invoking a MethodHandle for the constructor.  If the package of
+ * the service class is not open to this library, a public constructor of a public class is still resolved that way.
+ * A service class that can not be instantiated is reported when the provider is built rather than on first use.
+ *
+ * The Supplier is linked once per service class and shared by every provider built for it, so that rebuilding the
+ * providers, for example each time a service descriptor is reloaded, does not define another class each time.
+ */
 public class ServiceInstanceProviderImpl<S extends Service> implements ServiceInstanceProvider<S>
 {
+    private static final MethodType SUPPLIER_FACTORY_TYPE = MethodType.methodType(Supplier.class);
+    private static final MethodType SUPPLIER_GET_TYPE = MethodType.methodType(Object.class);
 
-    private Class<S> serviceClass;
+    // The Supplier linked for each service class.  Failures are not cached, so a class is resolved again next time
+    private static final ClassValue<Supplier<?>> SERVICE_FACTORIES = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> serviceClass)
+        {
+            try
+            {
+                return createServiceFactory((Class<? extends Service>)serviceClass);
+            }
+            catch (ServiceException exception)
+            {
+                throw new ServiceFactoryException(exception);
+            }
+        }
+    };
 
-    public ServiceInstanceProviderImpl(Class<S> serviceClass)
+    private final Supplier<S> serviceFactory;
+
+    /**
+     * Create a provider for a service class
+     *
+     * @param serviceClass the class that implements the service.  It must be a concrete class with a no-arg
+     *            constructor
+     * @throws ServiceException if the constructor of the service class can not be resolved
+     */
+    public ServiceInstanceProviderImpl(Class<S> serviceClass) throws ServiceException
     {
-        this.serviceClass = Objects.requireNonNull(serviceClass, "serviceClass cannot be null");
+        Objects.requireNonNull(serviceClass, "serviceClass cannot be null");
+
+        try
+        {
+            this.serviceFactory = (Supplier<S>)SERVICE_FACTORIES.get(serviceClass);
+        }
+        catch (ServiceFactoryException exception)
+        {
+            throw (ServiceException)exception.getCause();
+        }
     }
 
     @Override
     public S createServiceInstance() throws ServiceException
     {
-        S createdService = null;
+        try
+        {
+            return this.serviceFactory.get();
+        }
+        catch (ServiceConstructionException exception)
+        {
+            throw new ServiceException("Failed to instantiate service", exception.getCause());
+        }
+        catch (Error error)
+        {
+            throw error;
+        }
+        catch (Throwable throwable)
+        {
+            // Includes checked exceptions thrown by the constructor through the generated Supplier
+            throw new ServiceException("Failed to instantiate service", throwable);
+        }
+    }
+
+    private static <S extends Service> Supplier<S> createServiceFactory(Class<S> serviceClass) throws ServiceException
+    {
+        if (serviceClass.isInterface() || Modifier.isAbstract(serviceClass.getModifiers()))
+        {
+            throw new ServiceException("Failed to resolve service constructor. " + serviceClass.getName() +
+                                       " is not a concrete class");
+        }
+
+        Constructor<S> declaredConstructor;
+        try
+        {
+            declaredConstructor = serviceClass.getDeclaredConstructor();
+        }
+        catch (NoSuchMethodException | SecurityException exception)
+        {
+            throw new ServiceException("Failed to resolve service constructor for " + serviceClass.getName(),
+                                       exception);
+        }
 
+        MethodHandles.Lookup lookup;
+        MethodHandle constructor;
         try
         {
-            createdService = this.serviceClass.getDeclaredConstructor().newInstance();
+            lookup = MethodHandles.privateLookupIn(serviceClass, MethodHandles.lookup());
+            constructor = lookup.unreflectConstructor(declaredConstructor);
+        }
+        catch (IllegalAccessException exception)
+        {
+            // The package is not open to this library.  A public constructor can still be invoked through a handle
+            if (!Modifier.isPublic(declaredConstructor.getModifiers()))
+            {
+                throw new ServiceException("Failed to resolve service constructor for " + serviceClass.getName(),
+                                           exception);
+            }
+
+            try
+            {
+                return createHandleFactory(MethodHandles.publicLookup().findConstructor(
+                    serviceClass, MethodType.methodType(void.class)));
+            }
+            catch (NoSuchMethodException | IllegalAccessException publicLookupException)
+            {
+                exception.addSuppressed(publicLookupException);
+                throw new ServiceException("Failed to resolve service constructor for " + serviceClass.getName(),
+                                           exception);
+            }
+        }
+
+        try
+        {
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", SUPPLIER_FACTORY_TYPE, SUPPLIER_GET_TYPE,
+                                                              constructor, constructor.type());
+            return (Supplier<S>)callSite.getTarget().invokeExact();
+        }
+        catch (LambdaConversionException linkageException)
+        {
+            // Not linkable into a generated class.  Invoke the constructor handle instead
+            return createHandleFactory(constructor);
+        }
+        catch (Error error)
+        {
+            throw error;
         }
-        catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException |
-               NoSuchMethodException | SecurityException exception)
+        catch (Throwable throwable)
         {
-            throw new ServiceException("Failed to instantiate service", exception);
+            throw new ServiceException("Failed to link service constructor for " + serviceClass.getName(), throwable);
         }
+    }
 
-        return createdService;
+    private static <S extends Service> Supplier<S> createHandleFactory(MethodHandle constructor)
+    {
+        MethodHandle genericConstructor = constructor.asType(SUPPLIER_GET_TYPE);
+        return () -> {
+            try
+            {
+                return (S)genericConstructor.invokeExact();
+            }
+            catch (RuntimeException | Error exception)
+            {
+                throw exception;
+            }
+            catch (Throwable throwable)
+            {
+                throw new ServiceConstructionException(throwable);
+            }
+        };
+    }
+
+    /**
+     * Carries the ServiceException thrown while resolving the constructor of a service class out of SERVICE_FACTORIES
+     */
+    private static class ServiceFactoryException extends RuntimeException
+    {
+        private ServiceFactoryException(ServiceException cause)
+        {
+            super(cause);
+        }
+    }
+
+    /**
+     * Carries a checked exception thrown by a service constructor through the Supplier used to create instances
+     */
+    private static class ServiceConstructionException extends RuntimeException
+    {
+        private ServiceConstructionException(Throwable cause)
+        {
+            super(cause);
+        }
     }
 }
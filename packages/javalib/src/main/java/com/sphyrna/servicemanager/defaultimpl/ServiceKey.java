@@ -0,0 +1,133 @@
+package com.sphyrna.servicemanager.defaultimpl;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceManagerStrategy;
+import com.sphyrna.servicemanager.ServiceMetrics;
+import com.sphyrna.servicemanager.ServiceMetricsRecorder;
+import com.sphyrna.servicemanager.ServiceNotAvailableException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A pre-resolved handle to a named service in a {@link ServiceManagerStrategyImpl}.  Obtain one with
+ * {@link ServiceManagerStrategyImpl#getServiceKey(String)} and keep it for repeated lookups.
+ *
+ * A key is the registry slot for its name.  Retrieving a service through it reads the current definition directly
+ * instead of hashing the name.  The key stays valid across overrides and sees the replacement definition.  It may be
+ * obtained before the service is registered.
+ */
+public final class ServiceKey<S extends Service>
+{
+    private final String name;
+    private final ServiceManagerStrategyImpl strategy;
+
+    // Written by the owning strategy while holding this key's monitor
+    volatile ServiceDefinition<?, ?> serviceDefinition;
+
+    // Definitions replaced by ServiceManagerStrategyImpl.replaceServices that are waiting to be shut down.  Written by
+    // the owning strategy while holding this key's monitor
+    volatile List<ServiceDefinition<?, ?>> drainingDefinitions = List.of();
+
+    // Where the owning strategy last found this service among its ancestors.  See ParentResolution
+    volatile ParentResolution parentResolution;
+
+    // The metrics recorder for this service and the metrics it was resolved from
+    private volatile ServiceMetricsRecorder metricsRecorder;
+    private volatile ServiceMetrics metricsRecorderSource;
+
+    ServiceKey(String name, ServiceManagerStrategyImpl strategy)
+    {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        this.strategy = Objects.requireNonNull(strategy, "strategy cannot be null");
+    }
+
+    /**
+     * Retrieve the name of the service this key refers to
+     *
+     * @return the name of the service
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Determine if a service is currently defined for this key
+     *
+     * @return true if the service is defined, false otherwise
+     */
+    public boolean isServiceDefined()
+    {
+        return (this.serviceDefinition != null);
+    }
+
+    /**
+     * Retrieve the service this key refers to
+     *
+     * @return the requested service
+     * @throws ServiceNotAvailableException if the service is not currently defined
+     */
+    public S getService() throws ServiceException
+    {
+        return this.strategy.getService(this);
+    }
+
+    /**
+     * Retrieve the service this key refers to without blocking the calling thread while it is created and started.  See
+     * {@link ServiceManagerStrategyImpl#getServiceAsync(ServiceKey)}
+     *
+     * @return a future completed with the requested service, or exceptionally if it could not be retrieved
+     */
+    public CompletableFuture<S> getServiceAsync()
+    {
+        return this.strategy.getServiceAsync(this);
+    }
+
+    ServiceManagerStrategyImpl getStrategy()
+    {
+        return this.strategy;
+    }
+
+    /**
+     * Retrieve the recorder for this service, resolving it only if the strategy's metrics have changed
+     */
+    ServiceMetricsRecorder getMetricsRecorder(ServiceMetrics serviceMetrics)
+    {
+        if (this.metricsRecorderSource != serviceMetrics)
+        {
+            this.metricsRecorder = serviceMetrics.getRecorder(this.name);
+            this.metricsRecorderSource = serviceMetrics;
+        }
+
+        return this.metricsRecorder;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ServiceKey[" + this.name + "]";
+    }
+
+    /**
+     * The ancestor that defines a service which the owning strategy does not.  Valid while the definition epoch of the
+     * hierarchy is unchanged.  Overrides in the ancestor replace the definition held by its key, so they do not
+     * invalidate the resolution
+     */
+    static final class ParentResolution
+    {
+        // The key of the nearest ancestor implementation that defines the service, or null
+        final ServiceKey<?> serviceKey;
+        // The first ancestor that is not a ServiceManagerStrategyImpl, consulted if serviceKey is null.  May be null
+        final ServiceManagerStrategy delegateStrategy;
+        final long definitionEpoch;
+
+        ParentResolution(ServiceKey<?> serviceKey, ServiceManagerStrategy delegateStrategy, long definitionEpoch)
+        {
+            this.serviceKey = serviceKey;
+            this.delegateStrategy = delegateStrategy;
+            this.definitionEpoch = definitionEpoch;
+        }
+    }
+}
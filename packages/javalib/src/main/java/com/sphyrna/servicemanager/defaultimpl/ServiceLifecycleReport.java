@@ -0,0 +1,99 @@
+package com.sphyrna.servicemanager.defaultimpl;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The outcome of starting or stopping the services of a ServiceManagerStrategyImpl.  Records how long each service took
+ * and the failure of each service that did not complete
+ */
+public final class ServiceLifecycleReport
+{
+    private final Map<String, Duration> serviceDurations;
+    private final Map<String, Throwable> serviceFailures;
+    private final Duration totalDuration;
+
+    ServiceLifecycleReport(Map<String, Duration> serviceDurations, Map<String, Throwable> serviceFailures,
+                           Duration totalDuration)
+    {
+        Objects.requireNonNull(serviceDurations, "serviceDurations cannot be null");
+        Objects.requireNonNull(serviceFailures, "serviceFailures cannot be null");
+        Objects.requireNonNull(totalDuration, "totalDuration cannot be null");
+
+        this.serviceDurations = Collections.unmodifiableMap(new TreeMap<String, Duration>(serviceDurations));
+        this.serviceFailures = Collections.unmodifiableMap(new TreeMap<String, Throwable>(serviceFailures));
+        this.totalDuration = totalDuration;
+    }
+
+    /**
+     * Retrieve the time taken by each service that completed, keyed by service name
+     *
+     * @return the service durations
+     */
+    public Map<String, Duration> getServiceDurations()
+    {
+        return this.serviceDurations;
+    }
+
+    /**
+     * Retrieve the cause of failure of each service that did not complete, keyed by service name
+     *
+     * @return the service failures
+     */
+    public Map<String, Throwable> getServiceFailures()
+    {
+        return this.serviceFailures;
+    }
+
+    /**
+     * Retrieve the names of the services that did not complete within their timeout
+     *
+     * @return the names of the timed out services
+     */
+    public Set<String> getTimedOutServiceNames()
+    {
+        Set<String> timedOutServiceNames = new TreeSet<String>();
+        for (Map.Entry<String, Throwable> nextServiceFailure : this.serviceFailures.entrySet())
+        {
+            if (nextServiceFailure.getValue() instanceof TimeoutException)
+            {
+                timedOutServiceNames.add(nextServiceFailure.getKey());
+            }
+        }
+
+        return timedOutServiceNames;
+    }
+
+    /**
+     * Retrieve the wall clock time taken for all services
+     *
+     * @return the total duration
+     */
+    public Duration getTotalDuration()
+    {
+        return this.totalDuration;
+    }
+
+    /**
+     * Determine if every service completed
+     *
+     * @return true if no service failed, false otherwise
+     */
+    public boolean isSuccessful()
+    {
+        return this.serviceFailures.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ServiceLifecycleReport[totalDuration=" + this.totalDuration + ", serviceDurations=" +
+            this.serviceDurations + ", serviceFailures=" + this.serviceFailures.keySet() + "]";
+    }
+}
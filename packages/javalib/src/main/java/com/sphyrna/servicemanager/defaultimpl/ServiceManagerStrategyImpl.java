@@ -1,36 +1,173 @@
 package com.sphyrna.servicemanager.defaultimpl;
 
 import com.sphyrna.servicemanager.*;
+import com.sphyrna.servicemanager.jfr.ServiceLookupMissEvent;
+import com.sphyrna.servicemanager.jfr.ServiceOverriddenEvent;
+import com.sphyrna.servicemanager.jfr.ServiceRegisteredEvent;
 import com.sphyrna.servicemanager.providers.KnownServiceLifecycleControllers;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
  * Default implementation of the Service Manager interface
  *
+ * This implementation is thread safe.  Lookups of services that have already been activated are lock-free, and do not
+ * allocate when the lifecycle controller does not, as is the case for singletons.  The first lookup of a service
+ * activates its lifecycle controller exactly once, regardless of how many threads request it concurrently.
+ * Registrations and overrides replace definitions atomically.
+ *
+ * Callers that look up the same service repeatedly can resolve its name once with {@link #getServiceKey(String)} and
+ * retrieve the service through the returned {@link ServiceKey}.  Callers that may not need a service at all can wire in
+ * a proxy from {@link #getLazyService(String, Class)}, which creates the service on its first method call.  Callers
+ * that probe for optional services can use {@link #findService(String)}, which reports an undefined service without an
+ * exception and remembers it until the services change.
+ *
+ * Concurrent first lookups of a service share a single attempt to create and start it.  If the attempt fails, lookups
+ * fail immediately with the cause of the failure until a retry is due.  Retries back off exponentially, from 100
+ * milliseconds up to 30 seconds, so that a broken service is not retried by every caller.
+ *
+ * Services are started lazily, on first lookup, unless {@link #startAll()} is used to start them eagerly.  Eager
+ * startup starts services in parallel, in the order given by the dependencies declared with
+ * {@link #registerServiceDependencies(String, String...)}.  Shutdown stops services in parallel, in reverse dependency
+ * order, within a time limit.
+ *
+ * A strategy may be created with a parent strategy.  Services that it does not define are retrieved from the parent,
+ * and in turn from its ancestors, so a child only needs to define the services it overrides.  A child caches which
+ * ancestor defines each service it has looked up, so a lookup through a hierarchy of strategies costs a single hash
+ * lookup in the child.  The cache is invalidated when a service becomes defined or undefined anywhere in the hierarchy,
+ * and follows overrides of the cached ancestor's service immediately.  Names that no ancestor defines are not cached,
+ * so probing them does not grow the child, and a frozen child looks up its ancestors' services in each ancestor in
+ * turn.  A child starts, replaces and shuts down only the services it defines.
+ *
+ * The services of a running strategy can be replaced with {@link #replaceServices(ServiceManagerStrategyImpl,
+ * Duration)}.  Replacements are started before they are swapped in, each name is switched atomically, and the replaced
+ * services are shut down once the users that obtained them have had time to finish.  A service overridden through a
+ * registration method with override=true is not drained.  Its controller is shut down before the registration
+ * returns, so that the caller can rely on the old service having stopped, and released its resources, once the
+ * override is in place.  Instances obtained from it and released afterwards are not returned to it, so services that
+ * hand out an instance per caller, such as pooled services, should be swapped with replaceServices while in use.
+ *
+ * Once startup is complete, the registry can be frozen with {@link #freeze()}.  Lookups by name are then served from an
+ * immutable perfect hash table of the defined services, and registrations are rejected until {@link #unfreeze()}.
+ *
+ * Lookups and the lifecycle timings of service instances are recorded to the {@link ServiceMetrics} set with
+ * {@link #setServiceMetrics(ServiceMetrics)}.  Misses on names for which this strategy has no key are recorded under
+ * {@link #UNDEFINED_SERVICE_METRICS_NAME}, so that probing arbitrary names does not add a recorder per name.
+ * Registrations, overrides, lookup misses and initializations are also
+ * emitted as Java Flight Recorder events in the com.sphyrna.servicemanager category.  The events are disabled by
+ * default.
+ *
  * @author sgoldstein
  */
 public class ServiceManagerStrategyImpl implements ServiceManagerStrategy
 {
+    public static final Duration DEFAULT_SERVICE_SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The name under which lookup misses of services that are not defined are recorded to the ServiceMetrics
+     */
+    public static final String UNDEFINED_SERVICE_METRICS_NAME = "<undefined>";
+
     private static final Log LOG = LogFactory.getLog(ServiceManagerStrategyImpl.class.getName());
 
-    private final Map<String, ServiceLifecycleController<?, ?>> CONTROLLERS_FOR_ACTIVE_SERVICES =
-        new HashMap<String, ServiceLifecycleController<?, ?>>();
-    private final Map<String, ServiceDefinition<?, ?>> SERVICE_DEFINITIONS =
-        new HashMap<String, ServiceDefinition<?, ?>>();
+    // Bounds the names remembered by findService as undefined
+    private static final int MAX_MISSED_NAMES = 1024;
+
+    // Runs the warmup of services retrieved asynchronously
+    private static final Executor ASYNC_EXECUTOR =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("service-warmup-", 0).factory());
+
+    // One key per service name.  Each key holds the current definition for its name
+    private final Map<String, ServiceKey<?>> SERVICE_KEYS = new ConcurrentHashMap<String, ServiceKey<?>>();
+
+    // The names of the services each service depends on, keyed by service name
+    private final Map<String, List<String>> SERVICE_DEPENDENCIES = new ConcurrentHashMap<String, List<String>>();
+
+    // Serializes replaceServices
+    private final Object replaceLock = new Object();
+
+    // Serializes registrations with freeze() and unfreeze()
+    private final Object registrationLock = new Object();
+
+    // The keys of the services defined when the registry was frozen.  Null while the registry is not frozen
+    private volatile FrozenServiceKeys frozenServiceKeys;
+
+    // Names that findService found undefined throughout the hierarchy, with the definition epoch at the time.  An entry
+    // is valid only while the epoch is unchanged
+    private final Map<String, Long> missedNames = new ConcurrentHashMap<String, Long>();
+
+    private volatile ServiceMetrics serviceMetrics = ServiceMetrics.NONE;
+
+    // Null for a root strategy
+    private final ServiceManagerStrategy parentStrategy;
+
+    // Incremented whenever a service becomes defined or undefined.  Shared with the parent if it is a
+    // ServiceManagerStrategyImpl, so that it invalidates the parent resolutions cached throughout the hierarchy
+    private final AtomicLong definitionEpoch;
+
+    /**
+     * Create a root strategy
+     */
+    public ServiceManagerStrategyImpl()
+    {
+        this.parentStrategy = null;
+        this.definitionEpoch = new AtomicLong();
+    }
+
+    /**
+     * Create a child strategy.  Services that it does not define are retrieved from the parent strategy
+     *
+     * @param parentStrategy the strategy consulted for services this strategy does not define
+     */
+    public ServiceManagerStrategyImpl(ServiceManagerStrategy parentStrategy)
+    {
+        this.parentStrategy = Objects.requireNonNull(parentStrategy, "parentStrategy cannot be null");
+        this.definitionEpoch = (parentStrategy instanceof ServiceManagerStrategyImpl parentStrategyImpl)
+                                   ? parentStrategyImpl.definitionEpoch
+                                   : new AtomicLong();
+    }
+
+    /**
+     * Retrieve the parent strategy
+     *
+     * @return the parent strategy, or null if this is a root strategy
+     */
+    public ServiceManagerStrategy getParentStrategy()
+    {
+        return this.parentStrategy;
+    }
 
     @Override
     public <S extends Service<ServiceConfiguration>> S getService(String name) throws ServiceException
     {
         Objects.requireNonNull(name, "name cannot be null");
 
-        return this.getService(name, ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION);
+        // Without a configuration there is nothing to translate, so go straight to the lookup
+        return this.lookupService(name, null);
     }
 
     @Override
@@ -40,35 +177,236 @@ public class ServiceManagerStrategyImpl implements ServiceManagerStrategy
         Objects.requireNonNull(name, "name cannot be null");
         Objects.requireNonNull(serviceConfiguration, "serviceConfiguration cannot be null");
 
-        if (!SERVICE_DEFINITIONS.containsKey(name))
+        return this.lookupService(name, toInstanceConfiguration(serviceConfiguration));
+    }
+
+    /**
+     * Retrieve a service through a key obtained from {@link #getServiceKey(String)}
+     *
+     * @param serviceKey the key of the service
+     * @return the requested service if exists
+     */
+    public <S extends Service> S getService(ServiceKey<S> serviceKey) throws ServiceException
+    {
+        Objects.requireNonNull(serviceKey, "serviceKey cannot be null");
+
+        return this.lookupService(serviceKey, null);
+    }
+
+    /**
+     * Retrieve a service through a key obtained from {@link #getServiceKey(String)}
+     *
+     * @param serviceKey the key of the service
+     * @param serviceConfiguration service instance level configuration.  This must be supported by the associated
+     *     ServiceLifecycleController
+     * @return the requested service if exists
+     */
+    public <S extends Service> S getService(ServiceKey<S> serviceKey, ServiceConfiguration serviceConfiguration)
+        throws ServiceException
+    {
+        Objects.requireNonNull(serviceKey, "serviceKey cannot be null");
+        Objects.requireNonNull(serviceConfiguration, "serviceConfiguration cannot be null");
+
+        return this.lookupService(serviceKey, toInstanceConfiguration(serviceConfiguration));
+    }
+
+    /**
+     * Retrieve a service if it is defined, in this strategy or in an ancestor.  An undefined service is not reported
+     * with an exception, and is not recorded as a lookup miss, so this suits probing for optional services.
+     *
+     * Names found to be undefined are remembered, so that probing them again costs a single hash lookup, even through a
+     * hierarchy of strategies.  They are forgotten once a service becomes defined or undefined anywhere in the
+     * hierarchy.  Undefined names are not remembered when the lookup reaches an ancestor that is not a
+     * ServiceManagerStrategyImpl, as its registrations can not be observed
+     *
+     * @param name the name of the service
+     * @return the requested service, or an empty Optional if it is not defined
+     */
+    @Override
+    public <S extends Service<ServiceConfiguration>> Optional<S> findService(String name) throws ServiceException
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        // Read the epoch before looking up the name, so that a registration made during the lookup invalidates the miss
+        long currentEpoch = this.definitionEpoch.get();
+        Long missedEpoch = this.missedNames.get(name);
+        if ((missedEpoch != null) && (missedEpoch.longValue() == currentEpoch))
         {
-            throw new ServiceNotAvailableException(name);
+            return Optional.empty();
         }
 
-        ServiceLifecycleController<S, C> serviceLifecycleController;
+        ServiceKey<S> serviceKey = (ServiceKey<S>)this.findServiceKey(name);
+        if ((serviceKey != null) && (serviceKey.isServiceDefined()))
+        {
+            return Optional.ofNullable(this.lookupService(serviceKey, null));
+        }
 
-        // Check if the service lifecycle controller has already been initialized
-        if (CONTROLLERS_FOR_ACTIVE_SERVICES.containsKey(name))
+        if (this.parentStrategy != null)
         {
-            serviceLifecycleController = (ServiceLifecycleController<S, C>)CONTROLLERS_FOR_ACTIVE_SERVICES.get(name);
+            ServiceKey<S> parentServiceKey = (ServiceKey<S>)this.resolveParentServiceKey(name);
+            if (parentServiceKey != null)
+            {
+                return Optional.ofNullable(parentServiceKey.getStrategy().lookupService(parentServiceKey, null));
+            }
+
+            ServiceManagerStrategy delegateStrategy = this.findDelegateStrategy();
+            if (delegateStrategy != null)
+            {
+                return delegateStrategy.findService(name);
+            }
         }
-        else
+
+        if (this.missedNames.size() >= MAX_MISSED_NAMES)
         {
-            // Create and start it
-            // FIXME - Not Thread Safe
-            ServiceDefinition<S, C> serviceDefinition = (ServiceDefinition<S, C>)SERVICE_DEFINITIONS.get(name);
-            serviceLifecycleController = serviceDefinition.getServiceLifecycleController();
+            this.missedNames.clear();
+        }
+        this.missedNames.put(name, currentEpoch);
 
-            if (serviceDefinition.hasServiceInstanceProvider())
+        return Optional.empty();
+    }
+
+    @Override
+    public <S extends Service<ServiceConfiguration>> CompletableFuture<S> getServiceAsync(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.getServiceAsync(name, ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION);
+    }
+
+    @Override
+    public <S extends Service<C>, C extends ServiceConfiguration> CompletableFuture<S>
+    getServiceAsync(String name, C serviceConfiguration)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(serviceConfiguration, "serviceConfiguration cannot be null");
+
+        ServiceKey<S> serviceKey = (ServiceKey<S>)this.findServiceKey(name);
+        if ((serviceKey == null) && (this.parentStrategy != null))
+        {
+            ServiceKey<S> parentServiceKey = (ServiceKey<S>)this.resolveParentServiceKey(name);
+            if (parentServiceKey != null)
             {
-                serviceLifecycleController.init(serviceDefinition.getServiceInstanceProvider(),
-                                                serviceDefinition.getServiceConfiguration());
+                return parentServiceKey.getStrategy().lookupServiceAsync(parentServiceKey,
+                                                                         toInstanceConfiguration(serviceConfiguration));
             }
 
-            CONTROLLERS_FOR_ACTIVE_SERVICES.put(name, serviceLifecycleController);
+            ServiceManagerStrategy delegateStrategy = this.findDelegateStrategy();
+            if (delegateStrategy != null)
+            {
+                return (serviceConfiguration == ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION)
+                           ? (CompletableFuture<S>)delegateStrategy.getServiceAsync(name)
+                           : (CompletableFuture<S>)delegateStrategy.getServiceAsync(name, serviceConfiguration);
+            }
         }
 
-        return serviceLifecycleController.getService();
+        if (serviceKey == null)
+        {
+            this.recordUndefinedLookupMiss(name);
+            return CompletableFuture.failedFuture(new ServiceNotAvailableException(name));
+        }
+
+        return this.lookupServiceAsync(serviceKey, toInstanceConfiguration(serviceConfiguration));
+    }
+
+    /**
+     * Retrieve a service through a key obtained from {@link #getServiceKey(String)} without blocking the calling thread
+     * while it is created and started.  The service is activated and warmed up by its lifecycle controller on a virtual
+     * thread.  Concurrent callers share that warmup.  Once the service is warm, the returned future is completed on the
+     * calling thread
+     *
+     * @param serviceKey the key of the service
+     * @return a future completed with the requested service, or exceptionally if it could not be retrieved
+     */
+    public <S extends Service> CompletableFuture<S> getServiceAsync(ServiceKey<S> serviceKey)
+    {
+        Objects.requireNonNull(serviceKey, "serviceKey cannot be null");
+
+        return this.lookupServiceAsync(serviceKey, null);
+    }
+
+    /**
+     * Retrieve a proxy for a service that defers creating the service until the first method call.  The first call
+     * retrieves the service through its lifecycle controller as getService() would.  The proxy keeps the instance and
+     * delegates every call to it until the service is overridden, after which the next call retrieves the replacement.
+     * Keeping the instance requires a controller that shares one instance between callers, such as the singleton
+     * controller, so method calls fail with an IllegalStateException for any other controller.  If the service can not
+     * be retrieved, the method call fails with the exception getService() threw, wrapped in an IllegalStateException if
+     * it is a ServiceException, and the next call tries again.
+     *
+     * Calls are delegated through a generated class that invokes the service directly, so that they can be inlined.
+     * The proxy does not override equals, hashCode or toString.  Like a key, a proxy may be obtained before the service
+     * is registered
+     *
+     * @param name the name of the service
+     * @param interfaceType the interface implemented by the service and the proxy
+     * @return the proxy
+     * @throws IllegalArgumentException if interfaceType is not an interface
+     */
+    public <T> T getLazyService(String name, Class<T> interfaceType)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(interfaceType, "interfaceType cannot be null");
+
+        if (!interfaceType.isInterface())
+        {
+            throw new IllegalArgumentException("interfaceType, " + interfaceType.getName() + ", is not an interface");
+        }
+
+        return LazyServiceProxyFactory.createProxy(interfaceType,
+                                                   new LazyServiceReference(this.getServiceKey(name), interfaceType));
+    }
+
+    /**
+     * Resolve a service name to a key.  Services retrieved through the key skip the name lookup.  The key may be
+     * obtained before the service is registered and remains valid when the service is overridden
+     *
+     * @param name the name of the service
+     * @return the key for the specified name
+     */
+    public <S extends Service> ServiceKey<S> getServiceKey(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return (ServiceKey<S>)SERVICE_KEYS.computeIfAbsent(name, keyName -> new ServiceKey<S>(keyName, this));
+    }
+
+    @Override
+    public void releaseService(String name, Service<?> service)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(service, "service cannot be null");
+
+        // The instance is released to the controller of the current definition.  If the service was overridden since
+        // the instance was retrieved, that controller did not create it and is expected to ignore it
+        ServiceKey<?> serviceKey = this.findServiceKey(name);
+        ServiceDefinition<?, ?> serviceDefinition = (serviceKey != null) ? serviceKey.serviceDefinition : null;
+        List<ServiceDefinition<?, ?>> drainingDefinitions =
+            (serviceKey != null) ? serviceKey.drainingDefinitions : List.of();
+        if ((serviceDefinition == null) && drainingDefinitions.isEmpty())
+        {
+            // Retrieved from an ancestor, if at all
+            if (this.parentStrategy != null)
+            {
+                this.parentStrategy.releaseService(name, service);
+            }
+        }
+        else if (drainingDefinitions.isEmpty())
+        {
+            if ((serviceDefinition != null) && (serviceDefinition.isActive()))
+            {
+                ((ServiceLifecycleController)serviceDefinition.getServiceLifecycleController()).releaseService(service);
+            }
+        }
+        else
+        {
+            // The service was replaced and the instance may come from the replaced version
+            releaseOwnedService(serviceDefinition, service);
+            for (ServiceDefinition<?, ?> nextDrainingDefinition : drainingDefinitions)
+            {
+                releaseOwnedService(nextDrainingDefinition, service);
+                this.retireDrainedDefinition(serviceKey, nextDrainingDefinition);
+            }
+        }
     }
 
     @Override
@@ -76,7 +414,9 @@ public class ServiceManagerStrategyImpl implements ServiceManagerStrategy
     {
         Objects.requireNonNull(name, "name cannot be null");
 
-        return SERVICE_DEFINITIONS.containsKey(name);
+        ServiceKey<?> serviceKey = this.findServiceKey(name);
+        return ((serviceKey != null) && (serviceKey.isServiceDefined())) ||
+               ((this.parentStrategy != null) && (this.parentStrategy.isServiceDefined(name)));
     }
 
     public <S extends Service<C>, C extends ServiceConfiguration> void
@@ -102,15 +442,10 @@ public class ServiceManagerStrategyImpl implements ServiceManagerStrategy
         Objects.requireNonNull(serviceLifecycleController, "serviceLifecycleController cannot be null");
         Objects.requireNonNull(serviceConfiguration, "serviceConfiguration cannot be null");
 
-        if (SERVICE_DEFINITIONS.containsKey(name))
-        {
-            this.handleServiceOverride(name, override);
-        }
-
         ServiceDefinition<S, C> serviceDefinition =
             new ServiceDefinition<S, C>(serviceLifecycleController, serviceInstanceProvider, serviceConfiguration);
 
-        this.SERVICE_DEFINITIONS.put(name, serviceDefinition);
+        this.putServiceDefinition(name, serviceDefinition, override);
     }
 
     public <S extends Service<C>, C extends ServiceConfiguration> void
@@ -149,15 +484,10 @@ public class ServiceManagerStrategyImpl implements ServiceManagerStrategy
         Objects.requireNonNull(serviceLifecycleController, "serviceLifecycleController cannot be null");
         Objects.requireNonNull(serviceConfiguration, "serviceConfiguration cannot be null");
 
-        if (this.SERVICE_DEFINITIONS.containsKey(name))
-        {
-            this.handleServiceOverride(name, override);
-        }
-
         ServiceDefinition<S, C> serviceDefinition =
             new ServiceDefinition<S, C>(serviceLifecycleController, serviceConfiguration);
 
-        this.SERVICE_DEFINITIONS.put(name, serviceDefinition);
+        this.putServiceDefinition(name, serviceDefinition, override);
     }
 
     public void registerServiceByClass(String name, Class<? extends Service> serviceClass,
@@ -252,101 +582,995 @@ public class ServiceManagerStrategyImpl implements ServiceManagerStrategy
                                     serviceConfiguration, override);
     }
 
-    private void handleServiceOverride(String name, boolean override)
+    /**
+     * Set the metrics that record lookups and lifecycle timings of the services of this strategy.  Services that have
+     * already been started record to the new metrics from then on
+     *
+     * @param serviceMetrics the metrics to set.  Use ServiceMetrics.NONE to stop recording
+     */
+    public void setServiceMetrics(ServiceMetrics serviceMetrics)
+    {
+        Objects.requireNonNull(serviceMetrics, "serviceMetrics cannot be null");
+
+        this.serviceMetrics = serviceMetrics;
+        for (ServiceKey<?> nextServiceKey : SERVICE_KEYS.values())
+        {
+            ServiceDefinition<?, ?> nextServiceDefinition = nextServiceKey.serviceDefinition;
+            if ((nextServiceDefinition != null) && (nextServiceDefinition.isActive()))
+            {
+                nextServiceDefinition.getServiceLifecycleController().setServiceMetricsRecorder(
+                    nextServiceKey.getMetricsRecorder(serviceMetrics));
+            }
+        }
+    }
+
+    /**
+     * Retrieve the metrics that record lookups and lifecycle timings of the services of this strategy
+     *
+     * @return the service metrics.  ServiceMetrics.NONE unless metrics have been set
+     */
+    public ServiceMetrics getServiceMetrics()
+    {
+        return this.serviceMetrics;
+    }
+
+    /**
+     * Freeze the registry once all services have been registered.  Lookups by name are then served from an immutable
+     * table indexed by a minimal perfect hash of the names of the defined services.  The table is shared between
+     * threads without synchronization.  Until {@link #unfreeze()} is called, registering, overriding or replacing
+     * services and declaring dependencies fail with an IllegalStateException.  Lookups through keys, and the lifecycle
+     * of the services, are unaffected.  Shutting down does not unfreeze the registry.  Freezing a frozen registry has
+     * no effect
+     */
+    public void freeze()
+    {
+        // Holding replaceLock keeps the services from being swapped while the table is built
+        synchronized (this.replaceLock)
+        {
+            synchronized (this.registrationLock)
+            {
+                if (this.frozenServiceKeys == null)
+                {
+                    // Keys whose replaced definitions are still draining are kept, so that releases reach them
+                    List<ServiceKey<?>> frozenKeys = new ArrayList<ServiceKey<?>>();
+                    for (ServiceKey<?> nextServiceKey : SERVICE_KEYS.values())
+                    {
+                        if ((nextServiceKey.isServiceDefined()) || (!nextServiceKey.drainingDefinitions.isEmpty()))
+                        {
+                            frozenKeys.add(nextServiceKey);
+                        }
+                    }
+
+                    this.frozenServiceKeys = FrozenServiceKeys.build(frozenKeys);
+                }
+            }
+        }
+    }
+
+    /**
+     * Allow services to be registered again after {@link #freeze()}.  Lookups by name return to the concurrent registry
+     */
+    public void unfreeze()
+    {
+        synchronized (this.registrationLock)
+        {
+            this.frozenServiceKeys = null;
+        }
+    }
+
+    /**
+     * Determine if the registry is frozen
+     *
+     * @return true if {@link #freeze()} was called and {@link #unfreeze()} was not called since
+     */
+    public boolean isFrozen()
+    {
+        return (this.frozenServiceKeys != null);
+    }
+
+    /**
+     * Declare the services a service depends on.  When services are started with {@link #startAll()}, a service is
+     * started only after all of its dependencies have started.  Replaces any dependencies previously declared for the
+     * service
+     *
+     * @param name the name of the service
+     * @param dependencyNames the names of the services it depends on
+     */
+    public void registerServiceDependencies(String name, String... dependencyNames)
     {
         Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(dependencyNames, "dependencyNames cannot be null");
+
+        List<String> dependencies = List.of(dependencyNames);
+        if (dependencies.contains(name))
+        {
+            throw new IllegalArgumentException("Service with name, " + name + ", cannot depend on itself");
+        }
 
-        if (override)
+        synchronized (this.registrationLock)
         {
-            // This is an override.  Remove defintions.  Shutdown lifecycle controller
-            this.SERVICE_DEFINITIONS.remove(name);
-            if (this.CONTROLLERS_FOR_ACTIVE_SERVICES.containsKey(name))
+            this.checkNotFrozen(name);
+            SERVICE_DEPENDENCIES.put(name, dependencies);
+        }
+    }
+
+    /**
+     * Start all registered services eagerly, in parallel on virtual threads.  See {@link #startAll(Executor)}
+     *
+     * @return the start latency of each service and the failure of each service that did not start
+     * @throws InvalidServiceDefinitionException if the declared dependencies are circular or refer to a service that is
+     *     not registered
+     */
+    public ServiceLifecycleReport startAll() throws InvalidServiceDefinitionException
+    {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            return this.startAll(executor);
+        }
+    }
+
+    /**
+     * Start all registered services eagerly, in parallel on the specified executor.  Each service is activated and
+     * warmed up by its lifecycle controller once all of the services it depends on have started, so the total start
+     * time approaches the length of the longest dependency chain.  A service whose dependency fails to start is not
+     * started.  This method returns once every service has either started or failed
+     *
+     * @param executor runs the start of each service
+     * @return the start latency of each service and the failure of each service that did not start
+     * @throws InvalidServiceDefinitionException if the declared dependencies are circular or refer to a service that is
+     *     not registered
+     */
+    public ServiceLifecycleReport startAll(Executor executor) throws InvalidServiceDefinitionException
+    {
+        Objects.requireNonNull(executor, "executor cannot be null");
+
+        long startTime = System.nanoTime();
+        List<String> startOrder = this.resolveDependencyOrder(this.getDefinedServiceNames(), true);
+
+        Map<String, Duration> serviceDurations = new ConcurrentHashMap<String, Duration>();
+        Map<String, Throwable> serviceFailures = new ConcurrentHashMap<String, Throwable>();
+        Map<String, CompletableFuture<Void>> startFutures = new HashMap<String, CompletableFuture<Void>>();
+        for (String nextName : startOrder)
+        {
+            // Dependencies on services of an ancestor are started by the ancestor and are not waited for
+            List<CompletableFuture<Void>> dependencyFutureList = new ArrayList<CompletableFuture<Void>>();
+            for (String nextDependencyName : SERVICE_DEPENDENCIES.getOrDefault(nextName, Collections.emptyList()))
             {
-                ServiceLifecycleController<?, ?> controllerToRemove = this.CONTROLLERS_FOR_ACTIVE_SERVICES.remove(name);
-                controllerToRemove.shutdown();
+                CompletableFuture<Void> dependencyFuture = startFutures.get(nextDependencyName);
+                if (dependencyFuture != null)
+                {
+                    dependencyFutureList.add(dependencyFuture);
+                }
             }
+            CompletableFuture<?>[] dependencyFutures =
+                dependencyFutureList.toArray(new CompletableFuture<?>[dependencyFutureList.size()]);
+
+            CompletableFuture<Void> startFuture =
+                CompletableFuture.allOf(dependencyFutures)
+                    .handle((ignored, dependencyFailure) -> dependencyFailure)
+                    .thenAcceptAsync(dependencyFailure -> {
+                        if (dependencyFailure != null)
+                        {
+                            throw new CompletionException(new ServiceException(
+                                "Service with name, " + nextName + ", was not started because a dependency failed"));
+                        }
+                        serviceDurations.put(nextName, this.startService(nextName));
+                    }, executor)
+                    .whenComplete((ignored, failure) -> {
+                        if (failure != null)
+                        {
+                            Throwable cause = (failure instanceof CompletionException) ? failure.getCause() : failure;
+                            serviceFailures.put(nextName, cause);
+                            LOG.error("Failed to start service with name, " + nextName, cause);
+                        }
+                    });
+            startFutures.put(nextName, startFuture);
         }
-        else
+
+        CompletableFuture.allOf(startFutures.values().toArray(new CompletableFuture<?>[startFutures.size()]))
+            .handle((ignored, failure) -> null)
+            .join();
+
+        return new ServiceLifecycleReport(serviceDurations, serviceFailures,
+                                          Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Retrieve the definition that lookups through a key are currently served from, in this strategy or in an
+     * ancestor.  Returns null if the service is not defined, or is served by an ancestor that is not a
+     * ServiceManagerStrategyImpl
+     */
+    ServiceDefinition<?, ?> resolveServiceDefinition(ServiceKey<?> serviceKey)
+    {
+        ServiceDefinition<?, ?> serviceDefinition = serviceKey.serviceDefinition;
+        if ((serviceDefinition == null) && (this.parentStrategy != null))
         {
-            throw new IllegalArgumentException("Service with name, " + name +
-                                               ", is already defined.  Specify override=true if it should be replaced");
+            ServiceKey<?> parentServiceKey = this.resolveParentService(serviceKey).serviceKey;
+            if (parentServiceKey != null)
+            {
+                serviceDefinition = parentServiceKey.serviceDefinition;
+            }
         }
+
+        return serviceDefinition;
     }
 
-    public void shutdown()
+    // Resolve a name through the frozen table if the registry is frozen.  Either way, the key may not define a service
+    private ServiceKey<?> findServiceKey(String name)
+    {
+        FrozenServiceKeys frozenKeys = this.frozenServiceKeys;
+        return (frozenKeys != null) ? frozenKeys.get(name) : SERVICE_KEYS.get(name);
+    }
+
+    private void checkNotFrozen(String name)
+    {
+        if (this.frozenServiceKeys != null)
+        {
+            throw new IllegalStateException("Service with name, " + name +
+                                            ", cannot be registered.  The registry is frozen");
+        }
+    }
+
+    // The empty configuration stands for no instance level configuration, which is represented by null
+    private static ServiceConfiguration toInstanceConfiguration(ServiceConfiguration serviceConfiguration)
+    {
+        return (serviceConfiguration == ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION) ? null
+                                                                                             : serviceConfiguration;
+    }
+
+    private <S extends Service> S lookupService(String name, ServiceConfiguration instanceConfiguration)
+        throws ServiceException
     {
-        // FIX ME - What about inactive (or stopped) services
-        Iterator<Entry<String, ServiceLifecycleController<?, ?>>> serviceLiasonIterator =
-            this.CONTROLLERS_FOR_ACTIVE_SERVICES.entrySet().iterator();
-        while (serviceLiasonIterator.hasNext())
+        ServiceKey<S> serviceKey = (ServiceKey<S>)this.findServiceKey(name);
+        if ((serviceKey == null) && (this.parentStrategy != null))
+        {
+            ServiceKey<S> parentServiceKey = (ServiceKey<S>)this.resolveParentServiceKey(name);
+            if (parentServiceKey != null)
+            {
+                return parentServiceKey.getStrategy().lookupService(parentServiceKey, instanceConfiguration);
+            }
+
+            ServiceManagerStrategy delegateStrategy = this.findDelegateStrategy();
+            if (delegateStrategy != null)
+            {
+                return (instanceConfiguration == null)
+                           ? (S)delegateStrategy.getService(name)
+                           : (S)delegateStrategy.getService(name, instanceConfiguration);
+            }
+        }
+
+        if (serviceKey == null)
         {
-            Entry<String, ServiceLifecycleController<?, ?>> nextServiceControllerEntry = serviceLiasonIterator.next();
-            ServiceLifecycleController<?, ?> nextServiceController = nextServiceControllerEntry.getValue();
+            this.recordUndefinedLookupMiss(name);
+            throw new ServiceNotAvailableException(name);
+        }
+
+        return this.lookupService(serviceKey, instanceConfiguration);
+    }
+
+    private <S extends Service> S lookupService(ServiceKey<S> serviceKey, ServiceConfiguration instanceConfiguration)
+        throws ServiceException
+    {
+        if ((serviceKey.serviceDefinition == null) && (this.parentStrategy != null))
+        {
+            ServiceKey.ParentResolution parentResolution = this.resolveParentService(serviceKey);
+            if (parentResolution.serviceKey != null)
+            {
+                ServiceKey<S> parentServiceKey = (ServiceKey<S>)parentResolution.serviceKey;
+                return parentServiceKey.getStrategy().lookupService(parentServiceKey, instanceConfiguration);
+            }
+            if (parentResolution.delegateStrategy != null)
+            {
+                return (instanceConfiguration == null)
+                           ? (S)parentResolution.delegateStrategy.getService(serviceKey.getName())
+                           : (S)parentResolution.delegateStrategy.getService(serviceKey.getName(),
+                                                                             instanceConfiguration);
+            }
+        }
+
+        ServiceMetricsRecorder metricsRecorder = serviceKey.getMetricsRecorder(this.serviceMetrics);
+        ServiceDefinition<?, ?> serviceDefinition = serviceKey.serviceDefinition;
+        while (serviceDefinition != null)
+        {
+            S service;
             try
             {
-                nextServiceController.shutdown();
+                service = (S)serviceDefinition.getService(serviceKey.getName(), metricsRecorder, instanceConfiguration);
             }
-            catch (Throwable throwable)
+            catch (IllegalStateException exception)
             {
-                LOG.error("Failed to stop service with name, " + nextServiceControllerEntry.getKey(), throwable);
+                // A replaced definition may have been drained and shut down since it was read.  Retry with the
+                // replacement definition
+                if (serviceDefinition.isRetired() && (serviceKey.serviceDefinition != serviceDefinition))
+                {
+                    serviceDefinition = serviceKey.serviceDefinition;
+                    continue;
+                }
+                throw exception;
             }
+
+            // An inactive definition was overridden before it was activated.  Retry with the replacement definition
+            if ((service != null) || serviceDefinition.isActive())
+            {
+                metricsRecorder.recordLookup();
+                return service;
+            }
+
+            serviceDefinition = serviceKey.serviceDefinition;
         }
 
-        CONTROLLERS_FOR_ACTIVE_SERVICES.clear();
-        SERVICE_DEFINITIONS.clear();
+        metricsRecorder.recordLookupMiss();
+        emitLookupMissEvent(serviceKey.getName());
+        throw new ServiceNotAvailableException(serviceKey.getName());
     }
 
-    private class ServiceDefinition<S extends Service<C>, C extends ServiceConfiguration>
+    private <S extends Service> CompletableFuture<S> lookupServiceAsync(ServiceKey<S> serviceKey,
+                                                                        ServiceConfiguration instanceConfiguration)
     {
-        private final ServiceInstanceProvider<S> serviceInstanceProvider;
-        private final C serviceConfiguration;
-        private final ServiceLifecycleController<S, C> serviceLifecycleController;
+        ServiceMetricsRecorder metricsRecorder = serviceKey.getMetricsRecorder(this.serviceMetrics);
+        ServiceDefinition<?, ?> serviceDefinition = serviceKey.serviceDefinition;
+        if ((serviceDefinition == null) && (this.parentStrategy != null))
+        {
+            ServiceKey.ParentResolution parentResolution = this.resolveParentService(serviceKey);
+            if (parentResolution.serviceKey != null)
+            {
+                ServiceKey<S> parentServiceKey = (ServiceKey<S>)parentResolution.serviceKey;
+                return parentServiceKey.getStrategy().lookupServiceAsync(parentServiceKey, instanceConfiguration);
+            }
+            if (parentResolution.delegateStrategy != null)
+            {
+                return (instanceConfiguration == null)
+                           ? (CompletableFuture<S>)parentResolution.delegateStrategy.getServiceAsync(
+                                 serviceKey.getName())
+                           : (CompletableFuture<S>)parentResolution.delegateStrategy.getServiceAsync(
+                                 serviceKey.getName(), instanceConfiguration);
+            }
+        }
+
+        if (serviceDefinition == null)
+        {
+            metricsRecorder.recordLookupMiss();
+            emitLookupMissEvent(serviceKey.getName());
+            return CompletableFuture.failedFuture(new ServiceNotAvailableException(serviceKey.getName()));
+        }
+
+        CompletableFuture<Boolean> warmupFuture =
+            serviceDefinition.warmupAsync(serviceKey.getName(), ASYNC_EXECUTOR, metricsRecorder);
+        return warmupFuture.thenCompose(warm -> {
+            if (!warm)
+            {
+                // The definition was overridden before it was activated.  Retry with the replacement definition
+                return this.lookupServiceAsync(serviceKey, instanceConfiguration);
+            }
 
-        private ServiceDefinition(ServiceLifecycleController<S, C> serviceLifecycleController, C config)
+            try
+            {
+                S service =
+                    (S)serviceDefinition.getService(serviceKey.getName(), metricsRecorder, instanceConfiguration);
+                if ((service == null) && !serviceDefinition.isActive())
+                {
+                    return this.lookupServiceAsync(serviceKey, instanceConfiguration);
+                }
+                metricsRecorder.recordLookup();
+                return CompletableFuture.completedFuture(service);
+            }
+            catch (ServiceException exception)
+            {
+                return CompletableFuture.failedFuture(exception);
+            }
+        });
+    }
+
+    private Duration startService(String name)
+    {
+        long startTime = System.nanoTime();
+        try
+        {
+            ServiceDefinition<?, ?> serviceDefinition = this.activateServiceDefinition(SERVICE_KEYS.get(name));
+            serviceDefinition.getServiceLifecycleController().warmup();
+        }
+        catch (ServiceException exception)
+        {
+            throw new CompletionException(exception);
+        }
+
+        return Duration.ofNanos(System.nanoTime() - startTime);
+    }
+
+    private ServiceDefinition<?, ?> activateServiceDefinition(ServiceKey<?> serviceKey) throws ServiceException
+    {
+        ServiceDefinition<?, ?> serviceDefinition = serviceKey.serviceDefinition;
+        while ((serviceDefinition != null) && (!serviceDefinition.isActive()))
+        {
+            // Create and start it.  If the definition was overridden while we were waiting to activate it, retry
+            // with the replacement definition
+            if (serviceDefinition.activate(serviceKey.getName(), serviceKey.getMetricsRecorder(this.serviceMetrics)))
+            {
+                break;
+            }
+
+            serviceDefinition = serviceKey.serviceDefinition;
+        }
+
+        if (serviceDefinition == null)
+        {
+            serviceKey.getMetricsRecorder(this.serviceMetrics).recordLookupMiss();
+            emitLookupMissEvent(serviceKey.getName());
+            throw new ServiceNotAvailableException(serviceKey.getName());
+        }
+
+        return serviceDefinition;
+    }
+
+    /**
+     * Order services so that every service follows the services it depends on
+     *
+     * @param serviceNames the services to order
+     * @param requireDefined true if a dependency on a service outside of serviceNames is an error, false if it should
+     *     be ignored
+     */
+    private List<String> resolveDependencyOrder(Set<String> serviceNames, boolean requireDefined)
+        throws InvalidServiceDefinitionException
+    {
+        List<String> dependencyOrder = new ArrayList<String>(serviceNames.size());
+        Set<String> visitedNames = new HashSet<String>();
+        for (String nextName : serviceNames)
         {
-            Objects.requireNonNull(serviceLifecycleController, "serviceLifecycleController cannot be null");
-            Objects.requireNonNull(config, "config cannot be null");
+            this.visitDependencies(nextName, serviceNames, requireDefined, visitedNames, new LinkedHashSet<String>(),
+                                   dependencyOrder);
+        }
+
+        return dependencyOrder;
+    }
 
-            this.serviceLifecycleController = serviceLifecycleController;
-            this.serviceConfiguration = config;
-            this.serviceInstanceProvider = null;
+    private Set<String> getDefinedServiceNames()
+    {
+        Set<String> definedNames = new HashSet<String>();
+        for (ServiceKey<?> nextServiceKey : SERVICE_KEYS.values())
+        {
+            if (nextServiceKey.isServiceDefined())
+            {
+                definedNames.add(nextServiceKey.getName());
+            }
         }
 
-        private ServiceDefinition(ServiceLifecycleController<S, C> serviceLifecycleController,
-                                  ServiceInstanceProvider<S> serviceInstanceProvider, C config)
+        return definedNames;
+    }
+
+    private void visitDependencies(String name, Set<String> definedNames, boolean requireDefined,
+                                   Set<String> visitedNames, LinkedHashSet<String> dependencyPath,
+                                   List<String> dependencyOrder)
+        throws InvalidServiceDefinitionException
+    {
+        if (visitedNames.contains(name))
         {
-            Objects.requireNonNull(serviceLifecycleController, "serviceLifecycleController cannot be null");
-            Objects.requireNonNull(serviceInstanceProvider, "serviceInstanceProvider cannot be null");
-            Objects.requireNonNull(config, "config cannot be null");
+            return;
+        }
 
-            this.serviceLifecycleController = serviceLifecycleController;
-            this.serviceInstanceProvider = serviceInstanceProvider;
-            this.serviceConfiguration = config;
+        if (!dependencyPath.add(name))
+        {
+            List<String> cycle = new ArrayList<String>(dependencyPath);
+            cycle = cycle.subList(cycle.indexOf(name), cycle.size());
+            throw new InvalidServiceDefinitionException("Circular service dependency, " + String.join(" -> ", cycle) +
+                                                        " -> " + name);
         }
 
-        private boolean hasServiceInstanceProvider()
+        for (String nextDependencyName : SERVICE_DEPENDENCIES.getOrDefault(name, Collections.emptyList()))
         {
-            return (this.serviceInstanceProvider != null);
+            if (!definedNames.contains(nextDependencyName))
+            {
+                // A dependency on a service of an ancestor is satisfied by the ancestor, which starts it separately
+                if (requireDefined &&
+                    ((this.parentStrategy == null) || !this.parentStrategy.isServiceDefined(nextDependencyName)))
+                {
+                    throw new InvalidServiceDefinitionException(
+                        "Service with name, " + name + ", depends on undefined service, " + nextDependencyName);
+                }
+                continue;
+            }
+            this.visitDependencies(nextDependencyName, definedNames, requireDefined, visitedNames, dependencyPath,
+                                   dependencyOrder);
         }
 
-        private ServiceInstanceProvider<S> getServiceInstanceProvider()
+        dependencyPath.remove(name);
+        visitedNames.add(name);
+        dependencyOrder.add(name);
+    }
+
+    private void putServiceDefinition(String name, ServiceDefinition<?, ?> serviceDefinition, boolean override)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(serviceDefinition, "serviceDefinition cannot be null");
+
+        // Replace the definition atomically so that concurrent lookups see either the old or the new definition
+        ServiceKey<?> serviceKey = this.getServiceKey(name);
+        ServiceDefinition<?, ?> overriddenDefinition;
+        synchronized (this.registrationLock)
         {
-            if (this.serviceInstanceProvider == null)
+            this.checkNotFrozen(name);
+            synchronized (serviceKey)
             {
-                throw new IllegalStateException("serviceInstanceProvider called when one doesn't exist");
+                overriddenDefinition = serviceKey.serviceDefinition;
+                if ((overriddenDefinition != null) && (!override))
+                {
+                    throw new IllegalArgumentException(
+                        "Service with name, " + name + ", is already defined.  Specify override=true if it should be replaced");
+                }
+
+                serviceKey.serviceDefinition = serviceDefinition;
             }
+        }
 
-            return this.serviceInstanceProvider;
+        if (overriddenDefinition == null)
+        {
+            this.definitionEpoch.incrementAndGet();
         }
+        emitRegistrationEvents(name, serviceDefinition, overriddenDefinition);
 
-        private C getServiceConfiguration()
+        // Unlike replaceServices, an override shuts the overridden controller down right away.  See the class comment.
+        // A controller may be registered again under the same name, in which case it is still in use
+        if ((overriddenDefinition != null) && (overriddenDefinition.retire()) &&
+            (overriddenDefinition.getServiceLifecycleController() != serviceDefinition.getServiceLifecycleController()))
         {
-            return this.serviceConfiguration;
+            overriddenDefinition.getServiceLifecycleController().shutdown();
         }
+    }
 
-        private ServiceLifecycleController<S, C> getServiceLifecycleController()
+    /**
+     * Replace the services of this strategy with the services registered with another strategy, for example one
+     * compiled from an updated descriptor.  Afterwards, this strategy defines exactly the services of the replacement
+     * strategy, with their dependencies, and the replacement strategy defines none.
+     *
+     * The replacement services are first started with {@link #startAll()} on the calling thread, while this strategy
+     * keeps serving the current services.  If any of them fails to start, they are all shut down and nothing is
+     * replaced.  Otherwise each service is switched to its replacement atomically, so a lookup returns either the
+     * current or the replacement service and never blocks or misses.  Keys obtained from {@link #getServiceKey(String)}
+     * see the replacement.
+     *
+     * A replaced service is shut down once the callers using an instance obtained before the switch have finished with
+     * it, that is as soon as its controller reports with {@link ServiceLifecycleController#hasOutstandingServices()}
+     * that all of its instances have been released, and at the latest once drainTimeout has elapsed.  Controllers that
+     * can not tell, such as the singleton controller, are shut down after drainTimeout.  Until then, instances
+     * released with {@link #releaseService(String, Service)} are returned to the controller that created them.  Calls
+     * are serialized, and registrations wait while the services are switched
+     *
+     * @param replacementStrategy the strategy holding the replacement services.  Its services should not have been
+     *     retrieved
+     * @param drainTimeout the time to wait before shutting down the replaced services
+     * @return the start report of the replacement services.  The services were replaced if it is successful
+     * @throws InvalidServiceDefinitionException if the dependencies of the replacement services are circular or refer
+     *     to a service that is not registered
+     */
+    public ServiceLifecycleReport replaceServices(ServiceManagerStrategyImpl replacementStrategy, Duration drainTimeout)
+        throws InvalidServiceDefinitionException
+    {
+        Objects.requireNonNull(replacementStrategy, "replacementStrategy cannot be null");
+        Objects.requireNonNull(drainTimeout, "drainTimeout cannot be null");
+        if (replacementStrategy == this)
+        {
+            throw new IllegalArgumentException("A strategy cannot replace its own services");
+        }
+
+        synchronized (this.replaceLock)
+        {
+            if (this.frozenServiceKeys != null)
+            {
+                throw new IllegalStateException("Services cannot be replaced.  The registry is frozen");
+            }
+
+            replacementStrategy.setServiceMetrics(this.serviceMetrics);
+            ServiceLifecycleReport startReport = replacementStrategy.startAll();
+            if (!startReport.isSuccessful())
+            {
+                LOG.error("Services were not replaced.  Failed to start replacement services " +
+                          startReport.getServiceFailures().keySet());
+                replacementStrategy.shutdown();
+                return startReport;
+            }
+
+            // Registrations made during the swap would otherwise survive it, or mix old and new dependencies
+            Map<ServiceKey<?>, ServiceDefinition<?, ?>> drainingDefinitions;
+            synchronized (this.registrationLock)
+            {
+                // Move the definitions out of the replacement strategy, so that shutting it down does not affect them
+                Map<String, ServiceDefinition<?, ?>> replacementDefinitions =
+                    new HashMap<String, ServiceDefinition<?, ?>>();
+                for (ServiceKey<?> nextReplacementKey : replacementStrategy.SERVICE_KEYS.values())
+                {
+                    synchronized (nextReplacementKey)
+                    {
+                        if (nextReplacementKey.serviceDefinition != null)
+                        {
+                            replacementDefinitions.put(nextReplacementKey.getName(),
+                                                       nextReplacementKey.serviceDefinition);
+                            nextReplacementKey.serviceDefinition = null;
+                        }
+                    }
+                }
+
+                SERVICE_DEPENDENCIES.keySet().retainAll(replacementStrategy.SERVICE_DEPENDENCIES.keySet());
+                SERVICE_DEPENDENCIES.putAll(replacementStrategy.SERVICE_DEPENDENCIES);
+
+                for (String nextName : replacementDefinitions.keySet())
+                {
+                    this.getServiceKey(nextName);
+                }
+
+                drainingDefinitions = new HashMap<ServiceKey<?>, ServiceDefinition<?, ?>>();
+                for (ServiceKey<?> nextServiceKey : SERVICE_KEYS.values())
+                {
+                    ServiceDefinition<?, ?> replacementDefinition =
+                        replacementDefinitions.get(nextServiceKey.getName());
+                    ServiceDefinition<?, ?> replacedDefinition;
+                    synchronized (nextServiceKey)
+                    {
+                        replacedDefinition = nextServiceKey.serviceDefinition;
+                        if (replacedDefinition != null)
+                        {
+                            List<ServiceDefinition<?, ?>> nextDrainingDefinitions =
+                                new ArrayList<ServiceDefinition<?, ?>>(nextServiceKey.drainingDefinitions);
+                            nextDrainingDefinitions.add(replacedDefinition);
+                            nextServiceKey.drainingDefinitions = List.copyOf(nextDrainingDefinitions);
+                        }
+                        nextServiceKey.serviceDefinition = replacementDefinition;
+                    }
+
+                    if (replacedDefinition != null)
+                    {
+                        drainingDefinitions.put(nextServiceKey, replacedDefinition);
+                    }
+                    if (replacementDefinition != null)
+                    {
+                        emitRegistrationEvents(nextServiceKey.getName(), replacementDefinition, replacedDefinition);
+                    }
+                }
+
+                this.definitionEpoch.incrementAndGet();
+            }
+
+            if (!drainingDefinitions.isEmpty())
+            {
+                // Replaced services whose instances are all released are shut down now, and the others as soon as
+                // their last instance is released, but no later than drainTimeout
+                for (Map.Entry<ServiceKey<?>, ServiceDefinition<?, ?>> nextDrainingDefinition :
+                     drainingDefinitions.entrySet())
+                {
+                    this.retireDrainedDefinition(nextDrainingDefinition.getKey(), nextDrainingDefinition.getValue());
+                }
+
+                Executor drainExecutor =
+                    CompletableFuture.delayedExecutor(drainTimeout.toNanos(), TimeUnit.NANOSECONDS, ASYNC_EXECUTOR);
+                CompletableFuture.runAsync(() -> this.retireDrainingDefinitions(drainingDefinitions), drainExecutor);
+            }
+
+            return startReport;
+        }
+    }
+
+    /**
+     * Shutdown all services, allowing each service DEFAULT_SERVICE_SHUTDOWN_TIMEOUT and all services
+     * DEFAULT_SHUTDOWN_TIMEOUT.  See {@link #shutdown(Duration, Duration)}
+     */
+    @Override
+    public void shutdown()
+    {
+        ServiceLifecycleReport shutdownReport =
+            this.shutdown(DEFAULT_SERVICE_SHUTDOWN_TIMEOUT, DEFAULT_SHUTDOWN_TIMEOUT);
+        if (!shutdownReport.isSuccessful())
+        {
+            LOG.warn("Shutdown did not complete for services " + shutdownReport.getServiceFailures().keySet() +
+                     ".  Timed out services: " + shutdownReport.getTimedOutServiceNames());
+        }
+    }
+
+    /**
+     * Shutdown all services.  Services are removed immediately, so that no new lookups succeed, and their lifecycle
+     * controllers are then shut down in parallel.  A service is shut down only once all of the services that depend
+     * on it have been shut down, or have exceeded their timeout.  Services that were defined but never started are
+     * retired without being shut down, unless they were registered by controller only, as the client may have
+     * initialized such controllers.
+     *
+     * Shutdown runs on virtual threads, so a service that does not stop does not prevent the JVM from exiting.  This
+     * method returns once all services have shut down or once the total timeout has elapsed, whichever is first
+     *
+     * @param serviceTimeout the maximum time to wait for a single service to shut down
+     * @param totalTimeout the maximum time to wait for all services to shut down
+     * @return the shutdown time of each service and the failure of each service that did not shut down, including a
+     *     TimeoutException for each service that exceeded its timeout
+     */
+    public ServiceLifecycleReport shutdown(Duration serviceTimeout, Duration totalTimeout)
+    {
+        Objects.requireNonNull(serviceTimeout, "serviceTimeout cannot be null");
+        Objects.requireNonNull(totalTimeout, "totalTimeout cannot be null");
+
+        long startTime = System.nanoTime();
+
+        // Keys are kept so that handles held by clients remain valid if the service is registered again.  Replaced
+        // definitions that are still draining are shut down along with the current definition of their name
+        Map<String, List<ServiceDefinition<?, ?>>> serviceDefinitions =
+            new HashMap<String, List<ServiceDefinition<?, ?>>>();
+        for (ServiceKey<?> nextServiceKey : SERVICE_KEYS.values())
+        {
+            List<ServiceDefinition<?, ?>> nextServiceDefinitions;
+            synchronized (nextServiceKey)
+            {
+                nextServiceDefinitions = new ArrayList<ServiceDefinition<?, ?>>(nextServiceKey.drainingDefinitions);
+                if (nextServiceKey.serviceDefinition != null)
+                {
+                    nextServiceDefinitions.add(0, nextServiceKey.serviceDefinition);
+                }
+                nextServiceKey.serviceDefinition = null;
+                nextServiceKey.drainingDefinitions = List.of();
+            }
+
+            if (!nextServiceDefinitions.isEmpty())
+            {
+                serviceDefinitions.put(nextServiceKey.getName(), nextServiceDefinitions);
+            }
+        }
+        this.definitionEpoch.incrementAndGet();
+
+        // Services are shut down in reverse dependency order.  Map each service to the services that depend on it
+        List<String> shutdownOrder;
+        Map<String, List<String>> serviceDependents = new HashMap<String, List<String>>();
+        try
+        {
+            shutdownOrder = this.resolveDependencyOrder(serviceDefinitions.keySet(), false);
+            Collections.reverse(shutdownOrder);
+            for (String nextName : shutdownOrder)
+            {
+                for (String nextDependencyName : SERVICE_DEPENDENCIES.getOrDefault(nextName, Collections.emptyList()))
+                {
+                    serviceDependents.computeIfAbsent(nextDependencyName, name -> new ArrayList<String>())
+                        .add(nextName);
+                }
+            }
+        }
+        catch (InvalidServiceDefinitionException exception)
+        {
+            LOG.warn("Service dependencies are invalid.  Shutting down all services in parallel", exception);
+            shutdownOrder = new ArrayList<String>(serviceDefinitions.keySet());
+            serviceDependents.clear();
+        }
+
+        Map<String, Duration> serviceDurations = new ConcurrentHashMap<String, Duration>();
+        Map<String, Throwable> serviceFailures = new ConcurrentHashMap<String, Throwable>();
+        Map<String, CompletableFuture<Void>> shutdownFutures = new HashMap<String, CompletableFuture<Void>>();
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("service-shutdown-", 0)
+                                                                          .factory());
+        try
+        {
+            for (String nextName : shutdownOrder)
+            {
+                List<ServiceDefinition<?, ?>> nextServiceDefinitions = serviceDefinitions.get(nextName);
+                List<String> dependentNames = serviceDependents.getOrDefault(nextName, Collections.emptyList());
+                CompletableFuture<?>[] dependentFutures = new CompletableFuture<?>[dependentNames.size()];
+                for (int i = 0; i < dependentFutures.length; i++)
+                {
+                    dependentFutures[i] = shutdownFutures.get(dependentNames.get(i));
+                }
+
+                // The service timeout starts once the service begins to shut down, not while it waits for dependents
+                CompletableFuture<Void> shutdownFuture =
+                    CompletableFuture.allOf(dependentFutures)
+                        .handle((ignored, dependentFailure) -> null)
+                        .thenCompose(ignored -> {
+                            long serviceStartTime = System.nanoTime();
+                            return CompletableFuture
+                                .runAsync(() -> nextServiceDefinitions.forEach(this::retireServiceDefinition),
+                                          executor)
+                                .orTimeout(serviceTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                                .thenRun(() -> serviceDurations.put(
+                                             nextName, Duration.ofNanos(System.nanoTime() - serviceStartTime)));
+                        })
+                        .whenComplete((ignored, failure) -> {
+                            if (failure != null)
+                            {
+                                Throwable cause =
+                                    (failure instanceof CompletionException) ? failure.getCause() : failure;
+                                serviceFailures.put(nextName, cause);
+                                LOG.error("Failed to stop service with name, " + nextName, cause);
+                            }
+                        });
+                shutdownFutures.put(nextName, shutdownFuture);
+            }
+
+            CompletableFuture.allOf(shutdownFutures.values().toArray(new CompletableFuture<?>[shutdownFutures.size()]))
+                .handle((ignored, failure) -> null)
+                .get(totalTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException | InterruptedException | ExecutionException exception)
+        {
+            if (exception instanceof InterruptedException)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            for (Map.Entry<String, CompletableFuture<Void>> nextShutdownFuture : shutdownFutures.entrySet())
+            {
+                if (!nextShutdownFuture.getValue().isDone())
+                {
+                    serviceFailures.putIfAbsent(nextShutdownFuture.getKey(),
+                                                new TimeoutException("Shutdown exceeded the total timeout of " +
+                                                                     totalTimeout));
+                }
+            }
+        }
+        finally
+        {
+            // Interrupt services that are still stopping.  Services that have not begun to stop are abandoned
+            executor.shutdownNow();
+        }
+
+        return new ServiceLifecycleReport(serviceDurations, serviceFailures,
+                                          Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    // The event carries the name, but the metrics aggregate undefined names under a single recorder
+    private void recordUndefinedLookupMiss(String name)
+    {
+        this.serviceMetrics.getRecorder(UNDEFINED_SERVICE_METRICS_NAME).recordLookupMiss();
+        emitLookupMissEvent(name);
+    }
+
+    private static void emitLookupMissEvent(String name)
+    {
+        ServiceLookupMissEvent lookupMissEvent = new ServiceLookupMissEvent();
+        if (lookupMissEvent.isEnabled())
+        {
+            lookupMissEvent.serviceName = name;
+            lookupMissEvent.commit();
+        }
+    }
+
+    private static void emitRegistrationEvents(String name, ServiceDefinition<?, ?> serviceDefinition,
+                                               ServiceDefinition<?, ?> overriddenDefinition)
+    {
+        String controllerClass = serviceDefinition.getServiceLifecycleController().getClass().getName();
+
+        ServiceRegisteredEvent registeredEvent = new ServiceRegisteredEvent();
+        if (registeredEvent.isEnabled())
+        {
+            registeredEvent.serviceName = name;
+            registeredEvent.controllerClass = controllerClass;
+            registeredEvent.commit();
+        }
+
+        if (overriddenDefinition != null)
+        {
+            ServiceOverriddenEvent overriddenEvent = new ServiceOverriddenEvent();
+            if (overriddenEvent.isEnabled())
+            {
+                overriddenEvent.serviceName = name;
+                overriddenEvent.previousControllerClass =
+                    overriddenDefinition.getServiceLifecycleController().getClass().getName();
+                overriddenEvent.controllerClass = controllerClass;
+                overriddenEvent.commit();
+            }
+        }
+    }
+
+    // Retire a replaced definition once its controller reports that none of its instances are in use
+    private void retireDrainedDefinition(ServiceKey<?> serviceKey, ServiceDefinition<?, ?> drainingDefinition)
+    {
+        if (!drainingDefinition.getServiceLifecycleController().hasOutstandingServices())
+        {
+            this.retireDrainingDefinitions(Map.of(serviceKey, drainingDefinition));
+        }
+    }
+
+    private void retireDrainingDefinitions(Map<ServiceKey<?>, ServiceDefinition<?, ?>> drainingDefinitions)
+    {
+        for (Map.Entry<ServiceKey<?>, ServiceDefinition<?, ?>> nextDrainingDefinition : drainingDefinitions.entrySet())
+        {
+            ServiceKey<?> serviceKey = nextDrainingDefinition.getKey();
+            try
+            {
+                this.retireServiceDefinition(nextDrainingDefinition.getValue());
+            }
+            catch (RuntimeException exception)
+            {
+                LOG.error("Failed to stop replaced service with name, " + serviceKey.getName(), exception);
+            }
+            finally
+            {
+                synchronized (serviceKey)
+                {
+                    List<ServiceDefinition<?, ?>> remainingDefinitions =
+                        new ArrayList<ServiceDefinition<?, ?>>(serviceKey.drainingDefinitions);
+                    remainingDefinitions.remove(nextDrainingDefinition.getValue());
+                    serviceKey.drainingDefinitions = List.copyOf(remainingDefinitions);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the ancestor that defines a service this strategy does not, reusing the resolution cached in the key unless
+     * a service has since become defined or undefined in the hierarchy
+     */
+    private ServiceKey.ParentResolution resolveParentService(ServiceKey<?> serviceKey)
+    {
+        // Read the epoch before the ancestors, so that a change made during the walk invalidates the new resolution
+        long currentEpoch = this.definitionEpoch.get();
+        ServiceKey.ParentResolution parentResolution = serviceKey.parentResolution;
+        if ((parentResolution != null) && (parentResolution.definitionEpoch == currentEpoch))
+        {
+            return parentResolution;
+        }
+
+        ServiceKey<?> resolvedKey = this.findParentServiceKey(serviceKey.getName());
+        parentResolution = new ServiceKey.ParentResolution(
+            resolvedKey, (resolvedKey == null) ? this.findDelegateStrategy() : null, currentEpoch);
+        serviceKey.parentResolution = parentResolution;
+
+        return parentResolution;
+    }
+
+    /**
+     * Resolve a name that this strategy has no key for to the key a lookup is served from, or null if no ancestor
+     * implementation defines the service.  Unless the registry is frozen, a key is created in this strategy to cache
+     * the ancestor, as the number of such keys is bounded by the services the ancestors define.  Keys are never
+     * created for undefined names, so probing them does not grow the registry
+     */
+    private ServiceKey<?> resolveParentServiceKey(String name)
+    {
+        ServiceKey<?> parentServiceKey = this.findParentServiceKey(name);
+        if ((parentServiceKey != null) && (this.frozenServiceKeys == null))
+        {
+            return this.getServiceKey(name);
+        }
+
+        return parentServiceKey;
+    }
+
+    // Find the key of the nearest ancestor implementation that defines a service, without creating keys
+    private ServiceKey<?> findParentServiceKey(String name)
+    {
+        ServiceManagerStrategy ancestor = this.parentStrategy;
+        while (ancestor instanceof ServiceManagerStrategyImpl ancestorStrategy)
+        {
+            ServiceKey<?> ancestorKey = ancestorStrategy.findServiceKey(name);
+            if ((ancestorKey != null) && (ancestorKey.isServiceDefined()))
+            {
+                return ancestorKey;
+            }
+            ancestor = ancestorStrategy.parentStrategy;
+        }
+
+        return null;
+    }
+
+    // The first ancestor that is not a ServiceManagerStrategyImpl, or null
+    private ServiceManagerStrategy findDelegateStrategy()
+    {
+        ServiceManagerStrategy ancestor = this.parentStrategy;
+        while (ancestor instanceof ServiceManagerStrategyImpl ancestorStrategy)
+        {
+            ancestor = ancestorStrategy.parentStrategy;
+        }
+
+        return ancestor;
+    }
+
+    private static void releaseOwnedService(ServiceDefinition<?, ?> serviceDefinition, Service<?> service)
+    {
+        if ((serviceDefinition != null) && (serviceDefinition.isActive()))
+        {
+            ServiceLifecycleController serviceLifecycleController = serviceDefinition.getServiceLifecycleController();
+            if (serviceLifecycleController.ownsService(service))
+            {
+                serviceLifecycleController.releaseService(service);
+            }
+        }
+    }
+
+    private void retireServiceDefinition(ServiceDefinition<?, ?> serviceDefinition)
+    {
+        // The definition was removed.  Shutdown its lifecycle controller if it was activated
+        if (serviceDefinition.retire())
         {
-            return this.serviceLifecycleController;
+            serviceDefinition.getServiceLifecycleController().shutdown();
         }
     }
 }
@@ -0,0 +1,27 @@
+package com.sphyrna.servicemanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The lifecycle controller of a service was initialized on first use.  The duration is the time taken by init().
+ * Disabled by default
+ */
+@Name("com.sphyrna.servicemanager.ServiceInitialized")
+@Label("Service Initialized")
+@Category("Service Manager")
+@Description("The lifecycle controller of a service was initialized on first use.  The duration is the time taken " +
+             "by init()")
+@Enabled(false)
+public final class ServiceInitializedEvent extends Event
+{
+    @Label("Service Name")
+    public String serviceName;
+
+    @Label("Controller Class")
+    public String controllerClass;
+}
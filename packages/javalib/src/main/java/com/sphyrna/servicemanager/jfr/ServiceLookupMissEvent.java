@@ -0,0 +1,22 @@
+package com.sphyrna.servicemanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A service was looked up but is not defined.  Disabled by default
+ */
+@Name("com.sphyrna.servicemanager.ServiceLookupMiss")
+@Label("Service Lookup Miss")
+@Category("Service Manager")
+@Description("A service was looked up but is not defined")
+@Enabled(false)
+public final class ServiceLookupMissEvent extends Event
+{
+    @Label("Service Name")
+    public String serviceName;
+}
@@ -0,0 +1,28 @@
+package com.sphyrna.servicemanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A service definition replaced an existing definition.  Disabled by default
+ */
+@Name("com.sphyrna.servicemanager.ServiceOverridden")
+@Label("Service Overridden")
+@Category("Service Manager")
+@Description("A service definition replaced an existing definition")
+@Enabled(false)
+public final class ServiceOverriddenEvent extends Event
+{
+    @Label("Service Name")
+    public String serviceName;
+
+    @Label("Previous Controller Class")
+    public String previousControllerClass;
+
+    @Label("Controller Class")
+    public String controllerClass;
+}
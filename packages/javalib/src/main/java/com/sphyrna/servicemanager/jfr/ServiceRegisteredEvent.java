@@ -0,0 +1,25 @@
+package com.sphyrna.servicemanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A service definition was registered.  Disabled by default
+ */
+@Name("com.sphyrna.servicemanager.ServiceRegistered")
+@Label("Service Registered")
+@Category("Service Manager")
+@Description("A service definition was registered")
+@Enabled(false)
+public final class ServiceRegisteredEvent extends Event
+{
+    @Label("Service Name")
+    public String serviceName;
+
+    @Label("Controller Class")
+    public String controllerClass;
+}
@@ -0,0 +1,22 @@
+package com.sphyrna.servicemanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A service instance was stopped and destroyed.  The duration is the time taken to do so.  Disabled by default
+ */
+@Name("com.sphyrna.servicemanager.ServiceStopped")
+@Label("Service Stopped")
+@Category("Service Manager")
+@Description("A service instance was stopped and destroyed.  The duration is the time taken to do so")
+@Enabled(false)
+public final class ServiceStoppedEvent extends Event
+{
+    @Label("Service Class")
+    public String serviceClass;
+}
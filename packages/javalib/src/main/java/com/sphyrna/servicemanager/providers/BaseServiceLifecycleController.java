@@ -0,0 +1,136 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.ServiceLifecycleController;
+import com.sphyrna.servicemanager.ServiceLifecyclePhase;
+import com.sphyrna.servicemanager.ServiceMetricsRecorder;
+import java.util.Objects;
+
+/**
+ * Base implementation of a ServiceLifecycleController.  Holds the instance provider and configuration supplied to
+ * init() and implements the creation and destruction of service instances.  Extend to implement the policy that
+ * decides when instances are created and which instance is handed out
+ *
+ * The init, start, stop and destroy phases of each instance are timed and reported to the metrics recorder supplied by
+ * the strategy
+ */
+public abstract class BaseServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
+    implements ServiceLifecycleController<S, C>
+{
+    private volatile ServiceInstanceProvider<S> serviceInstanceProvider;
+    private volatile C serviceConfiguration;
+    private volatile ServiceMetricsRecorder metricsRecorder = ServiceMetricsRecorder.NONE;
+
+    protected BaseServiceLifecycleController() {}
+
+    /**
+     * Create a controller that is initialized as if init() had been called.  Subclasses use this in their initializing
+     * constructors rather than calling init(), which may be overridden
+     *
+     * @param instanceProvider creates the service instances
+     * @param configuration the configuration passed to each instance
+     */
+    protected BaseServiceLifecycleController(ServiceInstanceProvider<S> instanceProvider, C configuration)
+    {
+        this.serviceInstanceProvider = Objects.requireNonNull(instanceProvider, "instanceProvider cannot be null");
+        this.serviceConfiguration = Objects.requireNonNull(configuration, "configuration cannot be null");
+    }
+
+    @Override
+    public void setServiceMetricsRecorder(ServiceMetricsRecorder metricsRecorder)
+    {
+        this.metricsRecorder = Objects.requireNonNull(metricsRecorder, "metricsRecorder cannot be null");
+    }
+
+    @Override
+    public void init(ServiceInstanceProvider<S> instanceProvider, C configuration) throws ServiceException
+    {
+        this.serviceInstanceProvider = Objects.requireNonNull(instanceProvider, "instanceProvider cannot be null");
+        this.serviceConfiguration = Objects.requireNonNull(configuration, "configuration cannot be null");
+    }
+
+    /**
+     * Retrieve the configuration supplied to init()
+     *
+     * @return the service configuration or null if the controller has not been initialized or has been shutdown
+     */
+    protected C getServiceConfiguration()
+    {
+        return this.serviceConfiguration;
+    }
+
+    /**
+     * Create, initialize and start a new service instance
+     *
+     * @return the started service instance
+     * @throws ServiceException if the instance could not be created
+     * @throws IllegalStateException if the controller has not been initialized or has been shutdown
+     */
+    protected S createServiceInstance() throws ServiceException
+    {
+        return this.createServiceInstance(this.serviceConfiguration);
+    }
+
+    /**
+     * Create a new service instance, initialize it with the specified configuration and start it
+     *
+     * @param configuration the configuration supplied to the instance's init()
+     * @return the started service instance
+     * @throws ServiceException if the instance could not be created
+     * @throws IllegalStateException if the controller has not been initialized or has been shutdown
+     */
+    protected S createServiceInstance(C configuration) throws ServiceException
+    {
+        ServiceInstanceProvider<S> instanceProvider = this.serviceInstanceProvider;
+        if (instanceProvider == null)
+        {
+            throw new IllegalStateException("Unexpected state. ServiceInstanceProvider not set");
+        }
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+
+        ServiceMetricsRecorder recorder = this.metricsRecorder;
+        S instance = instanceProvider.createServiceInstance();
+
+        long phaseStartTime = System.nanoTime();
+        instance.init(configuration);
+        long phaseEndTime = System.nanoTime();
+        recorder.recordLifecycleDuration(ServiceLifecyclePhase.INIT, phaseEndTime - phaseStartTime);
+
+        instance.start();
+        recorder.recordLifecycleDuration(ServiceLifecyclePhase.START, System.nanoTime() - phaseEndTime);
+
+        return instance;
+    }
+
+    /**
+     * Stop and destroy a service instance created by this controller
+     *
+     * @param instance the instance to destroy
+     */
+    protected void destroyServiceInstance(S instance)
+    {
+        Objects.requireNonNull(instance, "instance cannot be null");
+
+        ServiceMetricsRecorder recorder = this.metricsRecorder;
+
+        long phaseStartTime = System.nanoTime();
+        instance.stop();
+        long phaseEndTime = System.nanoTime();
+        recorder.recordLifecycleDuration(ServiceLifecyclePhase.STOP, phaseEndTime - phaseStartTime);
+
+        instance.destroy();
+        recorder.recordLifecycleDuration(ServiceLifecyclePhase.DESTROY, System.nanoTime() - phaseEndTime);
+    }
+
+    /**
+     * Release the instance provider and configuration.  Subsequent attempts to create instances will fail
+     */
+    protected void clearInitialization()
+    {
+        this.serviceConfiguration = null;
+        this.serviceInstanceProvider = null;
+    }
+}
@@ -0,0 +1,518 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable ServiceConfiguration stored in flat arrays
+ *
+ * Properties are looked up in an open addressing table of precomputed hashes, with no allocation per lookup.  Numeric
+ * and boolean values, including String values such as "42" or "true", are converted once when the configuration is
+ * built, so getInt(), getLong(), getDouble() and getBoolean() neither parse nor box.  getProperty() returns the value
+ * exactly as it was set.
+ *
+ * Configurations are equal if they have the same properties with equal values, regardless of the order in which the
+ * properties were set.  The hash code is computed once, when the configuration is built, so configurations are cheap to
+ * use as map keys.
+ *
+ * Instances are created through a Builder, e.g. "CompactConfiguration.builder().setInt("poolSize", 8).build()"
+ */
+public final class CompactConfiguration implements ServiceConfiguration
+{
+    private static final CompactConfiguration EMPTY = new CompactConfiguration(new LinkedHashMap<String, Object>());
+
+    private static final byte OBJECT_VALUE = 0;
+    private static final byte LONG_VALUE = 1;
+    private static final byte DOUBLE_VALUE = 2;
+    private static final byte BOOLEAN_VALUE = 3;
+
+    private final String[] names;
+    private final int[] hashes;
+    private final Object[] values;
+    private final byte[] valueTypes;
+    // Raw long bits of each converted value.  Doubles are stored with Double.doubleToRawLongBits
+    private final long[] primitiveValues;
+    // Open addressing table of index + 1 into the arrays above.  0 marks an empty slot
+    private final int[] slots;
+    private final int slotMask;
+    private final int hashCode;
+
+    private CompactConfiguration(Map<String, Object> properties)
+    {
+        int size = properties.size();
+        this.names = new String[size];
+        this.hashes = new int[size];
+        this.values = new Object[size];
+        this.valueTypes = new byte[size];
+        this.primitiveValues = new long[size];
+
+        // Keep the load factor at or below one half so that probe sequences stay short
+        int slotCount = Integer.highestOneBit(Math.max(1, size) * 2 - 1) * 2;
+        this.slots = new int[slotCount];
+        this.slotMask = slotCount - 1;
+
+        int index = 0;
+        int propertiesHashCode = 0;
+        for (Map.Entry<String, Object> nextProperty : properties.entrySet())
+        {
+            // Map.Entry hash codes, so that the hash code does not depend on the order of the properties
+            propertiesHashCode += nextProperty.hashCode();
+
+            String name = nextProperty.getKey();
+            int hash = spread(name.hashCode());
+            this.names[index] = name;
+            this.hashes[index] = hash;
+            this.values[index] = nextProperty.getValue();
+            this.convert(index, nextProperty.getValue());
+
+            int slot = hash & this.slotMask;
+            while (this.slots[slot] != 0)
+            {
+                slot = (slot + 1) & this.slotMask;
+            }
+            this.slots[slot] = index + 1;
+
+            index++;
+        }
+        this.hashCode = propertiesHashCode;
+    }
+
+    /**
+     * Create a builder for a new configuration
+     *
+     * @return the builder
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Retrieve a configuration with no properties
+     *
+     * @return the empty configuration
+     */
+    public static CompactConfiguration empty()
+    {
+        return EMPTY;
+    }
+
+    @Override
+    public Object getProperty(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.values[this.requireIndex(name)];
+    }
+
+    @Override
+    public boolean containsProperty(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.indexOf(name) >= 0;
+    }
+
+    /**
+     * Retrieve a property as an int
+     *
+     * @param name the name of the property
+     * @return the value of the property
+     * @throws IllegalArgumentException if the property was not provided or is not an integer in the range of int
+     */
+    public int getInt(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        long value = this.getLongValue(this.requireIndex(name), "an int");
+        if ((int)value != value)
+        {
+            throw new IllegalArgumentException(name + " is out of the range of an int");
+        }
+
+        return (int)value;
+    }
+
+    /**
+     * Retrieve a property as an int, or a default if the property was not provided
+     *
+     * @param name the name of the property
+     * @param defaultValue the value to return if the property was not provided
+     * @return the value of the property or defaultValue
+     * @throws IllegalArgumentException if the property is not an integer in the range of int
+     */
+    public int getInt(String name, int defaultValue)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return (this.indexOf(name) >= 0) ? this.getInt(name) : defaultValue;
+    }
+
+    /**
+     * Retrieve a property as a long
+     *
+     * @param name the name of the property
+     * @return the value of the property
+     * @throws IllegalArgumentException if the property was not provided or is not an integer
+     */
+    public long getLong(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.getLongValue(this.requireIndex(name), "a long");
+    }
+
+    /**
+     * Retrieve a property as a long, or a default if the property was not provided
+     *
+     * @param name the name of the property
+     * @param defaultValue the value to return if the property was not provided
+     * @return the value of the property or defaultValue
+     * @throws IllegalArgumentException if the property is not an integer
+     */
+    public long getLong(String name, long defaultValue)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        int index = this.indexOf(name);
+        return (index >= 0) ? this.getLongValue(index, "a long") : defaultValue;
+    }
+
+    /**
+     * Retrieve a property as a double.  Integer properties are widened
+     *
+     * @param name the name of the property
+     * @return the value of the property
+     * @throws IllegalArgumentException if the property was not provided or is not a number
+     */
+    public double getDouble(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.getDoubleValue(this.requireIndex(name));
+    }
+
+    /**
+     * Retrieve a property as a double, or a default if the property was not provided.  Integer properties are widened
+     *
+     * @param name the name of the property
+     * @param defaultValue the value to return if the property was not provided
+     * @return the value of the property or defaultValue
+     * @throws IllegalArgumentException if the property is not a number
+     */
+    public double getDouble(String name, double defaultValue)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        int index = this.indexOf(name);
+        return (index >= 0) ? this.getDoubleValue(index) : defaultValue;
+    }
+
+    /**
+     * Retrieve a property as a boolean
+     *
+     * @param name the name of the property
+     * @return the value of the property
+     * @throws IllegalArgumentException if the property was not provided or is not a boolean
+     */
+    public boolean getBoolean(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.getBooleanValue(this.requireIndex(name));
+    }
+
+    /**
+     * Retrieve a property as a boolean, or a default if the property was not provided
+     *
+     * @param name the name of the property
+     * @param defaultValue the value to return if the property was not provided
+     * @return the value of the property or defaultValue
+     * @throws IllegalArgumentException if the property is not a boolean
+     */
+    public boolean getBoolean(String name, boolean defaultValue)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        int index = this.indexOf(name);
+        return (index >= 0) ? this.getBooleanValue(index) : defaultValue;
+    }
+
+    /**
+     * Retrieve the names of the properties, in the order they were first set
+     *
+     * @return the property names
+     */
+    public List<String> getPropertyNames()
+    {
+        List<String> propertyNames = new ArrayList<String>(this.names.length);
+        Collections.addAll(propertyNames, this.names);
+
+        return Collections.unmodifiableList(propertyNames);
+    }
+
+    /**
+     * Retrieve the number of properties
+     *
+     * @return the number of properties
+     */
+    public int size()
+    {
+        return this.names.length;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (this == other)
+        {
+            return true;
+        }
+        if (!(other instanceof CompactConfiguration otherConfiguration) ||
+            (this.hashCode != otherConfiguration.hashCode) || (this.names.length != otherConfiguration.names.length))
+        {
+            return false;
+        }
+
+        for (int i = 0; i < this.names.length; i++)
+        {
+            int otherIndex = otherConfiguration.indexOf(this.names[i]);
+            if ((otherIndex < 0) || !this.values[i].equals(otherConfiguration.values[otherIndex]))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder description = new StringBuilder("CompactConfiguration{");
+        for (int i = 0; i < this.names.length; i++)
+        {
+            if (i > 0)
+            {
+                description.append(", ");
+            }
+            description.append(this.names[i]).append('=').append(this.values[i]);
+        }
+
+        return description.append('}').toString();
+    }
+
+    private int indexOf(String name)
+    {
+        int hash = spread(name.hashCode());
+        int slot = hash & this.slotMask;
+        int entry;
+        while ((entry = this.slots[slot]) != 0)
+        {
+            int index = entry - 1;
+            if ((this.hashes[index] == hash) && name.equals(this.names[index]))
+            {
+                return index;
+            }
+            slot = (slot + 1) & this.slotMask;
+        }
+
+        return -1;
+    }
+
+    private int requireIndex(String name)
+    {
+        int index = this.indexOf(name);
+        if (index < 0)
+        {
+            throw new IllegalArgumentException(name + " is not a specified parameter");
+        }
+
+        return index;
+    }
+
+    private long getLongValue(int index, String description)
+    {
+        if (this.valueTypes[index] != LONG_VALUE)
+        {
+            throw new IllegalArgumentException(this.names[index] + " is not " + description);
+        }
+
+        return this.primitiveValues[index];
+    }
+
+    private double getDoubleValue(int index)
+    {
+        switch (this.valueTypes[index])
+        {
+            case LONG_VALUE:
+                return this.primitiveValues[index];
+            case DOUBLE_VALUE:
+                return Double.longBitsToDouble(this.primitiveValues[index]);
+            default:
+                throw new IllegalArgumentException(this.names[index] + " is not a double");
+        }
+    }
+
+    private boolean getBooleanValue(int index)
+    {
+        if (this.valueTypes[index] != BOOLEAN_VALUE)
+        {
+            throw new IllegalArgumentException(this.names[index] + " is not a boolean");
+        }
+
+        return this.primitiveValues[index] != 0;
+    }
+
+    private void convert(int index, Object value)
+    {
+        if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) ||
+            (value instanceof Byte))
+        {
+            this.setPrimitive(index, LONG_VALUE, ((Number)value).longValue());
+        }
+        else if ((value instanceof Double) || (value instanceof Float))
+        {
+            this.setPrimitive(index, DOUBLE_VALUE, Double.doubleToRawLongBits(((Number)value).doubleValue()));
+        }
+        else if (value instanceof Boolean)
+        {
+            this.setPrimitive(index, BOOLEAN_VALUE, ((Boolean)value) ? 1 : 0);
+        }
+        else if (value instanceof String)
+        {
+            this.convertString(index, ((String)value).trim());
+        }
+    }
+
+    private void convertString(int index, String value)
+    {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))
+        {
+            this.setPrimitive(index, BOOLEAN_VALUE, Boolean.parseBoolean(value) ? 1 : 0);
+            return;
+        }
+
+        try
+        {
+            this.setPrimitive(index, LONG_VALUE, Long.parseLong(value));
+            return;
+        }
+        catch (NumberFormatException exception)
+        {
+            // Not an integer.  Try a double below
+        }
+
+        try
+        {
+            double doubleValue = Double.parseDouble(value);
+            // Only plain decimal numbers.  Double.parseDouble also accepts e.g. "NaN", "Infinity" and "1d"
+            if (Character.isDigit(value.charAt(value.length() - 1)))
+            {
+                this.setPrimitive(index, DOUBLE_VALUE, Double.doubleToRawLongBits(doubleValue));
+            }
+        }
+        catch (NumberFormatException exception)
+        {
+            // Not a number.  Only available through getProperty()
+        }
+    }
+
+    private void setPrimitive(int index, byte valueType, long primitiveValue)
+    {
+        this.valueTypes[index] = valueType;
+        this.primitiveValues[index] = primitiveValue;
+    }
+
+    private static int spread(int hashCode)
+    {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    /**
+     * Collects the properties of a CompactConfiguration.  A builder is not thread safe and may be reused; each call to
+     * build() creates a new configuration from the properties set so far
+     */
+    public static final class Builder
+    {
+        private final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Set a property, replacing any earlier value
+         *
+         * @param name the name of the property
+         * @param value the value of the property
+         * @return this builder
+         */
+        public Builder set(String name, Object value)
+        {
+            Objects.requireNonNull(name, "name cannot be null");
+            Objects.requireNonNull(value, "value cannot be null");
+
+            this.properties.put(name, value);
+            return this;
+        }
+
+        public Builder setInt(String name, int value)
+        {
+            return this.set(name, Integer.valueOf(value));
+        }
+
+        public Builder setLong(String name, long value)
+        {
+            return this.set(name, Long.valueOf(value));
+        }
+
+        public Builder setDouble(String name, double value)
+        {
+            return this.set(name, Double.valueOf(value));
+        }
+
+        public Builder setBoolean(String name, boolean value)
+        {
+            return this.set(name, Boolean.valueOf(value));
+        }
+
+        /**
+         * Set every property of a map, replacing any earlier values
+         *
+         * @param properties the properties to set
+         * @return this builder
+         */
+        public Builder setAll(Map<String, ?> properties)
+        {
+            Objects.requireNonNull(properties, "properties cannot be null");
+
+            for (Map.Entry<String, ?> nextProperty : properties.entrySet())
+            {
+                this.set(nextProperty.getKey(), nextProperty.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * Create a configuration from the properties set so far
+         *
+         * @return the configuration
+         */
+        public CompactConfiguration build()
+        {
+            return this.properties.isEmpty() ? EMPTY : new CompactConfiguration(this.properties);
+        }
+    }
+}
@@ -1,37 +1,376 @@
 package com.sphyrna.servicemanager.providers;
 
+import com.sphyrna.servicemanager.InvalidServiceDefinitionException;
 import com.sphyrna.servicemanager.Service;
 import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.ServiceLifecycleController;
+import com.sphyrna.servicemanager.ServiceManagerConstants;
 import com.sphyrna.servicemanager.ServiceManagerStrategy;
+import com.sphyrna.servicemanager.defaultimpl.ServiceInstanceProviderImpl;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A ServiceManagerStrategy whose services are defined in a descriptor file.  See {@link ServiceDescriptorReader} for
+ * the file format.
+ *
+ * The descriptor is read on first use, or when {@link #load()} is called.  It is read a line at a time and the service
+ * and controller classes it names are resolved in parallel.  Each service class constructor is linked once, so
+ * services are created without reflection.  The resulting definitions are immutable: services can not be registered
+ * with this strategy.
+ *
+ * With the no-arg constructor, the descriptor file is located by the system property
+ * {@value #DESCRIPTOR_PATH_PROPERTY}.  If the property is not set, no services are defined.
+ */
 public class ConfigServiceManagerStrategy implements ServiceManagerStrategy
 {
+    public static final String DESCRIPTOR_PATH_PROPERTY = "sphyrna.servicemanager.config";
+
+    private static final Map<String, Class<?>> KNOWN_CONTROLLERS =
+        Map.of("SINGLETON", KnownServiceLifecycleControllers.SINGLETON,
+               "POOLED", KnownServiceLifecycleControllers.POOLED,
+               "THREAD_CONFINED", KnownServiceLifecycleControllers.THREAD_CONFINED,
+               "SCOPED", KnownServiceLifecycleControllers.SCOPED,
+               "IDLE_EVICTING", KnownServiceLifecycleControllers.IDLE_EVICTING,
+               "PER_CONFIGURATION", KnownServiceLifecycleControllers.PER_CONFIGURATION,
+               "STRIPED", KnownServiceLifecycleControllers.STRIPED);
+    private static final MethodType NO_ARG_CONSTRUCTOR_TYPE = MethodType.methodType(void.class);
+
+    private final Path descriptorPath;
+    private final ClassLoader classLoader;
+
+    // Loaded on first use.  Holds the definitions compiled from the descriptor
+    private volatile ServiceManagerStrategyImpl serviceRegistry;
+
+    /**
+     * Create a strategy that reads the descriptor file named by the system property {@value #DESCRIPTOR_PATH_PROPERTY}
+     */
+    public ConfigServiceManagerStrategy()
+    {
+        String descriptorPathProperty = System.getProperty(DESCRIPTOR_PATH_PROPERTY);
+        this.descriptorPath = (descriptorPathProperty != null) ? Path.of(descriptorPathProperty) : null;
+        this.classLoader = ConfigServiceManagerStrategy.class.getClassLoader();
+    }
+
+    /**
+     * Create a strategy that reads a descriptor file
+     *
+     * @param descriptorPath the path of the descriptor file
+     * @param classLoader resolves the classes named in the descriptor
+     */
+    public ConfigServiceManagerStrategy(Path descriptorPath, ClassLoader classLoader)
+    {
+        this.descriptorPath = Objects.requireNonNull(descriptorPath, "descriptorPath cannot be null");
+        this.classLoader = Objects.requireNonNull(classLoader, "classLoader cannot be null");
+    }
+
+    /**
+     * Read the descriptor unless it has already been read.  Use this to report descriptor errors at startup rather than
+     * on first use.  If reading fails, it is attempted again on next use
+     *
+     * @throws ServiceException if the descriptor could not be read or defines an invalid service
+     */
+    public void load() throws ServiceException
+    {
+        this.getServiceRegistry();
+    }
 
     @Override
-    public <S extends Service<ServiceConfiguration>> S getService(String name)
+    public <S extends Service<ServiceConfiguration>> S getService(String name) throws ServiceException
     {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getService'");
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.getServiceRegistry().getService(name);
     }
 
     @Override
     public <S extends Service<C>, C extends ServiceConfiguration> S getService(String name, C serviceConfiguration)
+        throws ServiceException
     {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getService'");
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(serviceConfiguration, "serviceConfiguration cannot be null");
+
+        return this.getServiceRegistry().getService(name, serviceConfiguration);
+    }
+
+    @Override
+    public <S extends Service<ServiceConfiguration>> Optional<S> findService(String name) throws ServiceException
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.getServiceRegistry().findService(name);
+    }
+
+    @Override
+    public <S extends Service<ServiceConfiguration>> CompletableFuture<S> getServiceAsync(String name)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+
+        return this.getServiceAsync(name, ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION);
+    }
+
+    @Override
+    public <S extends Service<C>, C extends ServiceConfiguration> CompletableFuture<S>
+    getServiceAsync(String name, C serviceConfiguration)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(serviceConfiguration, "serviceConfiguration cannot be null");
+
+        try
+        {
+            return this.getServiceRegistry().getServiceAsync(name, serviceConfiguration);
+        }
+        catch (ServiceException exception)
+        {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    @Override
+    public void releaseService(String name, Service<?> service)
+    {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(service, "service cannot be null");
+
+        // Services can only have been retrieved once the descriptor was loaded
+        ServiceManagerStrategyImpl currentServiceRegistry = this.serviceRegistry;
+        if (currentServiceRegistry != null)
+        {
+            currentServiceRegistry.releaseService(name, service);
+        }
     }
 
     @Override
     public boolean isServiceDefined(String name)
     {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'isServiceDefined'");
+        Objects.requireNonNull(name, "name cannot be null");
+
+        try
+        {
+            return this.getServiceRegistry().isServiceDefined(name);
+        }
+        catch (ServiceException exception)
+        {
+            throw new IllegalStateException("Failed to load service descriptor, " + this.descriptorPath, exception);
+        }
     }
 
     @Override
     public void shutdown()
     {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'shutdown'");
+        ServiceManagerStrategyImpl currentServiceRegistry = this.serviceRegistry;
+        if (currentServiceRegistry != null)
+        {
+            currentServiceRegistry.shutdown();
+        }
+    }
+
+    private ServiceManagerStrategyImpl getServiceRegistry() throws ServiceException
+    {
+        ServiceManagerStrategyImpl currentServiceRegistry = this.serviceRegistry;
+        if (currentServiceRegistry == null)
+        {
+            currentServiceRegistry = this.loadServiceRegistry();
+        }
+
+        return currentServiceRegistry;
+    }
+
+    private synchronized ServiceManagerStrategyImpl loadServiceRegistry() throws ServiceException
+    {
+        ServiceManagerStrategyImpl currentServiceRegistry = this.serviceRegistry;
+        if (currentServiceRegistry == null)
+        {
+            if (this.descriptorPath == null)
+            {
+                currentServiceRegistry = new ServiceManagerStrategyImpl();
+            }
+            else
+            {
+                currentServiceRegistry = compile(readDescriptors(this.descriptorPath), this.classLoader,
+                                                 this.descriptorPath.toString());
+            }
+            this.serviceRegistry = currentServiceRegistry;
+        }
+
+        return currentServiceRegistry;
+    }
+
+    static List<ServiceDescriptor> readDescriptors(Path descriptorPath) throws ServiceException
+    {
+        try (Reader descriptorReader = Files.newBufferedReader(descriptorPath, StandardCharsets.UTF_8))
+        {
+            return ServiceDescriptorReader.read(descriptorReader, descriptorPath.toString());
+        }
+        catch (IOException exception)
+        {
+            throw new ServiceException("Failed to read service descriptor, " + descriptorPath, exception);
+        }
+    }
+
+    /**
+     * Resolve the classes of the descriptors in parallel and register the resulting definitions with a new strategy
+     */
+    static ServiceManagerStrategyImpl compile(List<ServiceDescriptor> descriptors, ClassLoader classLoader,
+                                              String sourceName) throws ServiceException
+    {
+        Map<Class<?>, MethodHandle> controllerConstructors = new ConcurrentHashMap<Class<?>, MethodHandle>();
+        List<CompiledService> compiledServices;
+        try
+        {
+            compiledServices =
+                descriptors.parallelStream()
+                    .map(descriptor -> compileService(descriptor, classLoader, sourceName, controllerConstructors))
+                    .toList();
+        }
+        catch (CompilationException exception)
+        {
+            throw exception.getCause();
+        }
+
+        ServiceManagerStrategyImpl compiledRegistry = new ServiceManagerStrategyImpl();
+        for (CompiledService nextCompiledService : compiledServices)
+        {
+            compiledRegistry.registerService(nextCompiledService.name, nextCompiledService.serviceInstanceProvider,
+                                             nextCompiledService.serviceLifecycleController,
+                                             nextCompiledService.serviceConfiguration);
+            if (!nextCompiledService.dependencies.isEmpty())
+            {
+                compiledRegistry.registerServiceDependencies(nextCompiledService.name,
+                                                             nextCompiledService.dependencies.toArray(new String[0]));
+            }
+        }
+
+        return compiledRegistry;
+    }
+
+    private static CompiledService compileService(ServiceDescriptor descriptor, ClassLoader classLoader,
+                                                  String sourceName, Map<Class<?>, MethodHandle> controllerConstructors)
+    {
+        String location =
+            sourceName + ":" + descriptor.getLineNumber() + ": Service with name, " + descriptor.getName();
+        try
+        {
+            Class<?> serviceClass = Class.forName(descriptor.getServiceClassName(), false, classLoader);
+            if (!Service.class.isAssignableFrom(serviceClass))
+            {
+                throw new InvalidServiceDefinitionException(location + ", has a class that is not a Service, " +
+                                                            serviceClass.getName());
+            }
+
+            Class<?> controllerClass = KNOWN_CONTROLLERS.get(descriptor.getControllerName());
+            if (controllerClass == null)
+            {
+                controllerClass = Class.forName(descriptor.getControllerName(), false, classLoader);
+            }
+            if (!ServiceLifecycleController.class.isAssignableFrom(controllerClass))
+            {
+                throw new InvalidServiceDefinitionException(
+                    location + ", has a controller that is not a ServiceLifecycleController, " +
+                    controllerClass.getName());
+            }
+
+            MethodHandle controllerConstructor =
+                controllerConstructors.computeIfAbsent(controllerClass, ConfigServiceManagerStrategy::findConstructor);
+            ServiceLifecycleController serviceLifecycleController =
+                (ServiceLifecycleController)controllerConstructor.invoke();
+
+            ServiceInstanceProvider serviceInstanceProvider =
+                new ServiceInstanceProviderImpl(serviceClass.asSubclass(Service.class));
+
+            // Numeric and boolean properties are converted once here rather than on every read by the service
+            ServiceConfiguration serviceConfiguration = ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION;
+            if (!descriptor.getProperties().isEmpty())
+            {
+                serviceConfiguration = CompactConfiguration.builder().setAll(descriptor.getProperties()).build();
+            }
+
+            return new CompiledService(descriptor.getName(), serviceInstanceProvider, serviceLifecycleController,
+                                       serviceConfiguration, descriptor.getDependencies());
+        }
+        catch (ServiceException exception)
+        {
+            throw new CompilationException(exception);
+        }
+        catch (ClassNotFoundException | LinkageError exception)
+        {
+            throw new CompilationException(
+                new InvalidServiceDefinitionException(location + ", names a class that can not be loaded", exception));
+        }
+        catch (Error error)
+        {
+            throw error;
+        }
+        catch (Throwable throwable)
+        {
+            throw new CompilationException(
+                new InvalidServiceDefinitionException(location + ", has a controller that can not be created",
+                                                      throwable));
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> controllerClass)
+    {
+        try
+        {
+            return MethodHandles.publicLookup().findConstructor(controllerClass, NO_ARG_CONSTRUCTOR_TYPE);
+        }
+        catch (NoSuchMethodException | IllegalAccessException exception)
+        {
+            throw new IllegalArgumentException(controllerClass.getName() + " does not have a public no-arg constructor",
+                                               exception);
+        }
+    }
+
+    private static class CompiledService
+    {
+        private final String name;
+        private final ServiceInstanceProvider serviceInstanceProvider;
+        private final ServiceLifecycleController serviceLifecycleController;
+        private final ServiceConfiguration serviceConfiguration;
+        private final List<String> dependencies;
+
+        private CompiledService(String name, ServiceInstanceProvider serviceInstanceProvider,
+                                ServiceLifecycleController serviceLifecycleController,
+                                ServiceConfiguration serviceConfiguration, List<String> dependencies)
+        {
+            this.name = name;
+            this.serviceInstanceProvider = serviceInstanceProvider;
+            this.serviceLifecycleController = serviceLifecycleController;
+            this.serviceConfiguration = serviceConfiguration;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /**
+     * Carries a ServiceException out of the parallel compilation of the descriptors
+     */
+    private static class CompilationException extends RuntimeException
+    {
+        private CompilationException(ServiceException cause)
+        {
+            super(cause);
+        }
+
+        @Override
+        public synchronized ServiceException getCause()
+        {
+            return (ServiceException)super.getCause();
+        }
     }
 }
@@ -0,0 +1,284 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.jfr.ServiceStartedEvent;
+import com.sphyrna.servicemanager.jfr.ServiceStoppedEvent;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A ServiceLifecycleController that keeps a single instance of a service while it is in use and stops and destroys it
+ * once it has been idle for the configured timeout.  The next call to getService() creates, initializes and starts a
+ * new instance through the ServiceInstanceProvider.  Intended for services that hold large amounts of memory but are
+ * used only occasionally.
+ *
+ * An instance is idle when getService() has not been called for it.  Callers must not hold on to the instance for
+ * longer than the idle timeout; retrieve it again for each unit of work.
+ *
+ * Access is tracked with a flag that getService() sets only when it is clear, so getService() is two reads with no
+ * locking while the instance is in steady use.  The flag is cleared and idle time is measured by a sweep that runs
+ * every quarter of the idle timeout on a single timer thread shared by all controllers.  An instance is therefore
+ * evicted between one and one and a quarter idle timeouts after it was last retrieved.  No sweep is scheduled while
+ * there is no instance.
+ *
+ * The idle timeout can be set through the constructor or through the service configuration property
+ * {@link #IDLE_TIMEOUT_MILLIS_PROPERTY}.  The configuration property takes precedence.
+ */
+public class IdleEvictingServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
+    extends BaseServiceLifecycleController<S, C>
+{
+    public static final String IDLE_TIMEOUT_MILLIS_PROPERTY = "idle.timeoutMillis";
+
+    private static final Log LOG = LogFactory.getLog(IdleEvictingServiceLifecycleController.class.getName());
+
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final long MIN_SWEEP_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final VarHandle IDLE_INSTANCE;
+
+    static
+    {
+        try
+        {
+            IDLE_INSTANCE = MethodHandles.lookup().findVarHandle(IdleEvictingServiceLifecycleController.class,
+                                                                 "idleInstance", Service.class);
+        }
+        catch (NoSuchFieldException | IllegalAccessException exception)
+        {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+
+    private long idleTimeoutNanos;
+
+    // Written while holding this.  Read without locking through IDLE_INSTANCE
+    private S idleInstance;
+
+    // Set by getService(), cleared by the sweep
+    private volatile boolean accessed;
+
+    // Only accessed while holding this
+    private long lastAccessNanos;
+    private ScheduledFuture<?> sweepFuture;
+
+    /**
+     * Create a controller that evicts its instance after 10 minutes without use
+     */
+    public IdleEvictingServiceLifecycleController()
+    {
+        this(DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Create a controller
+     *
+     * @param idleTimeout the time without use after which the instance is evicted
+     */
+    public IdleEvictingServiceLifecycleController(Duration idleTimeout)
+    {
+        Objects.requireNonNull(idleTimeout, "idleTimeout cannot be null");
+
+        this.setIdleTimeout(idleTimeout.toNanos());
+    }
+
+    @Override
+    public void init(ServiceInstanceProvider<S> instanceProvider, C configuration) throws ServiceException
+    {
+        Objects.requireNonNull(instanceProvider, "instanceProvider cannot be null");
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+
+        super.init(instanceProvider, configuration);
+
+        if (configuration.containsProperty(IDLE_TIMEOUT_MILLIS_PROPERTY))
+        {
+            Object value = configuration.getProperty(IDLE_TIMEOUT_MILLIS_PROPERTY);
+            long idleTimeoutMillis;
+            try
+            {
+                idleTimeoutMillis = (value instanceof Number) ? ((Number)value).longValue()
+                                                              : Long.parseLong(value.toString().trim());
+            }
+            catch (NumberFormatException exception)
+            {
+                throw new IllegalArgumentException("Property, " + IDLE_TIMEOUT_MILLIS_PROPERTY + ", must be a number",
+                                                   exception);
+            }
+            this.setIdleTimeout(TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis));
+        }
+    }
+
+    @Override
+    public S getService() throws ServiceException
+    {
+        S instance = (S)IDLE_INSTANCE.getVolatile(this);
+        if ((instance != null) && !this.accessed)
+        {
+            // First use since the last sweep.  The sweep unpublishes the instance before checking the flag, so either
+            // it sees this write and keeps the instance, or this read sees it unpublished and a new instance is made
+            this.accessed = true;
+            instance = (S)IDLE_INSTANCE.getVolatile(this);
+        }
+
+        if (instance == null)
+        {
+            instance = this.createIdleInstance();
+        }
+
+        return instance;
+    }
+
+    @Override
+    public void shutdown()
+    {
+        S instanceToShutdown;
+        synchronized (this)
+        {
+            instanceToShutdown = this.unpublishInstance();
+            this.clearInitialization();
+        }
+
+        if (instanceToShutdown != null)
+        {
+            this.destroyIdleInstance(instanceToShutdown);
+        }
+    }
+
+    private void setIdleTimeout(long idleTimeoutNanos)
+    {
+        if (idleTimeoutNanos <= 0)
+        {
+            throw new IllegalArgumentException("idleTimeout must be greater than 0");
+        }
+
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    private synchronized S createIdleInstance() throws ServiceException
+    {
+        S instance = this.idleInstance;
+        if (instance == null)
+        {
+            ServiceStartedEvent startedEvent = new ServiceStartedEvent();
+            startedEvent.begin();
+            instance = this.createServiceInstance();
+            startedEvent.end();
+            if (startedEvent.shouldCommit())
+            {
+                startedEvent.serviceClass = instance.getClass().getName();
+                startedEvent.commit();
+            }
+
+            this.accessed = false;
+            this.lastAccessNanos = System.nanoTime();
+            IDLE_INSTANCE.setVolatile(this, instance);
+
+            long sweepPeriodNanos = Math.max(this.idleTimeoutNanos / 4, MIN_SWEEP_PERIOD_NANOS);
+            this.sweepFuture = SweepTimer.EXECUTOR.scheduleAtFixedRate(this::sweep, sweepPeriodNanos,
+                                                                       sweepPeriodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        return instance;
+    }
+
+    private void sweep()
+    {
+        S evictedInstance;
+        synchronized (this)
+        {
+            S instance = this.idleInstance;
+            if (instance == null)
+            {
+                return;
+            }
+
+            long now = System.nanoTime();
+            if (this.accessed)
+            {
+                this.accessed = false;
+                this.lastAccessNanos = now;
+                return;
+            }
+            if (now - this.lastAccessNanos < this.idleTimeoutNanos)
+            {
+                return;
+            }
+
+            // Unpublish, then check for a getService() that raced with this sweep
+            IDLE_INSTANCE.setVolatile(this, null);
+            if (this.accessed)
+            {
+                IDLE_INSTANCE.setVolatile(this, instance);
+                return;
+            }
+
+            evictedInstance = instance;
+            this.cancelSweep();
+        }
+
+        // Keep the shared timer free of slow stop() and destroy() implementations
+        Thread.ofVirtual().name("idle-service-eviction").start(() -> this.destroyIdleInstance(evictedInstance));
+    }
+
+    private S unpublishInstance()
+    {
+        S instance = this.idleInstance;
+        IDLE_INSTANCE.setVolatile(this, null);
+        this.cancelSweep();
+
+        return instance;
+    }
+
+    private void cancelSweep()
+    {
+        if (this.sweepFuture != null)
+        {
+            this.sweepFuture.cancel(false);
+            this.sweepFuture = null;
+        }
+    }
+
+    private void destroyIdleInstance(S instance)
+    {
+        ServiceStoppedEvent stoppedEvent = new ServiceStoppedEvent();
+        stoppedEvent.begin();
+        try
+        {
+            this.destroyServiceInstance(instance);
+        }
+        catch (RuntimeException exception)
+        {
+            LOG.warn("Failed to destroy idle service instance, " + instance.getClass().getName(), exception);
+        }
+        stoppedEvent.end();
+        if (stoppedEvent.shouldCommit())
+        {
+            stoppedEvent.serviceClass = instance.getClass().getName();
+            stoppedEvent.commit();
+        }
+    }
+
+    // Holds the timer shared by all controllers.  Created on first use
+    private static final class SweepTimer
+    {
+        private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+        private static ScheduledThreadPoolExecutor createExecutor()
+        {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1, Thread.ofPlatform().daemon().name("idle-service-sweeper").factory());
+            executor.setRemoveOnCancelPolicy(true);
+
+            return executor;
+        }
+    }
+}
@@ -11,4 +11,10 @@ import com.sphyrna.servicemanager.ServiceLifecycleController;
 public class KnownServiceLifecycleControllers
 {
     public static final Class SINGLETON = SingletonServiceLifecycleController.class;
+    public static final Class POOLED = PooledServiceLifecycleController.class;
+    public static final Class THREAD_CONFINED = ThreadConfinedServiceLifecycleController.class;
+    public static final Class SCOPED = ScopedServiceLifecycleController.class;
+    public static final Class IDLE_EVICTING = IdleEvictingServiceLifecycleController.class;
+    public static final Class PER_CONFIGURATION = PerConfigurationServiceLifecycleController.class;
+    public static final Class STRIPED = StripedServiceLifecycleController.class;
 }
@@ -25,12 +25,14 @@ public class MapConfiguration implements ServiceConfiguration
     {
         Objects.requireNonNull(name, "name cannot be null");
 
-        if (!this.properties.containsKey(name))
+        // Values are never null, so a null result means the property was not provided
+        Object value = this.properties.get(name);
+        if (value == null)
         {
             throw new IllegalArgumentException(name + " is not a specified parameter");
         }
 
-        return this.properties.get(name);
+        return value;
     }
 
     public void setProperty(String name, Object value)
@@ -0,0 +1,303 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A ServiceLifecycleController that keeps one instance of a service per distinct configuration.  An instance is
+ * created, initialized with the configuration passed to ServiceManager.getService(name, configuration) and started the
+ * first time the configuration is used.  getService() without a configuration returns the instance for the registered
+ * configuration.
+ *
+ * Configurations are interned by equals() and hashCode(), so equal configurations share an instance.
+ * {@link CompactConfiguration} compares by value and computes its hash code once.  Configurations that do not override
+ * equals() share an instance only with themselves.  A configuration must not be modified once it has been used.
+ *
+ * Lookups with a configuration that was used recently are served from a small cache indexed by identity, which skips
+ * hashCode() and equals() altogether, and are lock-free.  Instances are created and started without holding a lock,
+ * so a slow start for one configuration does not delay lookups of others.  The number of instances is bounded.  When
+ * the bound is reached, an instance that has not been retrieved recently is stopped and destroyed to make room for the
+ * new one.  Recency is approximated with the CLOCK algorithm: a lookup only sets a flag on its instance if it is
+ * clear, so lookups do not contend on a shared access order.  Callers must not hold on to an instance beyond their
+ * unit of work.
+ *
+ * The bound can be set through the constructor or through the service configuration property
+ * {@link #MAX_INSTANCES_PROPERTY}.  The configuration property takes precedence.
+ */
+public class PerConfigurationServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
+    extends BaseServiceLifecycleController<S, C>
+{
+    public static final String MAX_INSTANCES_PROPERTY = "perConfiguration.maxInstances";
+
+    private static final Log LOG = LogFactory.getLog(PerConfigurationServiceLifecycleController.class.getName());
+
+    private static final int DEFAULT_MAX_INSTANCES = 64;
+
+    private int maxInstances;
+
+    // Instances by configuration value.  Written while holding this
+    private final Map<C, ConfigurationInstance<S, C>> configurationInstances =
+        new ConcurrentHashMap<C, ConfigurationInstance<S, C>>();
+
+    // The instances in CLOCK order.  Only accessed while holding this
+    private final ArrayDeque<ConfigurationInstance<S, C>> clock = new ArrayDeque<ConfigurationInstance<S, C>>();
+
+    // Recently used instances, indexed by the identity hash code of their configuration.  Entries are immutable apart
+    // from their flags, so slots are written without locking and a stale entry is only a cache miss.  Created in init()
+    private ConfigurationInstance<S, C>[] recentInstances;
+    private int recentInstanceMask;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Create a controller that keeps up to 64 instances
+     */
+    public PerConfigurationServiceLifecycleController()
+    {
+        this(DEFAULT_MAX_INSTANCES);
+    }
+
+    /**
+     * Create a controller
+     *
+     * @param maxInstances the maximum number of instances
+     */
+    public PerConfigurationServiceLifecycleController(int maxInstances)
+    {
+        this.setMaxInstances(maxInstances);
+    }
+
+    @Override
+    public void init(ServiceInstanceProvider<S> instanceProvider, C configuration) throws ServiceException
+    {
+        Objects.requireNonNull(instanceProvider, "instanceProvider cannot be null");
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+
+        super.init(instanceProvider, configuration);
+
+        if (configuration.containsProperty(MAX_INSTANCES_PROPERTY))
+        {
+            Object value = configuration.getProperty(MAX_INSTANCES_PROPERTY);
+            try
+            {
+                this.setMaxInstances((value instanceof Number) ? ((Number)value).intValue()
+                                                               : Integer.parseInt(value.toString().trim()));
+            }
+            catch (NumberFormatException exception)
+            {
+                throw new IllegalArgumentException("Property, " + MAX_INSTANCES_PROPERTY + ", must be a number",
+                                                   exception);
+            }
+        }
+
+        // Twice as many slots as instances keeps identity collisions between live configurations rare
+        int slotCount = Integer.highestOneBit(this.maxInstances * 2 - 1) * 2;
+        this.recentInstances = new ConfigurationInstance[slotCount];
+        this.recentInstanceMask = slotCount - 1;
+    }
+
+    @Override
+    public S getService() throws ServiceException
+    {
+        C configuration = this.getServiceConfiguration();
+        if (configuration == null)
+        {
+            throw new IllegalStateException("Unexpected state. ServiceConfiguration not set");
+        }
+
+        return this.getService(configuration);
+    }
+
+    @Override
+    public S getService(C configuration) throws ServiceException
+    {
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+
+        ConfigurationInstance<S, C>[] recent = this.recentInstances;
+        if (recent == null)
+        {
+            throw new IllegalStateException("Unexpected state. Controller not initialized");
+        }
+
+        int slot = System.identityHashCode(configuration) & this.recentInstanceMask;
+        ConfigurationInstance<S, C> configurationInstance = recent[slot];
+        if ((configurationInstance == null) || (configurationInstance.configuration != configuration) ||
+            configurationInstance.evicted)
+        {
+            configurationInstance = this.configurationInstances.get(configuration);
+            if (configurationInstance == null)
+            {
+                configurationInstance = this.createConfigurationInstance(configuration);
+            }
+            recent[slot] = configurationInstance;
+        }
+
+        if (!configurationInstance.referenced)
+        {
+            configurationInstance.referenced = true;
+        }
+
+        return configurationInstance.instance;
+    }
+
+    @Override
+    public void shutdown()
+    {
+        List<ConfigurationInstance<S, C>> instancesToShutdown;
+        synchronized (this)
+        {
+            this.shutdown = true;
+
+            instancesToShutdown = new ArrayList<ConfigurationInstance<S, C>>(this.clock);
+            for (ConfigurationInstance<S, C> nextInstance : instancesToShutdown)
+            {
+                nextInstance.evicted = true;
+            }
+            this.clock.clear();
+            this.configurationInstances.clear();
+
+            this.clearInitialization();
+        }
+
+        for (ConfigurationInstance<S, C> nextInstance : instancesToShutdown)
+        {
+            this.destroyConfigurationInstance(nextInstance);
+        }
+    }
+
+    /**
+     * Retrieve the number of instances currently kept
+     *
+     * @return the number of instances
+     */
+    public int getInstanceCount()
+    {
+        return this.configurationInstances.size();
+    }
+
+    private void setMaxInstances(int maxInstances)
+    {
+        if (maxInstances < 1)
+        {
+            throw new IllegalArgumentException("maxInstances must be greater than 0");
+        }
+
+        this.maxInstances = maxInstances;
+    }
+
+    private ConfigurationInstance<S, C> createConfigurationInstance(C configuration) throws ServiceException
+    {
+        if (this.shutdown)
+        {
+            throw new IllegalStateException("Unexpected state. Controller has been shutdown");
+        }
+
+        // Create the instance without holding this, so that a slow init() or start() does not hold up lookups of other
+        // configurations.  Concurrent first lookups of a configuration may each create an instance.  Only the first to
+        // be published is kept and the others are destroyed
+        ConfigurationInstance<S, C> createdInstance =
+            new ConfigurationInstance<S, C>(configuration, this.createServiceInstance(configuration));
+
+        ConfigurationInstance<S, C> configurationInstance;
+        ConfigurationInstance<S, C> discardedInstance = null;
+        synchronized (this)
+        {
+            if (this.shutdown)
+            {
+                configurationInstance = null;
+                discardedInstance = createdInstance;
+            }
+            else
+            {
+                configurationInstance = this.configurationInstances.get(configuration);
+                if (configurationInstance != null)
+                {
+                    discardedInstance = createdInstance;
+                }
+                else
+                {
+                    // Evict only once the new instance exists, so that a failed creation does not cost an instance
+                    configurationInstance = createdInstance;
+                    if (this.clock.size() >= this.maxInstances)
+                    {
+                        discardedInstance = this.evictConfigurationInstance();
+                    }
+                    this.configurationInstances.put(configuration, configurationInstance);
+                    this.clock.addLast(configurationInstance);
+                }
+            }
+        }
+
+        if (discardedInstance != null)
+        {
+            this.destroyConfigurationInstance(discardedInstance);
+        }
+
+        if (configurationInstance == null)
+        {
+            throw new IllegalStateException("Unexpected state. Controller has been shutdown");
+        }
+
+        return configurationInstance;
+    }
+
+    // Give each referenced instance a second chance and evict the first one that was not referenced since the hand
+    // last passed it
+    private ConfigurationInstance<S, C> evictConfigurationInstance()
+    {
+        while (true)
+        {
+            ConfigurationInstance<S, C> candidate = this.clock.pollFirst();
+            if (candidate.referenced)
+            {
+                candidate.referenced = false;
+                this.clock.addLast(candidate);
+            }
+            else
+            {
+                candidate.evicted = true;
+                this.configurationInstances.remove(candidate.configuration);
+                return candidate;
+            }
+        }
+    }
+
+    private void destroyConfigurationInstance(ConfigurationInstance<S, C> configurationInstance)
+    {
+        try
+        {
+            this.destroyServiceInstance(configurationInstance.instance);
+        }
+        catch (RuntimeException exception)
+        {
+            LOG.warn("Failed to destroy service instance for configuration, " + configurationInstance.configuration,
+                     exception);
+        }
+    }
+
+    private static final class ConfigurationInstance<S, C>
+    {
+        final C configuration;
+        final S instance;
+
+        // Set by lookups, cleared by the CLOCK hand
+        volatile boolean referenced;
+        volatile boolean evicted;
+
+        ConfigurationInstance(C configuration, S instance)
+        {
+            this.configuration = configuration;
+            this.instance = instance;
+        }
+    }
+}
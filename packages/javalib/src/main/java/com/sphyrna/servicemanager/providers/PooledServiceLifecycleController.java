@@ -0,0 +1,353 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A ServiceLifecycleController that keeps a bounded pool of service instances.  Intended for services that are
+ * expensive to create and not thread safe.  Each call to getService() borrows an instance for exclusive use by the
+ * caller, which must hand it back with releaseService() (or ServiceManager.releaseService()) when done.
+ *
+ * The pool is warmed up to its minimum size when the controller is initialized and grows on demand up to its maximum
+ * size.  When every instance is borrowed, getService() waits up to the configured maximum wait and then fails with a
+ * ServiceException.
+ *
+ * Idle instances are kept in free lists striped by thread.  A thread returns an instance to, and borrows first from,
+ * its own stripe, so borrowers on different threads rarely touch the same list and tend to reuse the same instance.
+ *
+ * The pool size and wait can be set through the constructor or through the service configuration properties
+ * {@link #MIN_SIZE_PROPERTY}, {@link #MAX_SIZE_PROPERTY} and {@link #MAX_WAIT_MILLIS_PROPERTY}.  Configuration
+ * properties take precedence.
+ */
+public class PooledServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
+    extends BaseServiceLifecycleController<S, C>
+{
+    public static final String MIN_SIZE_PROPERTY = "pool.minSize";
+    public static final String MAX_SIZE_PROPERTY = "pool.maxSize";
+    public static final String MAX_WAIT_MILLIS_PROPERTY = "pool.maxWaitMillis";
+
+    private static final Log LOG = LogFactory.getLog(PooledServiceLifecycleController.class.getName());
+
+    private static final int DEFAULT_MIN_SIZE = 0;
+    private static final int DEFAULT_MAX_SIZE = Runtime.getRuntime().availableProcessors();
+    private static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+
+    private int minSize;
+    private int maxSize;
+    private long maxWaitNanos;
+
+    // Created in init()
+    private volatile Semaphore availablePermits;
+    private ConcurrentLinkedDeque<S>[] idleStripes;
+    private int stripeMask;
+
+    private final AtomicInteger createdCount = new AtomicInteger();
+    private final Set<S> pooledInstances = ConcurrentHashMap.newKeySet();
+
+    // The instances currently held by borrowers.  An instance is returned to the pool only if it is removed from here
+    private final Set<S> borrowedInstances = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+
+    /**
+     * Create a pool with a minimum size of 0, a maximum size of the number of available processors and a maximum wait
+     * of 30 seconds
+     */
+    public PooledServiceLifecycleController()
+    {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Create a pool
+     *
+     * @param minSize the number of instances created when the controller is initialized
+     * @param maxSize the maximum number of instances
+     * @param maxWait the maximum time to wait for an instance when all instances are borrowed
+     */
+    public PooledServiceLifecycleController(int minSize, int maxSize, Duration maxWait)
+    {
+        Objects.requireNonNull(maxWait, "maxWait cannot be null");
+
+        this.setPoolSize(minSize, maxSize, maxWait.toNanos());
+    }
+
+    @Override
+    public void init(ServiceInstanceProvider<S> instanceProvider, C configuration) throws ServiceException
+    {
+        Objects.requireNonNull(instanceProvider, "instanceProvider cannot be null");
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+
+        super.init(instanceProvider, configuration);
+
+        long maxWaitMillis = TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos);
+        this.setPoolSize((int)getLongProperty(configuration, MIN_SIZE_PROPERTY, this.minSize),
+                         (int)getLongProperty(configuration, MAX_SIZE_PROPERTY, this.maxSize),
+                         TimeUnit.MILLISECONDS.toNanos(
+                             getLongProperty(configuration, MAX_WAIT_MILLIS_PROPERTY, maxWaitMillis)));
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(this.maxSize, DEFAULT_MAX_SIZE)) * 2 - 1);
+        ConcurrentLinkedDeque<S>[] stripes = new ConcurrentLinkedDeque[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            stripes[i] = new ConcurrentLinkedDeque<S>();
+        }
+        this.idleStripes = stripes;
+        this.stripeMask = stripeCount - 1;
+        this.availablePermits = new Semaphore(this.maxSize);
+
+        // Warm up to the minimum size
+        try
+        {
+            for (int i = 0; i < this.minSize; i++)
+            {
+                this.createdCount.incrementAndGet();
+                S instance = this.createPooledInstance();
+                this.idleStripes[i & this.stripeMask].push(instance);
+            }
+        }
+        catch (ServiceException | RuntimeException | Error exception)
+        {
+            this.drainIdleInstances();
+            throw exception;
+        }
+    }
+
+    /**
+     * Borrow an instance from the pool.  The instance must be returned with releaseService()
+     *
+     * @return an instance for exclusive use by the caller
+     * @throws ServiceException if no instance became available within the maximum wait, or an instance could not be
+     *     created
+     */
+    @Override
+    public S getService() throws ServiceException
+    {
+        Semaphore permits = this.availablePermits;
+        if ((permits == null) || (this.shutdown))
+        {
+            throw new IllegalStateException("Unexpected state. Pool not initialized or shutdown");
+        }
+
+        try
+        {
+            if (!permits.tryAcquire(this.maxWaitNanos, TimeUnit.NANOSECONDS))
+            {
+                throw new ServiceException("No pooled service instance became available within " +
+                                           TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos) + "ms");
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Interrupted while waiting for a pooled service instance", exception);
+        }
+
+        try
+        {
+            S instance = this.borrowInstance();
+            this.borrowedInstances.add(instance);
+            return instance;
+        }
+        catch (ServiceException | RuntimeException | Error exception)
+        {
+            permits.release();
+            throw exception;
+        }
+    }
+
+    @Override
+    public void releaseService(S service)
+    {
+        Objects.requireNonNull(service, "service cannot be null");
+
+        // A duplicate release must not return the instance to the pool twice, or two borrowers could share it
+        if (!this.borrowedInstances.remove(service))
+        {
+            LOG.warn(this.pooledInstances.contains(service)
+                         ? "Ignoring release of a pooled service instance that is not currently borrowed"
+                         : "Ignoring release of a service instance that was not created by this pool");
+            return;
+        }
+
+        if (this.shutdown)
+        {
+            this.discardInstance(service);
+        }
+        else
+        {
+            // Return the instance before releasing the permit, so that a borrower holding a permit always finds an idle
+            // instance once the pool has reached its maximum size
+            this.idleStripes[currentStripe() & this.stripeMask].push(service);
+        }
+
+        this.availablePermits.release();
+
+        // Shutdown may have drained the stripes before the instance was returned
+        if (this.shutdown)
+        {
+            this.drainIdleInstances();
+        }
+    }
+
+    @Override
+    public boolean ownsService(S service)
+    {
+        Objects.requireNonNull(service, "service cannot be null");
+
+        return this.pooledInstances.contains(service);
+    }
+
+    @Override
+    public boolean hasOutstandingServices()
+    {
+        return !this.borrowedInstances.isEmpty();
+    }
+
+    @Override
+    public void shutdown()
+    {
+        this.shutdown = true;
+        this.drainIdleInstances();
+        this.clearInitialization();
+    }
+
+    private S borrowInstance() throws ServiceException
+    {
+        S instance = this.takeIdleInstance();
+        while (instance == null)
+        {
+            int created = this.createdCount.get();
+            if (created < this.maxSize)
+            {
+                if (this.createdCount.compareAndSet(created, created + 1))
+                {
+                    return this.createPooledInstance();
+                }
+            }
+            else
+            {
+                // Holding a permit guarantees an idle instance.  It may still be in the middle of being returned
+                Thread.onSpinWait();
+            }
+
+            instance = this.takeIdleInstance();
+        }
+
+        return instance;
+    }
+
+    private S takeIdleInstance()
+    {
+        ConcurrentLinkedDeque<S>[] stripes = this.idleStripes;
+        int homeStripe = currentStripe();
+        for (int i = 0; i <= this.stripeMask; i++)
+        {
+            S instance = stripes[(homeStripe + i) & this.stripeMask].poll();
+            if (instance != null)
+            {
+                return instance;
+            }
+        }
+
+        return null;
+    }
+
+    private S createPooledInstance() throws ServiceException
+    {
+        try
+        {
+            S instance = this.createServiceInstance();
+            this.pooledInstances.add(instance);
+            return instance;
+        }
+        catch (ServiceException | RuntimeException | Error exception)
+        {
+            this.createdCount.decrementAndGet();
+            throw exception;
+        }
+    }
+
+    private void drainIdleInstances()
+    {
+        ConcurrentLinkedDeque<S>[] stripes = this.idleStripes;
+        if (stripes == null)
+        {
+            return;
+        }
+
+        for (ConcurrentLinkedDeque<S> nextStripe : stripes)
+        {
+            S nextInstance;
+            while ((nextInstance = nextStripe.poll()) != null)
+            {
+                this.discardInstance(nextInstance);
+            }
+        }
+    }
+
+    private void discardInstance(S instance)
+    {
+        if (this.pooledInstances.remove(instance))
+        {
+            this.createdCount.decrementAndGet();
+            this.destroyServiceInstance(instance);
+        }
+    }
+
+    private void setPoolSize(int minSize, int maxSize, long maxWaitNanos)
+    {
+        if ((minSize < 0) || (maxSize < 1) || (minSize > maxSize))
+        {
+            throw new IllegalArgumentException("Invalid pool size.  Expected 0 <= minSize <= maxSize and maxSize >= 1");
+        }
+        if (maxWaitNanos < 0)
+        {
+            throw new IllegalArgumentException("maxWait cannot be negative");
+        }
+
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    private static int currentStripe()
+    {
+        long threadId = Thread.currentThread().threadId();
+        return (int)(threadId ^ (threadId >>> 32));
+    }
+
+    private static long getLongProperty(ServiceConfiguration configuration, String name, long defaultValue)
+    {
+        if (!configuration.containsProperty(name))
+        {
+            return defaultValue;
+        }
+
+        Object value = configuration.getProperty(name);
+        if (value instanceof Number)
+        {
+            return ((Number)value).longValue();
+        }
+
+        try
+        {
+            return Long.parseLong(value.toString().trim());
+        }
+        catch (NumberFormatException exception)
+        {
+            throw new IllegalArgumentException("Property, " + name + ", must be a number", exception);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+
+/**
+ * A ServiceLifecycleController that creates one instance of a service per {@link ServiceScope}.  The instance is
+ * created on the first getService() within a scope and is stopped and destroyed when the scope is closed.  Unlike
+ * {@link ThreadConfinedServiceLifecycleController}, the number of live instances is bounded by the number of open
+ * scopes, not by the number of threads, which makes this controller suitable for virtual threads.
+ *
+ * getService() fails with an IllegalStateException if no scope is bound to the current thread.
+ */
+public class ScopedServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
+    extends BaseServiceLifecycleController<S, C>
+{
+    public ScopedServiceLifecycleController() {}
+
+    /**
+     * Create and initialize a controller.  Use this constructor to register the controller with
+     * ServiceManagerStrategyImpl.registerServiceByControllerOnly()
+     *
+     * @param instanceProvider creates the per-scope instances
+     * @param configuration the configuration passed to each instance
+     */
+    public ScopedServiceLifecycleController(ServiceInstanceProvider<S> instanceProvider, C configuration)
+    {
+        super(instanceProvider, configuration);
+    }
+
+    @Override
+    public S getService() throws ServiceException
+    {
+        ServiceScope scope = ServiceScope.current();
+        if (scope == null)
+        {
+            throw new IllegalStateException("Scoped services require a ServiceScope to be open on the current thread");
+        }
+
+        return scope.getInstance(this);
+    }
+
+    /**
+     * Instances belong to the scopes that use them, so there is nothing to create ahead of time
+     */
+    @Override
+    public void warmup() {}
+
+    /**
+     * Release the instance provider and configuration.  Instances in open scopes are destroyed when their scope closes
+     */
+    @Override
+    public void shutdown()
+    {
+        this.clearInitialization();
+    }
+
+    S createScopedInstance() throws ServiceException
+    {
+        return this.createServiceInstance();
+    }
+
+    void destroyScopedInstance(S instance)
+    {
+        this.destroyServiceInstance(instance);
+    }
+}
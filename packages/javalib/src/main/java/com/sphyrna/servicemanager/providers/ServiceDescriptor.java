@@ -0,0 +1,66 @@
+package com.sphyrna.servicemanager.providers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A service definition as read from a descriptor file by {@link ServiceDescriptorReader}, before its classes are
+ * resolved
+ */
+final class ServiceDescriptor
+{
+    private final String name;
+    private final String serviceClassName;
+    private final String controllerName;
+    private final Map<String, String> properties;
+    private final List<String> dependencies;
+    private final int lineNumber;
+
+    ServiceDescriptor(String name, String serviceClassName, String controllerName, Map<String, String> properties,
+                      List<String> dependencies, int lineNumber)
+    {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        this.serviceClassName = Objects.requireNonNull(serviceClassName, "serviceClassName cannot be null");
+        this.controllerName = Objects.requireNonNull(controllerName, "controllerName cannot be null");
+        this.properties = Objects.requireNonNull(properties, "properties cannot be null");
+        this.dependencies = Objects.requireNonNull(dependencies, "dependencies cannot be null");
+        this.lineNumber = lineNumber;
+    }
+
+    String getName()
+    {
+        return this.name;
+    }
+
+    String getServiceClassName()
+    {
+        return this.serviceClassName;
+    }
+
+    /**
+     * @return the fully qualified class name of the lifecycle controller or the name of a known controller
+     */
+    String getControllerName()
+    {
+        return this.controllerName;
+    }
+
+    Map<String, String> getProperties()
+    {
+        return this.properties;
+    }
+
+    List<String> getDependencies()
+    {
+        return this.dependencies;
+    }
+
+    /**
+     * @return the line of the descriptor file on which the service is declared
+     */
+    int getLineNumber()
+    {
+        return this.lineNumber;
+    }
+}
@@ -0,0 +1,197 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.InvalidServiceDefinitionException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reads service descriptors.  A descriptor file declares one section per service:
+ *
+ * <pre>
+ * # Comments start with '#'
+ * [orderService]
+ * class = com.example.OrderServiceImpl
+ * controller = SINGLETON
+ * dependsOn = database, cache
+ * property.timeoutMillis = 500
+ * </pre>
+ *
+ * class is required.  controller is either the name of a constant of {@link KnownServiceLifecycleControllers} or the
+ * fully qualified name of a ServiceLifecycleController class, and defaults to SINGLETON.  dependsOn is a comma
+ * separated list of service names, which may not include the service itself.  Each property.&lt;name&gt; entry
+ * becomes a property of the service configuration.
+ *
+ * The file is read a line at a time, so reading time and memory are linear in the size of the file
+ */
+final class ServiceDescriptorReader
+{
+    static final String CLASS_KEY = "class";
+    static final String CONTROLLER_KEY = "controller";
+    static final String DEPENDS_ON_KEY = "dependsOn";
+    static final String PROPERTY_KEY_PREFIX = "property.";
+    static final String DEFAULT_CONTROLLER_NAME = "SINGLETON";
+
+    private ServiceDescriptorReader() {}
+
+    /**
+     * Read all service descriptors
+     *
+     * @param descriptorReader the descriptor content.  It is not closed
+     * @param sourceName the name of the descriptor source, used in error messages
+     * @return the descriptors, in the order they are declared
+     * @throws InvalidServiceDefinitionException if the content is malformed, declares a service more than once or
+     *         declares a service that depends on itself
+     * @throws IOException if the content could not be read
+     */
+    static List<ServiceDescriptor> read(Reader descriptorReader, String sourceName)
+        throws InvalidServiceDefinitionException, IOException
+    {
+        Objects.requireNonNull(descriptorReader, "descriptorReader cannot be null");
+        Objects.requireNonNull(sourceName, "sourceName cannot be null");
+
+        BufferedReader bufferedReader = (descriptorReader instanceof BufferedReader)
+                                            ? (BufferedReader)descriptorReader
+                                            : new BufferedReader(descriptorReader);
+
+        List<ServiceDescriptor> descriptors = new ArrayList<ServiceDescriptor>();
+        Set<String> declaredNames = new HashSet<String>();
+        SectionBuilder currentSection = null;
+        int lineNumber = 0;
+        String nextLine;
+        while ((nextLine = bufferedReader.readLine()) != null)
+        {
+            lineNumber++;
+            String line = nextLine.strip();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+
+            if (line.startsWith("["))
+            {
+                String name = line.endsWith("]") ? line.substring(1, line.length() - 1).strip() : "";
+                if (name.isEmpty())
+                {
+                    throw invalidLine(sourceName, lineNumber, "Malformed service section, " + line);
+                }
+
+                if (currentSection != null)
+                {
+                    descriptors.add(currentSection.build(sourceName));
+                }
+
+                if (!declaredNames.add(name))
+                {
+                    throw invalidLine(sourceName, lineNumber, "Service with name, " + name + ", is declared twice");
+                }
+                currentSection = new SectionBuilder(name, lineNumber);
+                continue;
+            }
+
+            int separatorIndex = line.indexOf('=');
+            if (separatorIndex <= 0)
+            {
+                throw invalidLine(sourceName, lineNumber, "Expected key = value, found " + line);
+            }
+            if (currentSection == null)
+            {
+                throw invalidLine(sourceName, lineNumber, "Entry found before the first service section");
+            }
+
+            String key = line.substring(0, separatorIndex).strip();
+            String value = line.substring(separatorIndex + 1).strip();
+            currentSection.setEntry(sourceName, lineNumber, key, value);
+        }
+
+        if (currentSection != null)
+        {
+            descriptors.add(currentSection.build(sourceName));
+        }
+
+        return descriptors;
+    }
+
+    private static InvalidServiceDefinitionException invalidLine(String sourceName, int lineNumber, String message)
+    {
+        return new InvalidServiceDefinitionException(sourceName + ":" + lineNumber + ": " + message);
+    }
+
+    private static class SectionBuilder
+    {
+        private final String name;
+        private final int lineNumber;
+        private String serviceClassName;
+        private String controllerName = DEFAULT_CONTROLLER_NAME;
+        private Map<String, String> properties = Collections.emptyMap();
+        private List<String> dependencies = Collections.emptyList();
+
+        private SectionBuilder(String name, int lineNumber)
+        {
+            this.name = name;
+            this.lineNumber = lineNumber;
+        }
+
+        private void setEntry(String sourceName, int entryLineNumber, String key, String value)
+            throws InvalidServiceDefinitionException
+        {
+            if (key.startsWith(PROPERTY_KEY_PREFIX) && (key.length() > PROPERTY_KEY_PREFIX.length()))
+            {
+                if (this.properties.isEmpty())
+                {
+                    this.properties = new HashMap<String, String>();
+                }
+                this.properties.put(key.substring(PROPERTY_KEY_PREFIX.length()), value);
+            }
+            else if (key.equals(CLASS_KEY))
+            {
+                this.serviceClassName = value;
+            }
+            else if (key.equals(CONTROLLER_KEY))
+            {
+                this.controllerName = value;
+            }
+            else if (key.equals(DEPENDS_ON_KEY))
+            {
+                this.dependencies = new ArrayList<String>();
+                for (String nextDependency : value.split(","))
+                {
+                    String dependency = nextDependency.strip();
+                    if (dependency.equals(this.name))
+                    {
+                        throw invalidLine(sourceName, entryLineNumber,
+                                          "Service with name, " + this.name + ", depends on itself");
+                    }
+                    if (!dependency.isEmpty())
+                    {
+                        this.dependencies.add(dependency);
+                    }
+                }
+            }
+            else
+            {
+                throw invalidLine(sourceName, entryLineNumber, "Unknown key, " + key);
+            }
+        }
+
+        private ServiceDescriptor build(String sourceName) throws InvalidServiceDefinitionException
+        {
+            if ((this.serviceClassName == null) || this.serviceClassName.isEmpty())
+            {
+                throw invalidLine(sourceName, this.lineNumber,
+                                  "Service with name, " + this.name + ", does not specify a " + CLASS_KEY);
+            }
+
+            return new ServiceDescriptor(this.name, this.serviceClassName, this.controllerName, this.properties,
+                                         this.dependencies, this.lineNumber);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceLifecycleReport;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps the services of a ServiceManagerStrategyImpl in line with a descriptor file.  See
+ * {@link ServiceDescriptorReader} for the file format.
+ *
+ * When started, the watcher loads the descriptor and then watches its directory with a WatchService.  Each time the
+ * file changes, it is compiled into a new set of services, which replace the services of the strategy through
+ * {@link ServiceManagerStrategyImpl#replaceServices(ServiceManagerStrategyImpl, Duration)}.  Lookups continue to be
+ * served by the current services while the replacements are compiled and started, and the replaced services are shut
+ * down once the drain timeout has elapsed.  A descriptor that can not be compiled, or whose services fail to start, is
+ * logged and leaves the current services in place.
+ *
+ * The strategy should be used only through this watcher: services registered with it directly are removed by the next
+ * reload.
+ */
+public class ServiceDescriptorWatcher implements AutoCloseable
+{
+    private static final Log LOG = LogFactory.getLog(ServiceDescriptorWatcher.class.getName());
+
+    // Editors often write a file in several steps.  Wait for changes to settle before reloading
+    private static final Duration SETTLE_DELAY = Duration.ofMillis(100);
+
+    private final ServiceManagerStrategyImpl serviceManagerStrategy;
+    private final Path descriptorPath;
+    private final ClassLoader classLoader;
+    private final Duration drainTimeout;
+
+    // Created in start()
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * Create a watcher that drains replaced services for ServiceManagerStrategyImpl.DEFAULT_DRAIN_TIMEOUT
+     *
+     * @param serviceManagerStrategy the strategy whose services are defined by the descriptor
+     * @param descriptorPath the path of the descriptor file
+     * @param classLoader resolves the classes named in the descriptor
+     */
+    public ServiceDescriptorWatcher(ServiceManagerStrategyImpl serviceManagerStrategy, Path descriptorPath,
+                                    ClassLoader classLoader)
+    {
+        this(serviceManagerStrategy, descriptorPath, classLoader, ServiceManagerStrategyImpl.DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    /**
+     * Create a watcher
+     *
+     * @param serviceManagerStrategy the strategy whose services are defined by the descriptor
+     * @param descriptorPath the path of the descriptor file
+     * @param classLoader resolves the classes named in the descriptor
+     * @param drainTimeout the time to wait before shutting down replaced services
+     */
+    public ServiceDescriptorWatcher(ServiceManagerStrategyImpl serviceManagerStrategy, Path descriptorPath,
+                                    ClassLoader classLoader, Duration drainTimeout)
+    {
+        this.serviceManagerStrategy =
+            Objects.requireNonNull(serviceManagerStrategy, "serviceManagerStrategy cannot be null");
+        this.descriptorPath =
+            Objects.requireNonNull(descriptorPath, "descriptorPath cannot be null").toAbsolutePath().normalize();
+        this.classLoader = Objects.requireNonNull(classLoader, "classLoader cannot be null");
+        this.drainTimeout = Objects.requireNonNull(drainTimeout, "drainTimeout cannot be null");
+    }
+
+    /**
+     * Load the descriptor and start watching it for changes
+     *
+     * @throws ServiceException if the descriptor could not be loaded or watched, or one of its services failed to start
+     * @throws IllegalStateException if the watcher has already been started
+     */
+    public synchronized void start() throws ServiceException
+    {
+        if (this.watchService != null)
+        {
+            throw new IllegalStateException("Watcher for " + this.descriptorPath + " has already been started");
+        }
+
+        // Register before loading so that a change made while loading is not missed
+        WatchService newWatchService;
+        try
+        {
+            newWatchService = FileSystems.getDefault().newWatchService();
+            this.descriptorPath.getParent().register(newWatchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                                     StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        catch (IOException exception)
+        {
+            throw new ServiceException("Failed to watch service descriptor, " + this.descriptorPath, exception);
+        }
+
+        try
+        {
+            ServiceLifecycleReport startReport = this.reload();
+            if (!startReport.isSuccessful())
+            {
+                throw new ServiceException("Failed to start services " + startReport.getServiceFailures().keySet() +
+                                           " of service descriptor, " + this.descriptorPath);
+            }
+        }
+        catch (ServiceException | RuntimeException exception)
+        {
+            closeWatchService(newWatchService);
+            throw exception;
+        }
+
+        this.watchService = newWatchService;
+        this.watchThread = Thread.ofPlatform()
+                               .daemon()
+                               .name("service-descriptor-watcher")
+                               .start(() -> this.watch(newWatchService));
+    }
+
+    /**
+     * Load the descriptor now and replace the services of the strategy with its services
+     *
+     * @return the start report of the replacement services.  The services were replaced if it is successful
+     * @throws ServiceException if the descriptor could not be read or defines an invalid service
+     */
+    public ServiceLifecycleReport reload() throws ServiceException
+    {
+        ServiceManagerStrategyImpl replacementStrategy = ConfigServiceManagerStrategy.compile(
+            ConfigServiceManagerStrategy.readDescriptors(this.descriptorPath), this.classLoader,
+            this.descriptorPath.toString());
+
+        return this.serviceManagerStrategy.replaceServices(replacementStrategy, this.drainTimeout);
+    }
+
+    /**
+     * Stop watching the descriptor.  The services of the strategy are left in place.  The watcher may be started again
+     */
+    @Override
+    public void close()
+    {
+        Thread stoppedWatchThread;
+        synchronized (this)
+        {
+            if (this.watchService == null)
+            {
+                return;
+            }
+
+            closeWatchService(this.watchService);
+            stoppedWatchThread = this.watchThread;
+
+            // Allows a second close() to return immediately and start() to watch again
+            this.watchService = null;
+            this.watchThread = null;
+        }
+
+        try
+        {
+            stoppedWatchThread.join();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch(WatchService activeWatchService)
+    {
+        try
+        {
+            while (true)
+            {
+                WatchKey watchKey = activeWatchService.take();
+                boolean changed = this.pollChanged(watchKey);
+                while (changed)
+                {
+                    // Absorb the rest of a burst of changes, then reload once
+                    WatchKey nextWatchKey = activeWatchService.poll(SETTLE_DELAY.toNanos(), TimeUnit.NANOSECONDS);
+                    if (nextWatchKey == null)
+                    {
+                        this.reloadChanged();
+                        changed = false;
+                    }
+                    else
+                    {
+                        this.pollChanged(nextWatchKey);
+                    }
+                }
+            }
+        }
+        catch (ClosedWatchServiceException exception)
+        {
+            // Closed by close()
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean pollChanged(WatchKey watchKey)
+    {
+        boolean changed = false;
+        for (WatchEvent<?> nextEvent : watchKey.pollEvents())
+        {
+            changed |= (nextEvent.kind() == StandardWatchEventKinds.OVERFLOW) ||
+                       this.descriptorPath.getFileName().equals(nextEvent.context());
+        }
+        watchKey.reset();
+
+        return changed;
+    }
+
+    private void reloadChanged()
+    {
+        try
+        {
+            ServiceLifecycleReport startReport = this.reload();
+            if (startReport.isSuccessful())
+            {
+                LOG.info("Reloaded services of service descriptor, " + this.descriptorPath);
+            }
+        }
+        catch (ServiceException | RuntimeException exception)
+        {
+            LOG.error("Failed to reload service descriptor, " + this.descriptorPath + ".  Keeping current services",
+                      exception);
+        }
+    }
+
+    private static void closeWatchService(WatchService watchService)
+    {
+        try
+        {
+            watchService.close();
+        }
+        catch (IOException exception)
+        {
+            LOG.warn("Failed to close service descriptor watch service", exception);
+        }
+    }
+}
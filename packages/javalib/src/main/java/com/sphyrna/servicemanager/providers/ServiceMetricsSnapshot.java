@@ -0,0 +1,161 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.ServiceLifecyclePhase;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A point in time copy of the metrics recorded for a service by {@link StripedServiceMetrics}
+ */
+public final class ServiceMetricsSnapshot
+{
+    static final int BUCKET_COUNT = Long.SIZE + 1;
+
+    private final String serviceName;
+    private final long lookupCount;
+    private final long lookupMissCount;
+    private final Map<ServiceLifecyclePhase, LatencySnapshot> lifecycleSnapshots;
+
+    ServiceMetricsSnapshot(String serviceName, long lookupCount, long lookupMissCount,
+                           Map<ServiceLifecyclePhase, LatencySnapshot> lifecycleSnapshots)
+    {
+        this.serviceName = Objects.requireNonNull(serviceName, "serviceName cannot be null");
+        this.lookupCount = lookupCount;
+        this.lookupMissCount = lookupMissCount;
+        Objects.requireNonNull(lifecycleSnapshots, "lifecycleSnapshots cannot be null");
+
+        this.lifecycleSnapshots = Collections.unmodifiableMap(lifecycleSnapshots);
+    }
+
+    public String getServiceName()
+    {
+        return this.serviceName;
+    }
+
+    /**
+     * @return the number of successful lookups of the service
+     */
+    public long getLookupCount()
+    {
+        return this.lookupCount;
+    }
+
+    /**
+     * @return the number of lookups that failed because the service was not defined
+     */
+    public long getLookupMissCount()
+    {
+        return this.lookupMissCount;
+    }
+
+    /**
+     * Retrieve the durations recorded for a lifecycle phase
+     *
+     * @param phase the lifecycle phase
+     * @return the durations of the phase
+     */
+    public LatencySnapshot getLifecycleSnapshot(ServiceLifecyclePhase phase)
+    {
+        Objects.requireNonNull(phase, "phase cannot be null");
+
+        return this.lifecycleSnapshots.get(phase);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ServiceMetricsSnapshot[serviceName=" + this.serviceName + ", lookupCount=" + this.lookupCount +
+            ", lookupMissCount=" + this.lookupMissCount + ", lifecycle=" + this.lifecycleSnapshots + "]";
+    }
+
+    /**
+     * A histogram of durations.  Bucket i counts durations in [2^(i-1), 2^i) nanoseconds, bucket 0 counts durations of
+     * 0, so percentiles are accurate to within a factor of two
+     */
+    public static final class LatencySnapshot
+    {
+        private final long[] bucketCounts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        LatencySnapshot(long[] bucketCounts, long totalNanos, long maxNanos)
+        {
+            this.bucketCounts = Objects.requireNonNull(bucketCounts, "bucketCounts cannot be null");
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+
+            long bucketTotal = 0;
+            for (long nextBucketCount : bucketCounts)
+            {
+                bucketTotal += nextBucketCount;
+            }
+            this.count = bucketTotal;
+        }
+
+        public long getCount()
+        {
+            return this.count;
+        }
+
+        public long getTotalNanos()
+        {
+            return this.totalNanos;
+        }
+
+        public long getMaxNanos()
+        {
+            return this.maxNanos;
+        }
+
+        public long getMeanNanos()
+        {
+            return (this.count == 0) ? 0 : (this.totalNanos / this.count);
+        }
+
+        /**
+         * Estimate a percentile of the durations
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the upper bound of the bucket that contains the percentile, capped at the maximum duration, or 0 if
+         *     no duration was recorded
+         */
+        public long getPercentileNanos(double percentile)
+        {
+            if ((percentile < 0) || (percentile > 100))
+            {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+
+            long rank = (long)Math.ceil((percentile / 100) * this.count);
+            long cumulativeCount = 0;
+            for (int i = 0; i < this.bucketCounts.length; i++)
+            {
+                cumulativeCount += this.bucketCounts[i];
+                if ((cumulativeCount >= rank) && (cumulativeCount > 0))
+                {
+                    long bucketUpperBound = (i >= Long.SIZE - 1) ? Long.MAX_VALUE : ((1L << i) - 1);
+                    return Math.min(bucketUpperBound, this.maxNanos);
+                }
+            }
+
+            return 0;
+        }
+
+        /**
+         * @return a copy of the bucket counts
+         */
+        public long[] getBucketCounts()
+        {
+            return this.bucketCounts.clone();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "LatencySnapshot[count=" + this.count + ", meanNanos=" + this.getMeanNanos() + ", p99Nanos=" +
+                this.getPercentileNanos(99) + ", maxNanos=" + this.maxNanos + "]";
+        }
+    }
+}
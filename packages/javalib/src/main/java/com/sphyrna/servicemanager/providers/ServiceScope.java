@@ -0,0 +1,211 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A scope that bounds the lifetime of the instances created by {@link ScopedServiceLifecycleController}.  Each scope
+ * holds at most one instance per controller.  Instances are created on first use within the scope and are stopped and
+ * destroyed, in reverse order of creation, when the scope is closed.
+ *
+ * A scope is bound to the thread that opened it until it is closed.  It is intended to be used with
+ * try-with-resources:
+ *
+ * <pre>
+ * try (ServiceScope scope = ServiceScope.open())
+ * {
+ *     MyService service = ServiceManager.getService("myScopedService");
+ *     ...
+ * }
+ * </pre>
+ *
+ * Work forked from within a scope, e.g. the subtasks of a structured concurrency scope, can share its instances by
+ * running under {@link #call(Callable)} or {@link #run(Runnable)}.  Instances shared that way must be thread safe.
+ *
+ * Only a single reference is attached to a thread, and only while a scope is bound to it, so the cost does not grow
+ * with the number of (virtual) threads that have ever used a service.
+ */
+public final class ServiceScope implements AutoCloseable
+{
+    private static final Log LOG = LogFactory.getLog(ServiceScope.class.getName());
+
+    private static final ThreadLocal<ServiceScope> CURRENT_SCOPE = new ThreadLocal<ServiceScope>();
+
+    private final Map<ScopedServiceLifecycleController<?, ?>, Service<?>> scopedInstances =
+        new ConcurrentHashMap<ScopedServiceLifecycleController<?, ?>, Service<?>>();
+    private final List<Runnable> destroyActions = new ArrayList<Runnable>();
+    private final ServiceScope enclosingScope;
+    private final Thread owner;
+    private boolean closed;
+
+    private ServiceScope(ServiceScope enclosingScope)
+    {
+        this.enclosingScope = enclosingScope;
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * Open a new scope and bind it to the current thread.  The scope must be closed by the same thread
+     *
+     * @return the new scope
+     */
+    public static ServiceScope open()
+    {
+        ServiceScope scope = new ServiceScope(CURRENT_SCOPE.get());
+        CURRENT_SCOPE.set(scope);
+
+        return scope;
+    }
+
+    /**
+     * Retrieve the scope bound to the current thread
+     *
+     * @return the current scope or null if no scope is bound to the current thread
+     */
+    public static ServiceScope current()
+    {
+        return CURRENT_SCOPE.get();
+    }
+
+    /**
+     * Run an action with this scope bound to the current thread
+     *
+     * @param action the action to run
+     */
+    public void run(Runnable action)
+    {
+        Objects.requireNonNull(action, "action cannot be null");
+
+        ServiceScope previousScope = this.bind();
+        try
+        {
+            action.run();
+        }
+        finally
+        {
+            restore(previousScope);
+        }
+    }
+
+    /**
+     * Call an action with this scope bound to the current thread
+     *
+     * @param action the action to call
+     * @return the result of the action
+     */
+    public <T> T call(Callable<T> action) throws Exception
+    {
+        Objects.requireNonNull(action, "action cannot be null");
+
+        ServiceScope previousScope = this.bind();
+        try
+        {
+            return action.call();
+        }
+        finally
+        {
+            restore(previousScope);
+        }
+    }
+
+    /**
+     * Close the scope.  Restores the enclosing scope on the current thread and destroys every instance created within
+     * this scope
+     */
+    @Override
+    public void close()
+    {
+        if (Thread.currentThread() != this.owner)
+        {
+            throw new IllegalStateException("A ServiceScope must be closed by the thread that opened it");
+        }
+
+        restore(this.enclosingScope);
+
+        List<Runnable> actionsToRun;
+        synchronized (this)
+        {
+            if (this.closed)
+            {
+                return;
+            }
+            this.closed = true;
+            actionsToRun = new ArrayList<Runnable>(this.destroyActions);
+            this.destroyActions.clear();
+        }
+
+        for (int i = actionsToRun.size() - 1; i >= 0; i--)
+        {
+            try
+            {
+                actionsToRun.get(i).run();
+            }
+            catch (Throwable throwable)
+            {
+                LOG.error("Failed to destroy scoped service instance", throwable);
+            }
+        }
+        this.scopedInstances.clear();
+    }
+
+    <S extends Service<C>, C extends ServiceConfiguration> S
+    getInstance(ScopedServiceLifecycleController<S, C> controller) throws ServiceException
+    {
+        S instance = (S)this.scopedInstances.get(controller);
+        if (instance == null)
+        {
+            instance = this.createInstance(controller);
+        }
+
+        return instance;
+    }
+
+    private synchronized <S extends Service<C>, C extends ServiceConfiguration> S
+    createInstance(ScopedServiceLifecycleController<S, C> controller) throws ServiceException
+    {
+        if (this.closed)
+        {
+            throw new IllegalStateException("ServiceScope has been closed");
+        }
+
+        S instance = (S)this.scopedInstances.get(controller);
+        if (instance == null)
+        {
+            S createdInstance = controller.createScopedInstance();
+            this.destroyActions.add(() -> controller.destroyScopedInstance(createdInstance));
+            this.scopedInstances.put(controller, createdInstance);
+            instance = createdInstance;
+        }
+
+        return instance;
+    }
+
+    private ServiceScope bind()
+    {
+        ServiceScope previousScope = CURRENT_SCOPE.get();
+        CURRENT_SCOPE.set(this);
+
+        return previousScope;
+    }
+
+    private static void restore(ServiceScope previousScope)
+    {
+        if (previousScope == null)
+        {
+            CURRENT_SCOPE.remove();
+        }
+        else
+        {
+            CURRENT_SCOPE.set(previousScope);
+        }
+    }
+}
@@ -3,56 +3,105 @@ package com.sphyrna.servicemanager.providers;
 import com.sphyrna.servicemanager.Service;
 import com.sphyrna.servicemanager.ServiceConfiguration;
 import com.sphyrna.servicemanager.ServiceException;
-import com.sphyrna.servicemanager.ServiceInstanceProvider;
-import com.sphyrna.servicemanager.ServiceLifecycleController;
-import java.util.Objects;
+import com.sphyrna.servicemanager.jfr.ServiceStartedEvent;
+import com.sphyrna.servicemanager.jfr.ServiceStoppedEvent;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
+/**
+ * A ServiceLifecycleController that creates, initializes and starts a single instance of a service on first use
+ *
+ * This controller is thread safe.  Once the instance has been published, getService() is a single acquire read with no
+ * locking or allocation.  Creation and shutdown are serialized, so concurrent callers never receive a second instance
+ * or an instance that is being stopped.
+ *
+ * The creation and destruction of the instance are emitted as the Java Flight Recorder events ServiceStartedEvent and
+ * ServiceStoppedEvent, which are disabled by default.
+ */
 public class SingletonServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
-    implements ServiceLifecycleController<S, C>
+    extends BaseServiceLifecycleController<S, C>
 {
-    private ServiceInstanceProvider<S> serviceInstanceProvider;
-    private C serviceConfiguration;
-    private S singletonInstance;
+    private static final VarHandle SINGLETON_INSTANCE;
 
-    @Override
-    public void init(ServiceInstanceProvider<S> instanceProvider, C configuration) throws ServiceException
+    static
     {
-        this.serviceInstanceProvider = Objects.requireNonNull(instanceProvider, "instanceProvider cannot be null");
-        this.serviceConfiguration = Objects.requireNonNull(configuration, "configuration cannot be null");
+        try
+        {
+            SINGLETON_INSTANCE = MethodHandles.lookup().findVarHandle(SingletonServiceLifecycleController.class,
+                                                                      "singletonInstance", Service.class);
+        }
+        catch (NoSuchFieldException | IllegalAccessException exception)
+        {
+            throw new ExceptionInInitializerError(exception);
+        }
     }
 
+    // Written while holding this with release semantics.  Read with acquire semantics through SINGLETON_INSTANCE
+    private S singletonInstance;
+
     @Override
     public S getService() throws ServiceException
     {
-        // FIXME - Not Thread Safe
-        if (this.singletonInstance == null)
+        S instance = (S)SINGLETON_INSTANCE.getAcquire(this);
+        if (instance == null)
         {
-            if (this.serviceInstanceProvider == null)
-            {
-                throw new IllegalStateException("Unexpected state. ServiceInstanceProvider not set");
-            }
-
-            this.singletonInstance = this.serviceInstanceProvider.createServiceInstance();
-            this.singletonInstance.init(this.serviceConfiguration);
-            this.singletonInstance.start();
+            instance = this.createSingletonInstance();
         }
 
-        return this.singletonInstance;
+        return instance;
+    }
+
+    @Override
+    public boolean isInstanceShared()
+    {
+        return true;
     }
 
     @Override
     public void shutdown()
     {
-        // FIXME - Is there a bettter option than setting instance variables to null?
+        S instanceToShutdown;
+        synchronized (this)
+        {
+            // Unpublish the instance before stopping it so that no caller can obtain it once it is being destroyed
+            instanceToShutdown = this.singletonInstance;
+            SINGLETON_INSTANCE.setRelease(this, null);
+
+            this.clearInitialization();
+        }
+
+        if (instanceToShutdown != null)
+        {
+            ServiceStoppedEvent stoppedEvent = new ServiceStoppedEvent();
+            stoppedEvent.begin();
+            this.destroyServiceInstance(instanceToShutdown);
+            stoppedEvent.end();
+            if (stoppedEvent.shouldCommit())
+            {
+                stoppedEvent.serviceClass = instanceToShutdown.getClass().getName();
+                stoppedEvent.commit();
+            }
+        }
+    }
 
-        if (this.singletonInstance != null)
+    private synchronized S createSingletonInstance() throws ServiceException
+    {
+        S instance = this.singletonInstance;
+        if (instance == null)
         {
-            this.singletonInstance.stop();
-            this.singletonInstance.destroy();
-            this.singletonInstance = null;
+            ServiceStartedEvent startedEvent = new ServiceStartedEvent();
+            startedEvent.begin();
+            instance = this.createServiceInstance();
+            startedEvent.end();
+            if (startedEvent.shouldCommit())
+            {
+                startedEvent.serviceClass = instance.getClass().getName();
+                startedEvent.commit();
+            }
+
+            SINGLETON_INSTANCE.setRelease(this, instance);
         }
 
-        this.serviceConfiguration = null;
-        this.serviceInstanceProvider = null;
+        return instance;
     }
 }
@@ -0,0 +1,223 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.jfr.ServiceStartedEvent;
+import com.sphyrna.servicemanager.jfr.ServiceStoppedEvent;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A ServiceLifecycleController that keeps a fixed number of instances of a service, called stripes, and hands each
+ * caller the stripe assigned to its thread.  Intended for thread safe services that serialize callers internally, such
+ * as services with synchronized methods.  Where a singleton would make every caller contend for one lock, the callers
+ * of a striped service are spread over as many locks as there are stripes.
+ *
+ * Each thread is assigned a stripe index on its first use of any striped controller, taken round robin from a shared
+ * counter, so a thread always receives the same instance and threads are spread over the stripes in the order they
+ * first call getService(), whatever their ids.  Virtual threads are assigned an index of their own in the same way.
+ * Instances are shared between the threads assigned to a stripe and are not released by callers.
+ *
+ * All stripes are created, initialized and started together on first use, or by warmup() when services are started
+ * eagerly, and are stopped and destroyed together by shutdown().  If a stripe fails to start, the stripes already
+ * started are stopped and destroyed.  Once the stripes have been published, getService() is a single acquire read with
+ * no locking.
+ *
+ * The number of stripes defaults to the number of available processors.  It can be set through the constructor or
+ * through the service configuration property {@link #STRIPE_COUNT_PROPERTY}.  The configuration property takes
+ * precedence.
+ */
+public class StripedServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
+    extends BaseServiceLifecycleController<S, C>
+{
+    public static final String STRIPE_COUNT_PROPERTY = "striped.stripeCount";
+
+    private static final Log LOG = LogFactory.getLog(StripedServiceLifecycleController.class.getName());
+
+    private static final int DEFAULT_STRIPE_COUNT = Runtime.getRuntime().availableProcessors();
+
+    // The next stripe index to assign.  Indexes wrap on overflow and are reduced modulo the stripe count on use
+    private static final AtomicInteger NEXT_STRIPE_INDEX = new AtomicInteger();
+
+    private static final ThreadLocal<Integer> THREAD_STRIPE_INDEX =
+        ThreadLocal.withInitial(() -> NEXT_STRIPE_INDEX.getAndIncrement() & Integer.MAX_VALUE);
+
+    private static final VarHandle STRIPE_INSTANCES;
+
+    static
+    {
+        try
+        {
+            STRIPE_INSTANCES = MethodHandles.lookup().findVarHandle(StripedServiceLifecycleController.class,
+                                                                    "stripeInstances", Service[].class);
+        }
+        catch (NoSuchFieldException | IllegalAccessException exception)
+        {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+
+    private int stripeCount;
+
+    // Written while holding this with release semantics.  Read with acquire semantics through STRIPE_INSTANCES
+    private Service[] stripeInstances;
+
+    /**
+     * Create a controller with one stripe per available processor
+     */
+    public StripedServiceLifecycleController()
+    {
+        this(DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Create a controller
+     *
+     * @param stripeCount the number of instances
+     */
+    public StripedServiceLifecycleController(int stripeCount)
+    {
+        this.setStripeCount(stripeCount);
+    }
+
+    @Override
+    public void init(ServiceInstanceProvider<S> instanceProvider, C configuration) throws ServiceException
+    {
+        Objects.requireNonNull(instanceProvider, "instanceProvider cannot be null");
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+
+        super.init(instanceProvider, configuration);
+
+        if (configuration.containsProperty(STRIPE_COUNT_PROPERTY))
+        {
+            Object value = configuration.getProperty(STRIPE_COUNT_PROPERTY);
+            try
+            {
+                this.setStripeCount((value instanceof Number) ? ((Number)value).intValue()
+                                                              : Integer.parseInt(value.toString().trim()));
+            }
+            catch (NumberFormatException exception)
+            {
+                throw new IllegalArgumentException("Property, " + STRIPE_COUNT_PROPERTY + ", must be a number",
+                                                   exception);
+            }
+        }
+    }
+
+    @Override
+    public S getService() throws ServiceException
+    {
+        Service[] instances = (Service[])STRIPE_INSTANCES.getAcquire(this);
+        if (instances == null)
+        {
+            instances = this.createStripeInstances();
+        }
+
+        return (S)instances[THREAD_STRIPE_INDEX.get() % instances.length];
+    }
+
+    @Override
+    public void shutdown()
+    {
+        Service[] instancesToShutdown;
+        synchronized (this)
+        {
+            // Unpublish the stripes before stopping them so that no caller can obtain one once they are being destroyed
+            instancesToShutdown = this.stripeInstances;
+            STRIPE_INSTANCES.setRelease(this, null);
+
+            this.clearInitialization();
+        }
+
+        if (instancesToShutdown != null)
+        {
+            this.destroyStripeInstances(instancesToShutdown, instancesToShutdown.length);
+        }
+    }
+
+    /**
+     * Retrieve the number of stripes
+     *
+     * @return the number of instances kept by this controller
+     */
+    public int getStripeCount()
+    {
+        return this.stripeCount;
+    }
+
+    private void setStripeCount(int stripeCount)
+    {
+        if (stripeCount < 1)
+        {
+            throw new IllegalArgumentException("stripeCount must be greater than 0");
+        }
+
+        this.stripeCount = stripeCount;
+    }
+
+    private synchronized Service[] createStripeInstances() throws ServiceException
+    {
+        Service[] instances = this.stripeInstances;
+        if (instances == null)
+        {
+            instances = new Service[this.stripeCount];
+            int startedCount = 0;
+            try
+            {
+                while (startedCount < instances.length)
+                {
+                    ServiceStartedEvent startedEvent = new ServiceStartedEvent();
+                    startedEvent.begin();
+                    instances[startedCount] = this.createServiceInstance();
+                    startedEvent.end();
+                    if (startedEvent.shouldCommit())
+                    {
+                        startedEvent.serviceClass = instances[startedCount].getClass().getName();
+                        startedEvent.commit();
+                    }
+                    startedCount++;
+                }
+            }
+            catch (ServiceException | RuntimeException | Error exception)
+            {
+                this.destroyStripeInstances(instances, startedCount);
+                throw exception;
+            }
+
+            STRIPE_INSTANCES.setRelease(this, instances);
+        }
+
+        return instances;
+    }
+
+    private void destroyStripeInstances(Service[] instances, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            S nextInstance = (S)instances[i];
+            ServiceStoppedEvent stoppedEvent = new ServiceStoppedEvent();
+            stoppedEvent.begin();
+            try
+            {
+                this.destroyServiceInstance(nextInstance);
+            }
+            catch (RuntimeException exception)
+            {
+                LOG.warn("Failed to destroy stripe " + i + " of service, " + nextInstance.getClass().getName(),
+                         exception);
+            }
+            stoppedEvent.end();
+            if (stoppedEvent.shouldCommit())
+            {
+                stoppedEvent.serviceClass = nextInstance.getClass().getName();
+                stoppedEvent.commit();
+            }
+        }
+    }
+}
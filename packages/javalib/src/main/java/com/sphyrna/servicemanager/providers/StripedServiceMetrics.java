@@ -0,0 +1,177 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.ServiceLifecyclePhase;
+import com.sphyrna.servicemanager.ServiceMetrics;
+import com.sphyrna.servicemanager.ServiceMetricsRecorder;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-memory implementation of {@link ServiceMetrics}.  Lookups are counted with striped counters, so recording a
+ * lookup does not contend across threads and does not allocate once the counters have expanded.  Lifecycle durations
+ * are recorded in histograms with power of two buckets.
+ *
+ * Use {@link #snapshot()} to scrape the current values.
+ */
+public class StripedServiceMetrics implements ServiceMetrics
+{
+    private final Map<String, StripedServiceMetricsRecorder> serviceRecorders =
+        new ConcurrentHashMap<String, StripedServiceMetricsRecorder>();
+
+    @Override
+    public ServiceMetricsRecorder getRecorder(String serviceName)
+    {
+        Objects.requireNonNull(serviceName, "serviceName cannot be null");
+
+        return this.serviceRecorders.computeIfAbsent(serviceName, name -> new StripedServiceMetricsRecorder(name));
+    }
+
+    /**
+     * Retrieve a snapshot of the metrics of every service that has been recorded
+     *
+     * @return the snapshots, keyed and sorted by service name
+     */
+    public Map<String, ServiceMetricsSnapshot> snapshot()
+    {
+        Map<String, ServiceMetricsSnapshot> snapshots = new TreeMap<String, ServiceMetricsSnapshot>();
+        for (StripedServiceMetricsRecorder nextRecorder : this.serviceRecorders.values())
+        {
+            snapshots.put(nextRecorder.serviceName, nextRecorder.snapshot());
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * Retrieve a snapshot of the metrics of a service
+     *
+     * @param serviceName the name of the service
+     * @return the snapshot or null if nothing has been recorded for the service
+     */
+    public ServiceMetricsSnapshot snapshot(String serviceName)
+    {
+        Objects.requireNonNull(serviceName, "serviceName cannot be null");
+
+        StripedServiceMetricsRecorder recorder = this.serviceRecorders.get(serviceName);
+        return (recorder != null) ? recorder.snapshot() : null;
+    }
+
+    /**
+     * Discard all recorded metrics
+     */
+    public void reset()
+    {
+        for (StripedServiceMetricsRecorder nextRecorder : this.serviceRecorders.values())
+        {
+            nextRecorder.reset();
+        }
+    }
+
+    private static class StripedServiceMetricsRecorder implements ServiceMetricsRecorder
+    {
+        private static final ServiceLifecyclePhase[] PHASES = ServiceLifecyclePhase.values();
+
+        private final String serviceName;
+        private final LongAdder lookupCount = new LongAdder();
+        private final LongAdder lookupMissCount = new LongAdder();
+        private final LatencyHistogram[] lifecycleHistograms = new LatencyHistogram[PHASES.length];
+
+        private StripedServiceMetricsRecorder(String serviceName)
+        {
+            this.serviceName = serviceName;
+            for (int i = 0; i < PHASES.length; i++)
+            {
+                this.lifecycleHistograms[i] = new LatencyHistogram();
+            }
+        }
+
+        @Override
+        public void recordLookup()
+        {
+            this.lookupCount.increment();
+        }
+
+        @Override
+        public void recordLookupMiss()
+        {
+            this.lookupMissCount.increment();
+        }
+
+        @Override
+        public void recordLifecycleDuration(ServiceLifecyclePhase phase, long durationNanos)
+        {
+            Objects.requireNonNull(phase, "phase cannot be null");
+
+            this.lifecycleHistograms[phase.ordinal()].record(durationNanos);
+        }
+
+        private ServiceMetricsSnapshot snapshot()
+        {
+            Map<ServiceLifecyclePhase, ServiceMetricsSnapshot.LatencySnapshot> lifecycleSnapshots =
+                new EnumMap<ServiceLifecyclePhase, ServiceMetricsSnapshot.LatencySnapshot>(ServiceLifecyclePhase.class);
+            for (ServiceLifecyclePhase nextPhase : PHASES)
+            {
+                lifecycleSnapshots.put(nextPhase, this.lifecycleHistograms[nextPhase.ordinal()].snapshot());
+            }
+
+            return new ServiceMetricsSnapshot(this.serviceName, this.lookupCount.sum(), this.lookupMissCount.sum(),
+                                              lifecycleSnapshots);
+        }
+
+        private void reset()
+        {
+            this.lookupCount.reset();
+            this.lookupMissCount.reset();
+            for (LatencyHistogram nextHistogram : this.lifecycleHistograms)
+            {
+                nextHistogram.reset();
+            }
+        }
+    }
+
+    /**
+     * Bucket i counts durations in [2^(i-1), 2^i) nanoseconds.  Bucket 0 counts durations of 0
+     */
+    private static class LatencyHistogram
+    {
+        private final AtomicLongArray bucketCounts = new AtomicLongArray(ServiceMetricsSnapshot.BUCKET_COUNT);
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long durationNanos)
+        {
+            long boundedDurationNanos = Math.max(0, durationNanos);
+            this.bucketCounts.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(boundedDurationNanos));
+            this.totalNanos.add(boundedDurationNanos);
+            this.maxNanos.accumulate(boundedDurationNanos);
+        }
+
+        private ServiceMetricsSnapshot.LatencySnapshot snapshot()
+        {
+            long[] bucketCountsSnapshot = new long[ServiceMetricsSnapshot.BUCKET_COUNT];
+            for (int i = 0; i < bucketCountsSnapshot.length; i++)
+            {
+                bucketCountsSnapshot[i] = this.bucketCounts.get(i);
+            }
+
+            return new ServiceMetricsSnapshot.LatencySnapshot(bucketCountsSnapshot, this.totalNanos.sum(),
+                                                              this.maxNanos.get());
+        }
+
+        private void reset()
+        {
+            for (int i = 0; i < this.bucketCounts.length(); i++)
+            {
+                this.bucketCounts.set(i, 0);
+            }
+            this.totalNanos.reset();
+            this.maxNanos.reset();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.sphyrna.servicemanager.providers;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A ServiceLifecycleController that creates one instance of a service per platform thread.  Each thread always receives
+ * its own instance, so the service does not need to be thread safe and callers never share state.
+ *
+ * Instances are kept until the controller is shutdown.  This controller is intended for long lived platform threads,
+ * such as those of a thread pool.  It rejects virtual threads, which are typically created per task and in numbers that
+ * would make a per-thread instance prohibitively expensive.  For virtual threads, use
+ * {@link ScopedServiceLifecycleController}.
+ */
+public class ThreadConfinedServiceLifecycleController<S extends Service<C>, C extends ServiceConfiguration>
+    extends BaseServiceLifecycleController<S, C>
+{
+    // Replaced with null on shutdown, which also drops the stale entries held by other threads
+    private volatile ThreadLocal<S> threadInstances = new ThreadLocal<S>();
+    private final Set<S> createdInstances = ConcurrentHashMap.newKeySet();
+
+    public ThreadConfinedServiceLifecycleController() {}
+
+    /**
+     * Create and initialize a controller.  Use this constructor to register the controller with
+     * ServiceManagerStrategyImpl.registerServiceByControllerOnly()
+     *
+     * @param instanceProvider creates the per-thread instances
+     * @param configuration the configuration passed to each instance
+     */
+    public ThreadConfinedServiceLifecycleController(ServiceInstanceProvider<S> instanceProvider, C configuration)
+    {
+        super(instanceProvider, configuration);
+    }
+
+    @Override
+    public S getService() throws ServiceException
+    {
+        ThreadLocal<S> instances = this.threadInstances;
+        if (instances == null)
+        {
+            throw new IllegalStateException("Unexpected state. Controller has been shutdown");
+        }
+
+        S instance = instances.get();
+        if (instance == null)
+        {
+            instance = this.createThreadInstance(instances);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Instances belong to the threads that use them, so there is nothing to create ahead of time
+     */
+    @Override
+    public void warmup() {}
+
+    @Override
+    public void shutdown()
+    {
+        this.threadInstances = null;
+        this.clearInitialization();
+
+        for (S nextInstance : this.createdInstances)
+        {
+            if (this.createdInstances.remove(nextInstance))
+            {
+                this.destroyServiceInstance(nextInstance);
+            }
+        }
+    }
+
+    private S createThreadInstance(ThreadLocal<S> instances) throws ServiceException
+    {
+        if (Thread.currentThread().isVirtual())
+        {
+            throw new IllegalStateException(
+                "Thread confined services are only available to platform threads.  Use a scoped service instead");
+        }
+
+        S instance = this.createServiceInstance();
+        this.createdInstances.add(instance);
+        instances.set(instance);
+
+        // Shutdown may have run while the instance was being created
+        if (this.threadInstances == null)
+        {
+            instances.remove();
+            if (this.createdInstances.remove(instance))
+            {
+                this.destroyServiceInstance(instance);
+            }
+            throw new IllegalStateException("Unexpected state. Controller has been shutdown");
+        }
+
+        return instance;
+    }
+}
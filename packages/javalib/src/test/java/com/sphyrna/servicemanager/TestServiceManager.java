@@ -1,9 +1,15 @@
 package com.sphyrna.servicemanager;
 
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 import com.sphyrna.servicemanager.providers.MapConfiguration;
+import java.util.concurrent.ExecutionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,6 +42,29 @@ public class TestServiceManager
         verify(mockStrategy).getService("someOtherService", serviceConfig);
     }
 
+    @Test
+    public void testSetDefaultStrategyGetServiceAsync()
+    {
+        ServiceManager.setDefaultStrategy(this.mockStrategy);
+        ServiceManager.getServiceAsync("someService");
+        verify(this.mockStrategy).getServiceAsync("someService");
+
+        // Test with a config
+        MapConfiguration serviceConfig = new MapConfiguration();
+        serviceConfig.setProperty("foo", "bar");
+        ServiceManager.getServiceAsync("someOtherService", serviceConfig);
+        verify(mockStrategy).getServiceAsync("someOtherService", serviceConfig);
+    }
+
+    @Test
+    public void testSetDefaultStrategyReleaseService()
+    {
+        Service<?> service = mock(Service.class);
+        ServiceManager.setDefaultStrategy(this.mockStrategy);
+        ServiceManager.releaseService("someService", service);
+        verify(this.mockStrategy).releaseService("someService", service);
+    }
+
     @Test
     public void testSetDefaultStrategyIsServiceDefined()
     {
@@ -51,4 +80,66 @@ public class TestServiceManager
         ServiceManager.shutdown();
         verify(mockStrategy).shutdown();
     }
+
+    @Test
+    public void testDefaultStrategyMethods() throws Exception
+    {
+        Service<ServiceConfiguration> service = mock(Service.class);
+        ServiceManagerStrategy minimalStrategy = new MinimalStrategy(service);
+
+        assertTrue(service == minimalStrategy.getServiceAsync("someService").get());
+        assertTrue(service == minimalStrategy.getServiceAsync("someService",
+                                                              ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION)
+                                  .get());
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                                                    () -> minimalStrategy.getServiceAsync("otherService").get());
+        assertInstanceOf(ServiceException.class, exception.getCause());
+
+        // Releasing a service is a no-op by default
+        minimalStrategy.releaseService("someService", service);
+        verifyNoInteractions(service);
+    }
+
+    /**
+     * A strategy written against the original interface, which implements only the methods without a default
+     */
+    private static class MinimalStrategy implements ServiceManagerStrategy
+    {
+        private final Service<ServiceConfiguration> service;
+
+        private MinimalStrategy(Service<ServiceConfiguration> service)
+        {
+            this.service = service;
+        }
+
+        @Override
+        public <S extends Service<ServiceConfiguration>> S getService(String name) throws ServiceException
+        {
+            if (!this.isServiceDefined(name))
+            {
+                throw new ServiceException("Service with name, " + name + ", is not defined");
+            }
+
+            return (S)this.service;
+        }
+
+        @Override
+        public <S extends Service<C>, C extends ServiceConfiguration> S getService(String name,
+                                                                                   C serviceConfiguration)
+            throws ServiceException
+        {
+            return (S)(Service)this.getService(name);
+        }
+
+        @Override
+        public boolean isServiceDefined(String name)
+        {
+            return "someService".equals(name);
+        }
+
+        @Override
+        public void shutdown()
+        {
+        }
+    }
 }
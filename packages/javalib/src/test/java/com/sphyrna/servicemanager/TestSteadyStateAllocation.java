@@ -0,0 +1,140 @@
+package com.sphyrna.servicemanager;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.sphyrna.servicemanager.defaultimpl.ServiceKey;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import com.sphyrna.servicemanager.providers.BaseService;
+import com.sphyrna.servicemanager.providers.MapConfiguration;
+import com.sphyrna.servicemanager.providers.SingletonServiceLifecycleController;
+import com.sphyrna.servicemanager.providers.StripedServiceMetrics;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that lookups of warm services do not allocate, by measuring the bytes allocated by the calling thread
+ * across many lookups.  A single allocation per lookup amounts to at least 16 bytes per lookup, while allocations made
+ * once, for example by class initialization or compilation, stay well below one byte per lookup
+ */
+public class TestSteadyStateAllocation
+{
+    private static final int WARMUP_LOOKUPS = 200_000;
+    private static final int MEASURED_LOOKUPS = 200_000;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    // Keeps the results of lookups alive so that they are not optimized away
+    private static volatile Object lookupResult;
+
+    private ServiceManagerStrategyImpl strategy;
+
+    @BeforeAll
+    public static void beforeAll()
+    {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                   "Per-thread allocation accounting is not available");
+        threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(),
+                   "Per-thread allocation accounting is not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @BeforeEach
+    public void beforeEach() throws ServiceException
+    {
+        this.strategy = new ServiceManagerStrategyImpl();
+        this.strategy.registerSingletonService("singleton", WarmService.class, new MapConfiguration());
+    }
+
+    @AfterEach
+    public void afterEach()
+    {
+        this.strategy.shutdown();
+    }
+
+    @Test
+    public void testServiceManagerGetService() throws Exception
+    {
+        ServiceManager.setDefaultStrategy(this.strategy);
+
+        assertNoAllocation("ServiceManager.getService", () -> ServiceManager.getService("singleton"));
+    }
+
+    @Test
+    public void testStrategyGetService() throws Exception
+    {
+        assertNoAllocation("ServiceManagerStrategyImpl.getService", () -> this.strategy.getService("singleton"));
+
+        ServiceKey<Service> serviceKey = this.strategy.getServiceKey("singleton");
+        assertNoAllocation("ServiceKey.getService", () -> serviceKey.getService());
+
+        this.strategy.setServiceMetrics(new StripedServiceMetrics());
+        assertNoAllocation("ServiceManagerStrategyImpl.getService with metrics",
+                           () -> this.strategy.getService("singleton"));
+
+        this.strategy.freeze();
+        assertNoAllocation("frozen ServiceManagerStrategyImpl.getService", () -> this.strategy.getService("singleton"));
+    }
+
+    @Test
+    public void testChildStrategyGetService() throws Exception
+    {
+        ServiceManagerStrategyImpl childStrategy = new ServiceManagerStrategyImpl(this.strategy);
+
+        assertNoAllocation("child ServiceManagerStrategyImpl.getService", () -> childStrategy.getService("singleton"));
+    }
+
+    @Test
+    public void testFindUndefinedService() throws Exception
+    {
+        assertNoAllocation("ServiceManagerStrategyImpl.findService", () -> this.strategy.findService("undefined"));
+    }
+
+    @Test
+    public void testSingletonControllerGetService() throws Exception
+    {
+        SingletonServiceLifecycleController<WarmService, ServiceConfiguration> controller =
+            new SingletonServiceLifecycleController<WarmService, ServiceConfiguration>();
+        controller.init(() -> new WarmService(), new MapConfiguration());
+        try
+        {
+            assertNoAllocation("SingletonServiceLifecycleController.getService", () -> controller.getService());
+        }
+        finally
+        {
+            controller.shutdown();
+        }
+    }
+
+    private static void assertNoAllocation(String description, Lookup lookup) throws Exception
+    {
+        for (int i = 0; i < WARMUP_LOOKUPS; i++)
+        {
+            lookupResult = lookup.run();
+        }
+
+        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_LOOKUPS; i++)
+        {
+            lookupResult = lookup.run();
+        }
+        long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertTrue(allocatedBytes < MEASURED_LOOKUPS,
+                   description + " allocated " + allocatedBytes + " bytes over " + MEASURED_LOOKUPS + " lookups");
+    }
+
+    @FunctionalInterface
+    private interface Lookup
+    {
+        Object run() throws Exception;
+    }
+
+    public static class WarmService extends BaseService<ServiceConfiguration>
+    {
+    }
+}
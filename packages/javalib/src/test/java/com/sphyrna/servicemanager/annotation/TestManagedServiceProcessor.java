@@ -0,0 +1,229 @@
+package com.sphyrna.servicemanager.annotation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import com.sphyrna.servicemanager.providers.BaseService;
+import com.sphyrna.servicemanager.providers.PooledServiceLifecycleController;
+import com.sphyrna.servicemanager.providers.SingletonServiceLifecycleController;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestManagedServiceProcessor
+{
+    @TempDir
+    private Path tempDirectory;
+
+    @Test
+    public void testGeneratedRegistry() throws ServiceException
+    {
+        ServiceManagerStrategyImpl strategyToTest = new ServiceManagerStrategyImpl();
+        new GeneratedManagedServiceRegistry().registerServices(strategyToTest);
+
+        assertTrue(strategyToTest.isServiceDefined("annotatedSingletonService"));
+        assertTrue(strategyToTest.isServiceDefined("annotatedPooledService"));
+
+        AnnotatedSingletonService singletonService = strategyToTest.getService("annotatedSingletonService");
+        assertTrue(singletonService == strategyToTest.getService("annotatedSingletonService"),
+                   "testGeneratedRegistry - Ensure the default controller is a singleton");
+
+        AnnotatedPooledService pooledService = strategyToTest.getService("annotatedPooledService");
+        assertInstanceOf(AnnotatedPooledService.class, pooledService);
+        strategyToTest.releaseService("annotatedPooledService", pooledService);
+
+        // Registering twice collides with the existing definitions
+        assertThrows(IllegalArgumentException.class, () -> {
+            new GeneratedManagedServiceRegistry().registerServices(strategyToTest);
+        });
+
+        strategyToTest.shutdown();
+    }
+
+    @Test
+    public void testRegisterAll() throws ServiceException
+    {
+        ServiceManagerStrategyImpl strategyToTest = new ServiceManagerStrategyImpl();
+        ManagedServiceRegistry.registerAll(strategyToTest, getClass().getClassLoader());
+
+        assertTrue(strategyToTest.isServiceDefined("annotatedSingletonService"));
+        assertTrue(strategyToTest.isServiceDefined("annotatedPooledService"));
+        assertFalse(strategyToTest.isServiceDefined("unannotatedService"));
+
+        strategyToTest.shutdown();
+    }
+
+    @Test
+    public void testGeneratedSource() throws Exception
+    {
+        List<Diagnostic<? extends JavaFileObject>> errors = this.compile("""
+            package test;
+
+            import com.sphyrna.servicemanager.ServiceConfiguration;
+            import com.sphyrna.servicemanager.annotation.ManagedService;
+            import com.sphyrna.servicemanager.providers.BaseService;
+
+            @ManagedService(name = "quoted \\"name\\"")
+            public class QuotedService extends BaseService<ServiceConfiguration>
+            {
+            }
+            """);
+
+        assertTrue(errors.isEmpty(), errors.toString());
+        String registrySource =
+            Files.readString(this.tempDirectory.resolve("test").resolve("GeneratedManagedServiceRegistry.java"));
+        assertTrue(registrySource.contains("\"quoted \\\"name\\\"\""), registrySource);
+        assertTrue(registrySource.contains("test.QuotedService::new"), registrySource);
+        assertTrue(registrySource.contains("new " + SingletonServiceLifecycleController.class.getName() + "()"),
+                   registrySource);
+        String servicesFile = Files.readString(
+            this.tempDirectory.resolve("META-INF/services/" + ManagedServiceRegistry.class.getName()));
+        assertEquals("test.GeneratedManagedServiceRegistry\n", servicesFile);
+    }
+
+    @Test
+    public void testInvalidServices() throws Exception
+    {
+        assertCompileError("does not implement Service", """
+            @ManagedService(name = "notAService")
+            public class NotAService
+            {
+            }
+            """);
+        assertCompileError("is not a concrete class", """
+            @ManagedService(name = "abstractService")
+            public abstract class AbstractService extends BaseService<ServiceConfiguration>
+            {
+            }
+            """);
+        assertCompileError("must be a public top level or public static nested class", """
+            @ManagedService(name = "packagePrivateService")
+            class PackagePrivateService extends BaseService<ServiceConfiguration>
+            {
+            }
+            """);
+        assertCompileError("does not have a public no-arg constructor", """
+            @ManagedService(name = "argumentService")
+            public class ArgumentService extends BaseService<ServiceConfiguration>
+            {
+                public ArgumentService(String argument)
+                {
+                }
+            }
+            """);
+        assertCompileError("which is not a ServiceException", """
+            @ManagedService(name = "throwingService")
+            public class ThrowingService extends BaseService<ServiceConfiguration>
+            {
+                public ThrowingService() throws java.io.IOException
+                {
+                }
+            }
+            """);
+        assertCompileError("cannot be blank", """
+            @ManagedService(name = " ")
+            public class BlankService extends BaseService<ServiceConfiguration>
+            {
+            }
+            """);
+        assertCompileError("is already used by test.DuplicateService", """
+            @ManagedService(name = "duplicateService")
+            public class DuplicateService extends BaseService<ServiceConfiguration>
+            {
+                @ManagedService(name = "duplicateService")
+                public static class NestedService extends BaseService<ServiceConfiguration>
+                {
+                }
+            }
+            """);
+    }
+
+    private void assertCompileError(String expectedMessage, String classSource) throws Exception
+    {
+        String source = """
+            package test;
+
+            import com.sphyrna.servicemanager.ServiceConfiguration;
+            import com.sphyrna.servicemanager.annotation.ManagedService;
+            import com.sphyrna.servicemanager.providers.BaseService;
+
+            """ + classSource;
+        List<Diagnostic<? extends JavaFileObject>> errors = this.compile(source);
+
+        assertEquals(1, errors.size(), errors.toString());
+        String message = errors.get(0).getMessage(Locale.ROOT);
+        assertTrue(message.contains(expectedMessage), message);
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String source)
+    {
+        String className = source.replaceFirst("(?s).*?public (abstract )?class (\\w+).*", "$2");
+        if (className.equals(source))
+        {
+            className = source.replaceFirst("(?s).*?\nclass (\\w+).*", "$1");
+        }
+        JavaFileObject sourceFile = new SourceFile("test/" + className, source);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        List<String> options = List.of("-proc:only", "-processor", ManagedServiceProcessor.class.getName(),
+                                       "-classpath", System.getProperty("java.class.path"), "-s",
+                                       this.tempDirectory.toString(), "-d", this.tempDirectory.toString());
+        compiler.getTask(null, null, diagnostics, options, null, List.of(sourceFile)).call();
+
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<Diagnostic<? extends JavaFileObject>>();
+        for (Diagnostic<? extends JavaFileObject> nextDiagnostic : diagnostics.getDiagnostics())
+        {
+            if (nextDiagnostic.getKind() == Diagnostic.Kind.ERROR)
+            {
+                errors.add(nextDiagnostic);
+            }
+        }
+
+        return errors;
+    }
+
+    @ManagedService(name = "annotatedSingletonService")
+    public static class AnnotatedSingletonService extends BaseService<ServiceConfiguration>
+    {
+    }
+
+    @ManagedService(name = "annotatedPooledService", controller = PooledServiceLifecycleController.class)
+    public static class AnnotatedPooledService extends BaseService<ServiceConfiguration>
+    {
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject
+    {
+        private final String source;
+
+        private SourceFile(String path, String source)
+        {
+            super(URI.create("string:///" + path + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors)
+        {
+            return this.source;
+        }
+    }
+}
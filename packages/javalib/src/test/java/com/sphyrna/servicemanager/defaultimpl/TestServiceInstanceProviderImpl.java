@@ -1,9 +1,14 @@
 package com.sphyrna.servicemanager.defaultimpl;
 
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.sphyrna.servicemanager.ServiceConfiguration;
 import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.providers.BaseService;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
 import org.junit.jupiter.api.Test;
 
 public class TestServiceInstanceProviderImpl
@@ -19,4 +24,58 @@ public class TestServiceInstanceProviderImpl
         assertInstanceOf(TestService.class, instance,
                          "testConstructorCreateServiceInstance - Instance is of TestClass");
     }
+
+    @Test
+    public void testServiceClassLinkedOnce() throws ServiceException
+    {
+        ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
+        new ServiceInstanceProviderImpl<TestService>(TestService.class).createServiceInstance();
+
+        // Rebuilding the providers must not define a class per provider
+        long loadedClassCount = classLoadingMXBean.getTotalLoadedClassCount();
+        for (int i = 0; i < 1000; i++)
+        {
+            assertInstanceOf(TestService.class,
+                             new ServiceInstanceProviderImpl<TestService>(TestService.class).createServiceInstance());
+        }
+        assertTrue(classLoadingMXBean.getTotalLoadedClassCount() - loadedClassCount < 100,
+                   "testServiceClassLinkedOnce - Ensure the constructor is linked once per class");
+    }
+
+    @Test
+    public void testConstructorErrorsReportedOnCreation()
+    {
+        // No no-arg constructor
+        assertThrows(ServiceException.class, () -> {
+            new ServiceInstanceProviderImpl<NoDefaultConstructorService>(NoDefaultConstructorService.class);
+        });
+
+        // Abstract class
+        assertThrows(ServiceException.class,
+                     () -> { new ServiceInstanceProviderImpl<BaseService>(BaseService.class); });
+    }
+
+    @Test
+    public void testFailingConstructorCreateServiceInstance() throws ServiceException
+    {
+        ServiceInstanceProviderImpl<FailingConstructorService> provider =
+            new ServiceInstanceProviderImpl<FailingConstructorService>(FailingConstructorService.class);
+
+        ServiceException exception = assertThrows(ServiceException.class, () -> { provider.createServiceInstance(); });
+        assertInstanceOf(IllegalStateException.class, exception.getCause(),
+                         "testFailingConstructorCreateServiceInstance - Constructor exception is the cause");
+    }
+
+    public static class NoDefaultConstructorService extends BaseService<ServiceConfiguration>
+    {
+        public NoDefaultConstructorService(String name) {}
+    }
+
+    public static class FailingConstructorService extends BaseService<ServiceConfiguration>
+    {
+        public FailingConstructorService()
+        {
+            throw new IllegalStateException("Failed to construct");
+        }
+    }
 }
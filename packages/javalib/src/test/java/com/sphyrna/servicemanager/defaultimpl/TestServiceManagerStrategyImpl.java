@@ -1,7 +1,9 @@
 package com.sphyrna.servicemanager.defaultimpl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -11,14 +13,38 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.sphyrna.servicemanager.InvalidServiceDefinitionException;
 import com.sphyrna.servicemanager.Service;
 import com.sphyrna.servicemanager.ServiceConfiguration;
 import com.sphyrna.servicemanager.ServiceException;
 import com.sphyrna.servicemanager.ServiceInstanceProvider;
 import com.sphyrna.servicemanager.ServiceLifecycleController;
+import com.sphyrna.servicemanager.ServiceLifecyclePhase;
+import com.sphyrna.servicemanager.ServiceManagerStrategy;
 import com.sphyrna.servicemanager.ServiceNotAvailableException;
+import com.sphyrna.servicemanager.providers.BaseService;
 import com.sphyrna.servicemanager.providers.MapConfiguration;
+import com.sphyrna.servicemanager.providers.PooledServiceLifecycleController;
+import com.sphyrna.servicemanager.providers.ScopedServiceLifecycleController;
+import com.sphyrna.servicemanager.providers.ServiceScope;
+import com.sphyrna.servicemanager.providers.ServiceMetricsSnapshot;
 import com.sphyrna.servicemanager.providers.SingletonServiceLifecycleController;
+import com.sphyrna.servicemanager.providers.StripedServiceMetrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.naming.directory.InvalidSearchControlsException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +62,7 @@ public class TestServiceManagerStrategyImpl
     private static ServiceLifecycleController mockServiceLifecycleController;
 
     private ServiceManagerStrategyImpl strategyToTest;
+    private List<String> stoppedNames;
 
     @BeforeAll
     public static void beforeAll() throws ServiceException
@@ -54,6 +81,7 @@ public class TestServiceManagerStrategyImpl
     {
         reset(mockService, mockServiceInstanceProvider, mockServiceLifecycleController);
         strategyToTest = new ServiceManagerStrategyImpl();
+        stoppedNames = Collections.synchronizedList(new ArrayList<String>());
     }
 
     @Test
@@ -249,6 +277,23 @@ public class TestServiceManagerStrategyImpl
         });
     }
 
+    @Test
+    public void testReleaseService() throws ServiceException
+    {
+        String serviceNameOne = "serviceNameOne";
+
+        // Releasing an unknown or inactive service is ignored
+        strategyToTest.releaseService(serviceNameOne, mockService);
+        strategyToTest.registerService(serviceNameOne, mockServiceInstanceProvider, mockServiceLifecycleController,
+                                       testServiceConfiguration);
+        strategyToTest.releaseService(serviceNameOne, mockService);
+        verify(mockServiceLifecycleController, never()).releaseService(mockService);
+
+        strategyToTest.getService(serviceNameOne);
+        strategyToTest.releaseService(serviceNameOne, mockService);
+        verify(mockServiceLifecycleController).releaseService(mockService);
+    }
+
     @Test
     public void testShutdown() throws ServiceException
     {
@@ -266,4 +311,929 @@ public class TestServiceManagerStrategyImpl
         // Once it's shutdown, expect methods to throw errors
         assertThrows(ServiceNotAvailableException.class, () -> { strategyToTest.getService(serviceNameOne); });
     }
+
+    @Test
+    public void testConcurrentGetServiceInitializesOnce() throws Exception
+    {
+        String serviceNameOne = "serviceNameOne";
+        int threadCount = 32;
+
+        AtomicInteger initCount = new AtomicInteger();
+        ServiceLifecycleController countingController = new ServiceLifecycleController() {
+                @Override
+                public void init(ServiceInstanceProvider instanceProvider, ServiceConfiguration configuration)
+                {
+                    initCount.incrementAndGet();
+                }
+
+                @Override
+                public Service getService()
+                {
+                    return mockService;
+                }
+
+                @Override
+                public void shutdown()
+                {
+                }
+            };
+        strategyToTest.registerService(serviceNameOne, mockServiceInstanceProvider, countingController,
+                                       testServiceConfiguration);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<Service>> results = new ArrayList<Future<Service>>();
+            for (int i = 0; i < threadCount; i++)
+            {
+                results.add(executor.submit(() -> {
+                    startLatch.await();
+                    return strategyToTest.getService(serviceNameOne);
+                }));
+            }
+            startLatch.countDown();
+
+            for (Future<Service> nextResult : results)
+            {
+                assertTrue(nextResult.get() == mockService,
+                           "testConcurrentGetServiceInitializesOnce - Ensure every thread receives the service");
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, initCount.get(),
+                     "testConcurrentGetServiceInitializesOnce - Ensure controller is initialized exactly once");
+    }
+
+    @Test
+    public void testConcurrentGetServiceSharesFailedInitialization() throws Exception
+    {
+        String serviceNameOne = "serviceNameOne";
+        int threadCount = 16;
+
+        AtomicInteger attemptCount = new AtomicInteger();
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        ServiceInstanceProvider serviceInstanceProvider = () -> {
+            attemptCount.incrementAndGet();
+            try
+            {
+                releaseLatch.await();
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+            throw new ServiceException("Dependency unavailable");
+        };
+        strategyToTest.registerService(serviceNameOne, serviceInstanceProvider,
+                                       new SingletonServiceLifecycleController(), testServiceConfiguration);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            List<Future<Service>> results = new ArrayList<Future<Service>>();
+            for (int i = 0; i < threadCount; i++)
+            {
+                results.add(executor.submit(() -> strategyToTest.getService(serviceNameOne)));
+            }
+            while (attemptCount.get() == 0)
+            {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            releaseLatch.countDown();
+
+            for (Future<Service> nextResult : results)
+            {
+                ExecutionException failure = assertThrows(ExecutionException.class, () -> nextResult.get());
+                assertInstanceOf(ServiceException.class, failure.getCause());
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        // Only one attempt is made, and it is not retried until the backoff delay has elapsed
+        assertEquals(1, attemptCount.get(),
+                     "testConcurrentGetServiceSharesFailedInitialization - Ensure concurrent lookups share an attempt");
+        ServiceException backoffFailure =
+            assertThrows(ServiceException.class, () -> strategyToTest.getService(serviceNameOne));
+        assertEquals("Dependency unavailable", backoffFailure.getCause().getMessage());
+        assertEquals(1, attemptCount.get());
+
+        Thread.sleep(150);
+        assertThrows(ServiceException.class, () -> strategyToTest.getService(serviceNameOne));
+        assertEquals(2, attemptCount.get(), "testConcurrentGetServiceSharesFailedInitialization - Ensure retry");
+
+        // The second failure doubles the delay
+        Thread.sleep(120);
+        assertThrows(ServiceException.class, () -> strategyToTest.getService(serviceNameOne));
+        assertEquals(2, attemptCount.get());
+    }
+
+    @Test
+    public void testCallerFailureDoesNotStartBackoff() throws Exception
+    {
+        strategyToTest.registerService("scopedService", () -> new TestService(),
+                                       new ScopedServiceLifecycleController(), testServiceConfiguration);
+
+        // A lookup outside of a scope fails for that caller only
+        assertThrows(IllegalStateException.class, () -> { strategyToTest.getService("scopedService"); });
+        try (ServiceScope scope = ServiceScope.open())
+        {
+            assertInstanceOf(TestService.class, strategyToTest.getService("scopedService"),
+                             "testCallerFailureDoesNotStartBackoff - Ensure a lookup in a scope is not backed off");
+        }
+        assertThrows(IllegalStateException.class, () -> { strategyToTest.getService("scopedService"); });
+    }
+
+    @Test
+    public void testGetServiceKey() throws ServiceException
+    {
+        String serviceNameOne = "serviceNameOne";
+
+        // Keys may be resolved before the service is registered
+        ServiceKey<Service> serviceKey = strategyToTest.getServiceKey(serviceNameOne);
+        assertEquals(serviceNameOne, serviceKey.getName());
+        assertFalse(serviceKey.isServiceDefined());
+        assertThrows(ServiceNotAvailableException.class, () -> { serviceKey.getService(); });
+        assertTrue(serviceKey == strategyToTest.getServiceKey(serviceNameOne),
+                   "testGetServiceKey - Ensure a name resolves to a single key");
+
+        // register a service
+        when(mockServiceLifecycleController.getService()).thenReturn(mockService);
+        strategyToTest.registerService(serviceNameOne, mockServiceInstanceProvider, mockServiceLifecycleController,
+                                       testServiceConfiguration);
+        assertTrue(serviceKey.isServiceDefined());
+        assertTrue(serviceKey.getService() == mockService);
+        assertTrue(strategyToTest.getService(serviceKey) == mockService);
+        verify(mockServiceLifecycleController).init(mockServiceInstanceProvider, testServiceConfiguration);
+
+        // Override a service.  The key should see the replacement
+        strategyToTest.registerSingletonService(serviceNameOne, TestService.class, testServiceConfiguration, true);
+        verify(mockServiceLifecycleController).shutdown();
+        assertInstanceOf(TestService.class, serviceKey.getService());
+
+        // Once it's shutdown, expect the key to throw errors
+        strategyToTest.shutdown();
+        assertFalse(serviceKey.isServiceDefined());
+        assertThrows(ServiceNotAvailableException.class, () -> { serviceKey.getService(); });
+    }
+
+    @Test
+    public void testGetLazyService() throws Exception
+    {
+        AtomicInteger createCount = new AtomicInteger();
+        ServiceInstanceProvider serviceInstanceProvider = () -> {
+            createCount.incrementAndGet();
+            return new CalculatorService();
+        };
+
+        // The proxy may be obtained before the service is registered
+        Calculator calculator = strategyToTest.getLazyService("calculator", Calculator.class);
+        strategyToTest.registerService("calculator", serviceInstanceProvider, new SingletonServiceLifecycleController(),
+                                       testServiceConfiguration);
+        assertTrue(calculator.getClass().isHidden(), "testGetLazyService - Ensure a generated class is used");
+        assertEquals(0, createCount.get(), "testGetLazyService - Ensure the service is not created before use");
+
+        assertEquals(7L, calculator.add(3L, 4));
+        assertEquals(5.0, calculator.scale(2.0, 2.5f));
+        assertEquals("total: 7", calculator.describe("total"));
+        calculator.reset(true);
+        assertEquals(0L, calculator.add(0L, 0));
+        assertEquals("calculator", calculator.name(), "testGetLazyService - Ensure default methods are delegated");
+        assertEquals(1, createCount.get());
+
+        CalculatorService service = strategyToTest.getService("calculator");
+        assertTrue(service.total == 0L);
+
+        // Non-public interfaces are proxied reflectively
+        HiddenCounter counter = strategyToTest.getLazyService("calculator", HiddenCounter.class);
+        assertFalse(counter.getClass().isHidden());
+        assertEquals(1, counter.increment(0));
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> strategyToTest.getLazyService("calculator", CalculatorService.class));
+        Calculator undefined = strategyToTest.getLazyService("undefined", Calculator.class);
+        assertThrows(ServiceNotAvailableException.class, () -> undefined.add(1L, 1));
+    }
+
+    @Test
+    public void testLazyServiceFollowsOverride() throws Exception
+    {
+        ServiceManagerStrategyImpl childStrategy = new ServiceManagerStrategyImpl(strategyToTest);
+        strategyToTest.registerSingletonService("calculator", CalculatorService.class, testServiceConfiguration);
+        Calculator calculator = strategyToTest.getLazyService("calculator", Calculator.class);
+        Calculator childCalculator = childStrategy.getLazyService("calculator", Calculator.class);
+
+        assertEquals(7L, calculator.add(3L, 4));
+        assertEquals("total: 7", childCalculator.describe("total"));
+
+        // The proxies retrieve the replacement instead of calling the instance of the shutdown definition
+        strategyToTest.registerSingletonService("calculator", CalculatorService.class, testServiceConfiguration, true);
+        assertEquals("total: 0", calculator.describe("total"),
+                     "testLazyServiceFollowsOverride - Ensure the proxy follows the override");
+        assertEquals("total: 0", childCalculator.describe("total"),
+                     "testLazyServiceFollowsOverride - Ensure a proxy of a child follows the override in the parent");
+        calculator.add(1L, 1);
+        assertEquals("total: 2", ((CalculatorService)strategyToTest.getService("calculator")).describe("total"));
+
+        // Overriding in the child takes precedence over the parent
+        childStrategy.registerSingletonService("calculator", CalculatorService.class, testServiceConfiguration);
+        assertEquals("total: 0", childCalculator.describe("total"));
+
+        // Controllers that hand out an instance per caller can not be proxied
+        strategyToTest.registerService("pooled", () -> new CalculatorService(),
+                                       new PooledServiceLifecycleController(), testServiceConfiguration);
+        Calculator pooledCalculator = strategyToTest.getLazyService("pooled", Calculator.class);
+        assertThrows(IllegalStateException.class, () -> pooledCalculator.add(1L, 1));
+    }
+
+    @Test
+    public void testStartAllInDependencyOrder() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("database", startedNames, false);
+        registerRecordingService("cache", startedNames, false);
+        registerRecordingService("repository", startedNames, false);
+        registerRecordingService("web", startedNames, false);
+        strategyToTest.registerServiceDependencies("repository", "database", "cache");
+        strategyToTest.registerServiceDependencies("web", "repository");
+
+        ServiceLifecycleReport report = strategyToTest.startAll();
+        assertTrue(report.isSuccessful(), "testStartAllInDependencyOrder - Ensure all services started");
+        assertEquals(4, report.getServiceDurations().size(),
+                     "testStartAllInDependencyOrder - Ensure a latency is reported per service");
+        assertEquals(4, startedNames.size(), "testStartAllInDependencyOrder - Ensure each service started once");
+        assertTrue(startedNames.indexOf("repository") > startedNames.indexOf("database"));
+        assertTrue(startedNames.indexOf("repository") > startedNames.indexOf("cache"));
+        assertEquals("web", startedNames.get(3), "testStartAllInDependencyOrder - Ensure dependents start last");
+
+        // Services are already started, so lookups don't start them again
+        strategyToTest.getService("web");
+        assertEquals(4, startedNames.size(), "testStartAllInDependencyOrder - Ensure lookups reuse started services");
+    }
+
+    @Test
+    public void testStartAllDependencyFailure() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("database", startedNames, true);
+        registerRecordingService("repository", startedNames, false);
+        registerRecordingService("metrics", startedNames, false);
+        strategyToTest.registerServiceDependencies("repository", "database");
+
+        ServiceLifecycleReport report;
+        try (ExecutorService executor = Executors.newCachedThreadPool())
+        {
+            report = strategyToTest.startAll(executor);
+        }
+        assertFalse(report.isSuccessful(), "testStartAllDependencyFailure - Ensure the failure is reported");
+        assertEquals(Set.of("database", "repository"), report.getServiceFailures().keySet());
+        assertInstanceOf(IllegalStateException.class, report.getServiceFailures().get("database"));
+        assertEquals(List.of("metrics"), startedNames,
+                     "testStartAllDependencyFailure - Ensure dependents of a failed service are not started");
+    }
+
+    @Test
+    public void testStartAllInvalidDependencies() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("serviceOne", startedNames, false);
+        registerRecordingService("serviceTwo", startedNames, false);
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> { strategyToTest.registerServiceDependencies("serviceOne", "serviceOne"); });
+
+        strategyToTest.registerServiceDependencies("serviceOne", "undefinedService");
+        assertThrows(InvalidServiceDefinitionException.class, () -> { strategyToTest.startAll(); });
+
+        strategyToTest.registerServiceDependencies("serviceOne", "serviceTwo");
+        strategyToTest.registerServiceDependencies("serviceTwo", "serviceOne");
+        assertThrows(InvalidServiceDefinitionException.class, () -> { strategyToTest.startAll(); });
+        assertTrue(startedNames.isEmpty(), "testStartAllInvalidDependencies - Ensure no service was started");
+    }
+
+    @Test
+    public void testShutdownInReverseDependencyOrder() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("database", startedNames, false);
+        registerRecordingService("repository", startedNames, false);
+        registerRecordingService("web", startedNames, false);
+        registerRecordingService("neverStarted", startedNames, false);
+        strategyToTest.registerServiceDependencies("repository", "database");
+        strategyToTest.registerServiceDependencies("web", "repository");
+        strategyToTest.getService("web");
+        strategyToTest.getService("repository");
+        strategyToTest.getService("database");
+
+        // Controller only registrations are shutdown even if they were never used
+        strategyToTest.registerServiceByControllerOnly("controllerOnly", mockServiceLifecycleController,
+                                                       testServiceConfiguration);
+
+        ServiceLifecycleReport report = strategyToTest.shutdown(Duration.ofSeconds(5), Duration.ofSeconds(10));
+        assertTrue(report.isSuccessful(), "testShutdownInReverseDependencyOrder - Ensure all services stopped");
+        assertEquals(List.of("web", "repository", "database"), stoppedNames,
+                     "testShutdownInReverseDependencyOrder - Ensure dependents stop first");
+        verify(mockServiceLifecycleController).shutdown();
+        assertFalse(strategyToTest.isServiceDefined("neverStarted"));
+        assertThrows(ServiceNotAvailableException.class, () -> { strategyToTest.getService("neverStarted"); });
+    }
+
+    @Test
+    public void testShutdownTimeout() throws Exception
+    {
+        CountDownLatch interruptedLatch = new CountDownLatch(1);
+        ServiceLifecycleController blockingController = new ServiceLifecycleController() {
+                @Override
+                public void init(ServiceInstanceProvider instanceProvider, ServiceConfiguration configuration)
+                {
+                }
+
+                @Override
+                public Service getService()
+                {
+                    return mockService;
+                }
+
+                @Override
+                public void shutdown()
+                {
+                    try
+                    {
+                        Thread.sleep(Duration.ofMinutes(1));
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        interruptedLatch.countDown();
+                    }
+                }
+            };
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        strategyToTest.registerServiceByControllerOnly("blockingService", blockingController, testServiceConfiguration);
+        registerRecordingService("dependency", startedNames, false);
+        strategyToTest.registerServiceDependencies("blockingService", "dependency");
+        strategyToTest.getService("dependency");
+
+        long startTime = System.nanoTime();
+        ServiceLifecycleReport report = strategyToTest.shutdown(Duration.ofMillis(100), Duration.ofSeconds(10));
+        assertTrue(Duration.ofNanos(System.nanoTime() - startTime).compareTo(Duration.ofSeconds(5)) < 0,
+                   "testShutdownTimeout - Ensure shutdown does not wait for a blocked service");
+        assertEquals(Set.of("blockingService"), report.getTimedOutServiceNames());
+        assertEquals(List.of("dependency"), stoppedNames,
+                     "testShutdownTimeout - Ensure dependencies of a timed out service are stopped");
+        assertTrue(interruptedLatch.await(5, TimeUnit.SECONDS),
+                   "testShutdownTimeout - Ensure the blocked service is interrupted");
+    }
+
+    @Test
+    public void testGetServiceAsyncSharesWarmup() throws Exception
+    {
+        String serviceNameOne = "serviceNameOne";
+        CountDownLatch startLatch = new CountDownLatch(1);
+        AtomicInteger createdCount = new AtomicInteger();
+        ServiceInstanceProvider serviceInstanceProvider = () -> {
+            createdCount.incrementAndGet();
+            return new BaseService<ServiceConfiguration>() {
+                @Override
+                public void start()
+                {
+                    try
+                    {
+                        startLatch.await();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        throw new IllegalStateException(exception);
+                    }
+                }
+            };
+        };
+        strategyToTest.registerService(serviceNameOne, serviceInstanceProvider,
+                                       new SingletonServiceLifecycleController(), testServiceConfiguration);
+
+        assertInstanceOf(ServiceNotAvailableException.class,
+                         assertThrows(ExecutionException.class, () -> {
+                             strategyToTest.getServiceAsync("undefinedService").get();
+                         }).getCause());
+
+        // The calling thread is not blocked while the service starts
+        List<CompletableFuture<Service>> results = new ArrayList<CompletableFuture<Service>>();
+        for (int i = 0; i < 10; i++)
+        {
+            results.add(strategyToTest.getServiceAsync(serviceNameOne));
+        }
+        for (CompletableFuture<Service> nextResult : results)
+        {
+            assertFalse(nextResult.isDone(), "testGetServiceAsyncSharesWarmup - Ensure the service is still starting");
+        }
+
+        startLatch.countDown();
+        Service service = results.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Service> nextResult : results)
+        {
+            assertTrue(nextResult.get(5, TimeUnit.SECONDS) == service,
+                       "testGetServiceAsyncSharesWarmup - Ensure every caller receives the service");
+        }
+        assertEquals(1, createdCount.get(), "testGetServiceAsyncSharesWarmup - Ensure the warmup was shared");
+
+        // Once warm, the future is completed immediately
+        CompletableFuture<Service> warmResult = strategyToTest.getServiceAsync(serviceNameOne);
+        assertTrue(warmResult.isDone() && (warmResult.get() == service));
+    }
+
+    @Test
+    public void testGetServiceAsyncRetriesFailedWarmup() throws Exception
+    {
+        String serviceNameOne = "serviceNameOne";
+        AtomicInteger attemptCount = new AtomicInteger();
+        ServiceInstanceProvider serviceInstanceProvider = () -> {
+            if (attemptCount.incrementAndGet() == 1)
+            {
+                throw new ServiceException("First attempt fails");
+            }
+            return new TestService<ServiceConfiguration>();
+        };
+        strategyToTest.registerService(serviceNameOne, serviceInstanceProvider,
+                                       new SingletonServiceLifecycleController(), testServiceConfiguration);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> {
+            strategyToTest.getServiceAsync(serviceNameOne).get(5, TimeUnit.SECONDS);
+        });
+        assertInstanceOf(ServiceException.class, failure.getCause());
+
+        // The failure is reported without retrying until the backoff delay has elapsed, then the warmup is retried
+        Service service = null;
+        for (int i = 0; (i < 100) && (service == null); i++)
+        {
+            try
+            {
+                service = strategyToTest.getServiceAsync(serviceNameOne).get(5, TimeUnit.SECONDS);
+            }
+            catch (ExecutionException exception)
+            {
+                Thread.sleep(10);
+            }
+        }
+        assertInstanceOf(TestService.class, service, "testGetServiceAsyncRetriesFailedWarmup - Ensure retry succeeds");
+    }
+
+    @Test
+    public void testServiceMetrics() throws Exception
+    {
+        StripedServiceMetrics serviceMetrics = new StripedServiceMetrics();
+        strategyToTest.setServiceMetrics(serviceMetrics);
+
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("serviceOne", startedNames, false);
+        ServiceKey<Service> serviceKey = strategyToTest.getServiceKey("serviceOne");
+        for (int i = 0; i < 5; i++)
+        {
+            strategyToTest.getService("serviceOne");
+            serviceKey.getService();
+        }
+        assertThrows(ServiceNotAvailableException.class, () -> { strategyToTest.getService("undefinedService"); });
+
+        ServiceMetricsSnapshot snapshot = serviceMetrics.snapshot("serviceOne");
+        assertEquals(10, snapshot.getLookupCount());
+        assertThrows(ExecutionException.class, () -> { strategyToTest.getServiceAsync("otherService").get(); });
+        assertEquals(2, serviceMetrics.snapshot(ServiceManagerStrategyImpl.UNDEFINED_SERVICE_METRICS_NAME)
+                            .getLookupMissCount());
+        assertNull(serviceMetrics.snapshot("undefinedService"),
+                   "testServiceMetrics - Ensure undefined names do not get a recorder of their own");
+        assertEquals(1, snapshot.getLifecycleSnapshot(ServiceLifecyclePhase.INIT).getCount());
+        assertEquals(1, snapshot.getLifecycleSnapshot(ServiceLifecyclePhase.START).getCount());
+
+        strategyToTest.shutdown();
+        snapshot = serviceMetrics.snapshot("serviceOne");
+        assertEquals(1, snapshot.getLifecycleSnapshot(ServiceLifecyclePhase.STOP).getCount());
+        assertEquals(1, snapshot.getLifecycleSnapshot(ServiceLifecyclePhase.DESTROY).getCount());
+
+        // Misses are recorded through keys as well
+        assertThrows(ServiceNotAvailableException.class, () -> { serviceKey.getService(); });
+        assertEquals(1, serviceMetrics.snapshot("serviceOne").getLookupMissCount());
+    }
+
+    @Test
+    public void testReplaceServices() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("serviceOne", startedNames, false);
+        registerRecordingService("removedService", startedNames, false);
+        ServiceKey<RecordingService> serviceKey = strategyToTest.getServiceKey("serviceOne");
+        RecordingService originalService = serviceKey.getService();
+
+        ServiceManagerStrategyImpl replacementStrategy = new ServiceManagerStrategyImpl();
+        registerRecordingService(replacementStrategy, "serviceOne", startedNames, false);
+        registerRecordingService(replacementStrategy, "addedService", startedNames, false);
+        replacementStrategy.registerServiceDependencies("serviceOne", "addedService");
+
+        ServiceLifecycleReport replaceReport =
+            strategyToTest.replaceServices(replacementStrategy, Duration.ofMillis(200));
+        assertTrue(replaceReport.isSuccessful(), replaceReport.toString());
+        assertEquals(List.of("serviceOne", "addedService", "serviceOne"), startedNames,
+                     "testReplaceServices - Ensure the replacements are started before they are swapped in");
+
+        RecordingService replacementService = serviceKey.getService();
+        assertTrue(replacementService != originalService, "testReplaceServices - Ensure keys see the replacement");
+        assertTrue(replacementService == strategyToTest.getService("serviceOne"));
+        assertTrue(strategyToTest.isServiceDefined("addedService"));
+        assertFalse(strategyToTest.isServiceDefined("removedService"));
+        assertFalse(replacementStrategy.isServiceDefined("serviceOne"),
+                    "testReplaceServices - Ensure the definitions are moved out of the replacement strategy");
+        assertTrue(stoppedNames.isEmpty(), "testReplaceServices - Ensure the replaced service is drained first");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stoppedNames.isEmpty() && (System.nanoTime() < deadline))
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("serviceOne"), stoppedNames,
+                     "testReplaceServices - Ensure the replaced service is stopped after the drain timeout");
+
+        // The replacement dependencies are used from now on
+        strategyToTest.shutdown();
+        assertEquals(List.of("serviceOne", "serviceOne", "addedService"), stoppedNames);
+    }
+
+    @Test
+    public void testReplaceServicesStartFailure() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("serviceOne", startedNames, false);
+        RecordingService originalService = strategyToTest.getService("serviceOne");
+
+        ServiceManagerStrategyImpl replacementStrategy = new ServiceManagerStrategyImpl();
+        registerRecordingService(replacementStrategy, "serviceOne", startedNames, false);
+        registerRecordingService(replacementStrategy, "failingService", startedNames, true);
+
+        ServiceLifecycleReport replaceReport = strategyToTest.replaceServices(replacementStrategy, Duration.ZERO);
+        assertFalse(replaceReport.isSuccessful());
+        assertEquals(Set.of("failingService"), replaceReport.getServiceFailures().keySet());
+        assertTrue(originalService == strategyToTest.getService("serviceOne"),
+                   "testReplaceServicesStartFailure - Ensure the current services are kept");
+        assertFalse(strategyToTest.isServiceDefined("failingService"));
+        assertEquals(List.of("serviceOne"), stoppedNames,
+                     "testReplaceServicesStartFailure - Ensure the started replacements are shut down");
+    }
+
+    @Test
+    public void testReplaceServicesReleasesToReplacedController() throws Exception
+    {
+        strategyToTest.registerService("pooledService",
+                                       () -> new RecordingService("original", null, stoppedNames, false),
+                                       new PooledServiceLifecycleController(0, 1, Duration.ofSeconds(1)),
+                                       testServiceConfiguration);
+        RecordingService originalService = strategyToTest.getService("pooledService");
+
+        ServiceManagerStrategyImpl replacementStrategy = new ServiceManagerStrategyImpl();
+        replacementStrategy.registerService("pooledService",
+                                            () -> new RecordingService("replacement", null, stoppedNames, false),
+                                            new PooledServiceLifecycleController(0, 1, Duration.ofSeconds(1)),
+                                            testServiceConfiguration);
+        assertTrue(strategyToTest.replaceServices(replacementStrategy, Duration.ofMinutes(1)).isSuccessful());
+
+        // The replacement pool was warmed up.  Both instances are handed back to the pool that created them
+        RecordingService replacementService = strategyToTest.getService("pooledService");
+        assertTrue(replacementService != originalService);
+        assertTrue(stoppedNames.isEmpty(), "testReplaceServicesReleasesToReplacedController - Ensure a borrowed " +
+                                               "instance keeps the replaced pool running");
+        strategyToTest.releaseService("pooledService", originalService);
+        assertEquals(List.of("original"), stoppedNames,
+                     "testReplaceServicesReleasesToReplacedController - Ensure the replaced pool is shut down " +
+                         "once its last instance is released, without waiting for the drain timeout");
+        strategyToTest.releaseService("pooledService", replacementService);
+        assertTrue(replacementService == strategyToTest.getService("pooledService"));
+        strategyToTest.releaseService("pooledService", replacementService);
+
+        // Shutdown does not wait for the drain timeout
+        strategyToTest.shutdown();
+        assertEquals(Set.of("original", "replacement"), Set.copyOf(stoppedNames));
+    }
+
+    @Test
+    public void testOverrideIsNotDrained() throws Exception
+    {
+        PooledServiceLifecycleController originalController =
+            new PooledServiceLifecycleController(0, 1, Duration.ofMillis(10));
+        strategyToTest.registerService("pooledService",
+                                       () -> new RecordingService("original", null, stoppedNames, false),
+                                       originalController, testServiceConfiguration);
+        RecordingService originalService = strategyToTest.getService("pooledService");
+
+        // Unlike replaceServices, the overridden controller is shut down before the override returns
+        strategyToTest.registerService("pooledService",
+                                       () -> new RecordingService("override", null, stoppedNames, false),
+                                       new PooledServiceLifecycleController(0, 1, Duration.ofMillis(10)),
+                                       testServiceConfiguration, true);
+        assertThrows(IllegalStateException.class, () -> { originalController.getService(); });
+
+        // The instance obtained before the override is ignored by the new controller rather than pooled by it
+        strategyToTest.releaseService("pooledService", originalService);
+        RecordingService overrideService = strategyToTest.getService("pooledService");
+        assertEquals("override", overrideService.name);
+        assertThrows(ServiceException.class, () -> { strategyToTest.getService("pooledService"); });
+        strategyToTest.releaseService("pooledService", overrideService);
+    }
+
+    @Test
+    public void testChildStrategy() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        registerRecordingService("shared", startedNames, false);
+        registerRecordingService("overridden", startedNames, false);
+        ServiceManagerStrategyImpl childStrategy = new ServiceManagerStrategyImpl(strategyToTest);
+        registerRecordingService(childStrategy, "overridden", startedNames, false);
+        ServiceManagerStrategyImpl grandchildStrategy = new ServiceManagerStrategyImpl(childStrategy);
+        assertTrue(grandchildStrategy.getParentStrategy() == childStrategy);
+
+        RecordingService sharedService = grandchildStrategy.getService("shared");
+        assertTrue(sharedService == strategyToTest.getService("shared"),
+                   "testChildStrategy - Ensure services not defined by the child come from the root");
+        assertTrue(childStrategy.getService("overridden") == grandchildStrategy.getService("overridden"),
+                   "testChildStrategy - Ensure the nearest ancestor wins");
+        assertTrue(strategyToTest.getService("overridden") != childStrategy.getService("overridden"));
+        assertTrue(grandchildStrategy.isServiceDefined("shared"));
+        assertFalse(grandchildStrategy.isServiceDefined("missing"));
+        assertThrows(ServiceNotAvailableException.class, () -> { grandchildStrategy.getService("missing"); });
+
+        // An override in the root is seen through the cached resolution
+        ServiceKey<RecordingService> sharedKey = grandchildStrategy.getServiceKey("shared");
+        strategyToTest.registerService("shared", () -> new RecordingService("sharedTwo", null, stoppedNames, false),
+                                       new SingletonServiceLifecycleController(), testServiceConfiguration, true);
+        assertEquals("sharedTwo", sharedKey.getService().name);
+        assertEquals("sharedTwo", ((RecordingService)grandchildStrategy.getServiceAsync("shared").get()).name);
+
+        // Defining the service in the child invalidates the cached resolution of the grandchild
+        childStrategy.registerService("shared", () -> new RecordingService("sharedThree", null, stoppedNames, false),
+                                      new SingletonServiceLifecycleController(), testServiceConfiguration);
+        assertEquals("sharedThree", sharedKey.getService().name);
+
+        // As does removing it
+        assertThrows(ServiceNotAvailableException.class, () -> { grandchildStrategy.getService("missing"); });
+        registerRecordingService(strategyToTest, "missing", startedNames, false);
+        assertEquals("missing", grandchildStrategy.<RecordingService>getService("missing").name);
+        childStrategy.shutdown();
+        assertEquals("sharedTwo", sharedKey.getService().name);
+        assertTrue(strategyToTest.getService("overridden") == grandchildStrategy.getService("overridden"));
+        assertFalse(stoppedNames.contains("sharedTwo"), "testChildStrategy - Ensure a child stops only its services");
+
+        // Dependencies may refer to services of an ancestor
+        registerRecordingService(grandchildStrategy, "dependent", startedNames, false);
+        grandchildStrategy.registerServiceDependencies("dependent", "shared");
+        assertTrue(grandchildStrategy.startAll().isSuccessful());
+
+        strategyToTest.shutdown();
+        assertThrows(ServiceNotAvailableException.class, () -> { sharedKey.getService(); });
+        assertTrue(grandchildStrategy.isServiceDefined("dependent"));
+        grandchildStrategy.shutdown();
+    }
+
+    @Test
+    public void testChildStrategyOfOtherStrategy() throws ServiceException
+    {
+        ServiceManagerStrategy parentStrategy = mock(ServiceManagerStrategy.class);
+        when(parentStrategy.isServiceDefined("parentService")).thenReturn(true);
+        when(parentStrategy.getService("parentService")).thenReturn(mockService);
+        ServiceManagerStrategyImpl childStrategy = new ServiceManagerStrategyImpl(parentStrategy);
+
+        assertTrue(childStrategy.isServiceDefined("parentService"));
+        assertTrue(mockService == childStrategy.getService("parentService"));
+        childStrategy.releaseService("parentService", mockService);
+        verify(parentStrategy).releaseService("parentService", mockService);
+    }
+
+    @Test
+    public void testFindService() throws Exception
+    {
+        StripedServiceMetrics serviceMetrics = new StripedServiceMetrics();
+        strategyToTest.setServiceMetrics(serviceMetrics);
+        ServiceManagerStrategyImpl childStrategy = new ServiceManagerStrategyImpl(strategyToTest);
+
+        // Misses are not errors, and are answered from the negative cache when repeated
+        assertTrue(strategyToTest.findService("optional").isEmpty());
+        assertTrue(strategyToTest.findService("optional").isEmpty());
+        assertTrue(childStrategy.findService("optional").isEmpty());
+        assertTrue(childStrategy.findService("optional").isEmpty());
+        assertTrue(serviceMetrics.snapshot("optional") == null);
+
+        // Registering the service invalidates the cached misses throughout the hierarchy
+        List<String> startedNames = new ArrayList<String>();
+        registerRecordingService("optional", startedNames, false);
+        Service service = strategyToTest.findService("optional").orElseThrow();
+        assertTrue(service == childStrategy.findService("optional").orElseThrow());
+        assertEquals(List.of("optional"), startedNames);
+
+        strategyToTest.shutdown();
+        assertTrue(strategyToTest.findService("optional").isEmpty());
+        assertTrue(childStrategy.findService("optional").isEmpty());
+
+        // Ancestors that are not implementations are asked every time
+        ServiceManagerStrategy parentStrategy = mock(ServiceManagerStrategy.class);
+        when(parentStrategy.findService("parentService")).thenReturn(Optional.of(mockService));
+        ServiceManagerStrategyImpl otherChildStrategy = new ServiceManagerStrategyImpl(parentStrategy);
+        assertTrue(mockService == otherChildStrategy.findService("parentService").orElseThrow());
+        assertTrue(otherChildStrategy.findService("missing").isEmpty());
+        assertTrue(otherChildStrategy.findService("missing").isEmpty());
+        verify(parentStrategy, times(2)).findService("missing");
+    }
+
+    @Test
+    public void testChildLookupsCreateNoKeysForUndefinedNames() throws Exception
+    {
+        ServiceManagerStrategyImpl childStrategy = new ServiceManagerStrategyImpl(strategyToTest);
+        assertTrue(childStrategy.findService("undefined").isEmpty());
+        assertThrows(ServiceNotAvailableException.class, () -> { childStrategy.getService("undefined"); });
+        ExecutionException exception =
+            assertThrows(ExecutionException.class, () -> childStrategy.getServiceAsync("undefined").get());
+        assertInstanceOf(ServiceNotAvailableException.class, exception.getCause());
+
+        // A key created by the lookups would hold the resolution of the name among the ancestors
+        assertNull(childStrategy.getServiceKey("undefined").parentResolution,
+                   "testChildLookupsCreateNoKeysForUndefinedNames - Ensure lookups did not create a key");
+
+        // A frozen child serves the services of its ancestors without creating keys either
+        childStrategy.freeze();
+        strategyToTest.registerSingletonService("parentService", TestService.class, testServiceConfiguration);
+        Service parentService = strategyToTest.getService("parentService");
+        assertTrue(parentService == childStrategy.getService("parentService"));
+        assertTrue(parentService == childStrategy.getServiceAsync("parentService").get());
+        assertTrue(parentService == childStrategy.findService("parentService").orElseThrow());
+        assertNull(childStrategy.getServiceKey("parentService").parentResolution,
+                   "testChildLookupsCreateNoKeysForUndefinedNames - Ensure a frozen child did not create a key");
+    }
+
+    @Test
+    public void testFreeze() throws Exception
+    {
+        List<String> startedNames = Collections.synchronizedList(new ArrayList<String>());
+        for (int i = 0; i < 200; i++)
+        {
+            registerRecordingService("service" + i, startedNames, false);
+        }
+
+        strategyToTest.freeze();
+        assertTrue(strategyToTest.isFrozen());
+
+        // Every name resolves to its own service through the frozen table
+        Set<Service> services = Collections.newSetFromMap(new IdentityHashMap<Service, Boolean>());
+        for (int i = 0; i < 200; i++)
+        {
+            Service service = strategyToTest.getService("service" + i);
+            assertTrue(service == strategyToTest.getServiceKey("service" + i).getService());
+            services.add(service);
+        }
+        assertEquals(200, services.size());
+        assertTrue(strategyToTest.isServiceDefined("service199"));
+        assertFalse(strategyToTest.isServiceDefined("service200"));
+        assertThrows(ServiceNotAvailableException.class, () -> { strategyToTest.getService("service200"); });
+
+        // Registrations are rejected until the registry is unfrozen
+        assertThrows(IllegalStateException.class, () -> registerRecordingService("service200", startedNames, false));
+        assertThrows(IllegalStateException.class,
+                     () -> strategyToTest.registerSingletonService("service0", TestService.class,
+                                                                   testServiceConfiguration, true));
+        assertThrows(IllegalStateException.class,
+                     () -> strategyToTest.registerServiceDependencies("service0", "service1"));
+        assertThrows(IllegalStateException.class,
+                     () -> strategyToTest.replaceServices(new ServiceManagerStrategyImpl(), Duration.ZERO));
+
+        strategyToTest.unfreeze();
+        assertFalse(strategyToTest.isFrozen());
+        registerRecordingService("service200", startedNames, false);
+        assertTrue(strategyToTest.isServiceDefined("service200"));
+
+        // Names that share a hash code are still resolved
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        registerRecordingService("Aa", startedNames, false);
+        registerRecordingService("BB", startedNames, false);
+        strategyToTest.freeze();
+        assertTrue(strategyToTest.getService("Aa") != strategyToTest.getService("BB"));
+        assertTrue(strategyToTest.isServiceDefined("service200"));
+        assertFalse(strategyToTest.isServiceDefined("C#"));
+        strategyToTest.shutdown();
+    }
+
+    private void registerRecordingService(String name, List<String> startedNames, boolean failOnStart)
+        throws ServiceException
+    {
+        registerRecordingService(strategyToTest, name, startedNames, failOnStart);
+    }
+
+    private void registerRecordingService(ServiceManagerStrategyImpl strategy, String name, List<String> startedNames,
+                                          boolean failOnStart) throws ServiceException
+    {
+        ServiceInstanceProvider serviceInstanceProvider =
+            () -> new RecordingService(name, startedNames, stoppedNames, failOnStart);
+        strategy.registerService(name, serviceInstanceProvider, new SingletonServiceLifecycleController(),
+                                 testServiceConfiguration);
+    }
+
+    public interface Calculator
+    {
+        long add(long value, int increment);
+
+        double scale(double value, float factor);
+
+        String describe(String label);
+
+        void reset(boolean clear);
+
+        default String name()
+        {
+            return "unnamed";
+        }
+    }
+
+    interface HiddenCounter
+    {
+        int increment(int value);
+    }
+
+    public static class CalculatorService extends BaseService<ServiceConfiguration> implements Calculator, HiddenCounter
+    {
+        private long total;
+
+        @Override
+        public long add(long value, int increment)
+        {
+            this.total = value + increment;
+            return this.total;
+        }
+
+        @Override
+        public double scale(double value, float factor)
+        {
+            return value * factor;
+        }
+
+        @Override
+        public String describe(String label)
+        {
+            return label + ": " + this.total;
+        }
+
+        @Override
+        public void reset(boolean clear)
+        {
+            if (clear)
+            {
+                this.total = 0;
+            }
+        }
+
+        @Override
+        public String name()
+        {
+            return "calculator";
+        }
+
+        @Override
+        public int increment(int value)
+        {
+            return value + 1;
+        }
+    }
+
+    private static class RecordingService extends BaseService<ServiceConfiguration>
+    {
+        private final String name;
+        private final List<String> startedNames;
+        private final List<String> stoppedNames;
+        private final boolean failOnStart;
+
+        private RecordingService(String name, List<String> startedNames, List<String> stoppedNames,
+                                 boolean failOnStart)
+        {
+            this.name = name;
+            this.startedNames = startedNames;
+            this.stoppedNames = stoppedNames;
+            this.failOnStart = failOnStart;
+        }
+
+        @Override
+        public void stop()
+        {
+            this.stoppedNames.add(this.name);
+        }
+
+        @Override
+        public void start()
+        {
+            if (this.failOnStart)
+            {
+                throw new IllegalStateException("Failed to start " + this.name);
+            }
+            if (this.startedNames != null)
+            {
+                this.startedNames.add(this.name);
+            }
+        }
+    }
 }
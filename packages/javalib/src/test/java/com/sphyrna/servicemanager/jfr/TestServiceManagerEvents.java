@@ -0,0 +1,88 @@
+package com.sphyrna.servicemanager.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceManagerConstants;
+import com.sphyrna.servicemanager.ServiceNotAvailableException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import com.sphyrna.servicemanager.providers.BaseService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+public class TestServiceManagerEvents
+{
+    @Test
+    public void testEventsRecorded() throws Exception
+    {
+        Path recordingFile = Files.createTempFile("service-manager", ".jfr");
+        try (Recording recording = new Recording())
+        {
+            recording.enable(ServiceRegisteredEvent.class);
+            recording.enable(ServiceOverriddenEvent.class);
+            recording.enable(ServiceLookupMissEvent.class);
+            recording.enable(ServiceInitializedEvent.class);
+            recording.enable(ServiceStartedEvent.class);
+            recording.enable(ServiceStoppedEvent.class);
+            recording.start();
+
+            ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+            strategy.registerSingletonService("serviceOne", EventTestService.class,
+                                              ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION);
+            strategy.registerSingletonService("serviceOne", EventTestService.class,
+                                              ServiceManagerConstants.EMPTY_SERVICE_CONFIGURATION, true);
+            strategy.getService("serviceOne");
+            assertThrows(ServiceNotAvailableException.class, () -> { strategy.getService("undefinedService"); });
+            strategy.shutdown();
+
+            recording.stop();
+            recording.dump(recordingFile);
+
+            Map<String, Integer> eventCounts = new HashMap<String, Integer>();
+            List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+            for (RecordedEvent nextEvent : events)
+            {
+                eventCounts.merge(nextEvent.getEventType().getName(), 1, Integer::sum);
+            }
+
+            assertEquals(2, eventCounts.get("com.sphyrna.servicemanager.ServiceRegistered"));
+            assertEquals(1, eventCounts.get("com.sphyrna.servicemanager.ServiceOverridden"));
+            assertEquals(1, eventCounts.get("com.sphyrna.servicemanager.ServiceLookupMiss"));
+            assertEquals(1, eventCounts.get("com.sphyrna.servicemanager.ServiceInitialized"));
+            assertEquals(1, eventCounts.get("com.sphyrna.servicemanager.ServiceStarted"));
+            assertEquals(1, eventCounts.get("com.sphyrna.servicemanager.ServiceStopped"));
+
+            for (RecordedEvent nextEvent : events)
+            {
+                if (nextEvent.getEventType().getName().equals("com.sphyrna.servicemanager.ServiceLookupMiss"))
+                {
+                    assertEquals("undefinedService", nextEvent.getString("serviceName"));
+                }
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
+    @Test
+    public void testEventsDisabledByDefault()
+    {
+        assertTrue(!new ServiceRegisteredEvent().isEnabled() && !new ServiceStartedEvent().isEnabled(),
+                   "testEventsDisabledByDefault - Ensure events are disabled without a recording that enables them");
+    }
+
+    public static class EventTestService extends BaseService<ServiceConfiguration>
+    {
+    }
+}
@@ -0,0 +1,118 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class TestCompactConfiguration
+{
+    @Test
+    public void testGetContainsProperty()
+    {
+        Object objectValue = new Object();
+        CompactConfiguration configurationToTest =
+            CompactConfiguration.builder().set("name", "value").set("object", objectValue).set("name", "replaced")
+                .build();
+
+        assertEquals(2, configurationToTest.size());
+        assertEquals(List.of("name", "object"), configurationToTest.getPropertyNames());
+        assertTrue(configurationToTest.containsProperty("name"));
+        assertFalse(configurationToTest.containsProperty("missing"));
+        assertEquals("replaced", configurationToTest.getProperty("name"));
+        assertTrue(objectValue == configurationToTest.getProperty("object"));
+        assertThrows(IllegalArgumentException.class, () -> { configurationToTest.getProperty("missing"); });
+        assertThrows(NullPointerException.class, () -> { configurationToTest.getProperty(null); });
+    }
+
+    @Test
+    public void testTypedAccessors()
+    {
+        CompactConfiguration configurationToTest = CompactConfiguration.builder()
+                                                       .setInt("int", 42)
+                                                       .setLong("long", Long.MAX_VALUE)
+                                                       .setDouble("double", 1.5)
+                                                       .setBoolean("boolean", true)
+                                                       .setAll(Map.of("intString", " -7 ", "doubleString", "2.25",
+                                                                      "booleanString", "FALSE", "string", "NaN"))
+                                                       .build();
+
+        assertEquals(42, configurationToTest.getInt("int"));
+        assertEquals(42L, configurationToTest.getLong("int"));
+        assertEquals(42.0, configurationToTest.getDouble("int"));
+        assertEquals(Integer.valueOf(42), configurationToTest.getProperty("int"));
+        assertEquals(Long.MAX_VALUE, configurationToTest.getLong("long"));
+        assertThrows(IllegalArgumentException.class, () -> { configurationToTest.getInt("long"); });
+        assertEquals(1.5, configurationToTest.getDouble("double"));
+        assertThrows(IllegalArgumentException.class, () -> { configurationToTest.getLong("double"); });
+        assertTrue(configurationToTest.getBoolean("boolean"));
+        assertThrows(IllegalArgumentException.class, () -> { configurationToTest.getInt("boolean"); });
+
+        // Strings are converted when the configuration is built, but getProperty returns them unchanged
+        assertEquals(-7, configurationToTest.getInt("intString"));
+        assertEquals(" -7 ", configurationToTest.getProperty("intString"));
+        assertEquals(2.25, configurationToTest.getDouble("doubleString"));
+        assertFalse(configurationToTest.getBoolean("booleanString"));
+        assertThrows(IllegalArgumentException.class, () -> { configurationToTest.getDouble("string"); });
+        assertThrows(IllegalArgumentException.class, () -> { configurationToTest.getBoolean("string"); });
+
+        assertEquals(3, configurationToTest.getInt("missing", 3));
+        assertEquals(3L, configurationToTest.getLong("missing", 3L));
+        assertEquals(3.0, configurationToTest.getDouble("missing", 3.0));
+        assertTrue(configurationToTest.getBoolean("missing", true));
+        assertEquals(42, configurationToTest.getInt("int", 3));
+        assertThrows(IllegalArgumentException.class, () -> { configurationToTest.getInt("missing"); });
+    }
+
+    @Test
+    public void testManyProperties()
+    {
+        CompactConfiguration.Builder builder = CompactConfiguration.builder();
+        for (int i = 0; i < 1000; i++)
+        {
+            builder.setInt("property" + i, i);
+        }
+        CompactConfiguration configurationToTest = builder.build();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(i, configurationToTest.getInt("property" + i));
+        }
+        assertFalse(configurationToTest.containsProperty("property1000"));
+
+        // The builder may be reused without affecting configurations it already built
+        builder.setInt("property1000", 1000);
+        assertFalse(configurationToTest.containsProperty("property1000"));
+        assertEquals(1001, builder.build().size());
+    }
+
+    @Test
+    public void testEquals()
+    {
+        CompactConfiguration configurationToTest =
+            CompactConfiguration.builder().set("host", "localhost").setInt("port", 8080).build();
+        CompactConfiguration reordered =
+            CompactConfiguration.builder().setInt("port", 8080).set("host", "localhost").build();
+        CompactConfiguration different =
+            CompactConfiguration.builder().set("host", "localhost").setInt("port", 8081).build();
+
+        assertEquals(configurationToTest, reordered);
+        assertEquals(configurationToTest.hashCode(), reordered.hashCode());
+        assertNotEquals(configurationToTest, different);
+        assertNotEquals(configurationToTest, CompactConfiguration.builder().set("host", "localhost").build());
+        assertNotEquals(configurationToTest, CompactConfiguration.empty());
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        assertTrue(CompactConfiguration.empty() == CompactConfiguration.builder().build());
+        assertEquals(0, CompactConfiguration.empty().size());
+        assertFalse(CompactConfiguration.empty().containsProperty("name"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.InvalidServiceDefinitionException;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceNotAvailableException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestConfigServiceManagerStrategy
+{
+    private static final String TEST_SERVICE_CLASS = ConfigTestService.class.getName();
+
+    @TempDir
+    private Path tempDirectory;
+
+    @Test
+    public void testLoadDescriptor() throws Exception
+    {
+        Path descriptorPath = writeDescriptor("""
+            # Test services
+            [serviceOne]
+            class = %1$s
+            property.greeting = hello
+
+            [serviceTwo]
+            class = %1$s
+            controller = POOLED
+            dependsOn = serviceOne
+
+            [serviceThree]
+            class = %1$s
+            controller = com.sphyrna.servicemanager.providers.SingletonServiceLifecycleController
+            """.formatted(TEST_SERVICE_CLASS));
+        ConfigServiceManagerStrategy strategyToTest =
+            new ConfigServiceManagerStrategy(descriptorPath, getClass().getClassLoader());
+
+        assertTrue(strategyToTest.isServiceDefined("serviceOne"));
+        assertTrue(strategyToTest.isServiceDefined("serviceTwo"));
+        assertTrue(strategyToTest.isServiceDefined("serviceThree"));
+        assertFalse(strategyToTest.isServiceDefined("serviceFour"));
+
+        ConfigTestService serviceOne = strategyToTest.getService("serviceOne");
+        assertEquals("hello", serviceOne.configuration.getProperty("greeting"));
+        assertTrue(serviceOne == strategyToTest.getService("serviceOne"),
+                   "testLoadDescriptor - Ensure the default controller is a singleton");
+
+        ConfigTestService serviceTwo = strategyToTest.getService("serviceTwo");
+        strategyToTest.releaseService("serviceTwo", serviceTwo);
+        assertTrue(serviceTwo == strategyToTest.getService("serviceTwo"),
+                   "testLoadDescriptor - Ensure the pooled controller reuses released instances");
+
+        assertInstanceOf(ConfigTestService.class, strategyToTest.getServiceAsync("serviceThree").get());
+        assertThrows(ServiceNotAvailableException.class, () -> { strategyToTest.getService("serviceFour"); });
+
+        strategyToTest.shutdown();
+        assertTrue(serviceOne.stopped, "testLoadDescriptor - Ensure services are stopped on shutdown");
+    }
+
+    @Test
+    public void testLoadLargeDescriptor() throws Exception
+    {
+        int serviceCount = 5000;
+        StringBuilder descriptor = new StringBuilder();
+        for (int i = 0; i < serviceCount; i++)
+        {
+            descriptor.append("[service").append(i).append("]\n");
+            descriptor.append("class = ").append(TEST_SERVICE_CLASS).append('\n');
+            descriptor.append("property.index = ").append(i).append('\n');
+        }
+        ConfigServiceManagerStrategy strategyToTest =
+            new ConfigServiceManagerStrategy(writeDescriptor(descriptor.toString()), getClass().getClassLoader());
+
+        strategyToTest.load();
+        for (int i = 0; i < serviceCount; i += 499)
+        {
+            ConfigTestService service = strategyToTest.getService("service" + i);
+            assertEquals(Integer.toString(i), service.configuration.getProperty("index"));
+            assertEquals(i, ((CompactConfiguration)service.configuration).getInt("index"));
+        }
+    }
+
+    @Test
+    public void testInvalidDescriptor() throws Exception
+    {
+        assertLoadFails("[serviceOne]\nclass = com.example.DoesNotExist\n");
+        assertLoadFails("[serviceOne]\nclass = java.lang.String\n");
+        assertLoadFails("[serviceOne]\nclass = " + TEST_SERVICE_CLASS + "\ncontroller = UNKNOWN\n");
+        assertLoadFails("[serviceOne]\nclass = " + TEST_SERVICE_CLASS + "\ncontroller = java.lang.String\n");
+
+        // A missing file fails on every use until it exists
+        Path missingPath = tempDirectory.resolve("missing.services");
+        ConfigServiceManagerStrategy strategyToTest =
+            new ConfigServiceManagerStrategy(missingPath, getClass().getClassLoader());
+        assertThrows(ServiceException.class, () -> { strategyToTest.load(); });
+        Files.writeString(missingPath, "[serviceOne]\nclass = " + TEST_SERVICE_CLASS + "\n");
+        assertTrue(strategyToTest.isServiceDefined("serviceOne"));
+    }
+
+    @Test
+    public void testNoDescriptorProperty() throws ServiceException
+    {
+        ConfigServiceManagerStrategy strategyToTest = new ConfigServiceManagerStrategy();
+        if (System.getProperty(ConfigServiceManagerStrategy.DESCRIPTOR_PATH_PROPERTY) == null)
+        {
+            strategyToTest.load();
+            assertFalse(strategyToTest.isServiceDefined("serviceOne"));
+        }
+    }
+
+    private void assertLoadFails(String descriptor) throws IOException
+    {
+        ConfigServiceManagerStrategy strategyToTest =
+            new ConfigServiceManagerStrategy(writeDescriptor(descriptor), getClass().getClassLoader());
+        assertThrows(InvalidServiceDefinitionException.class, () -> { strategyToTest.load(); }, descriptor);
+    }
+
+    private Path writeDescriptor(String descriptor) throws IOException
+    {
+        return Files.writeString(Files.createTempFile(tempDirectory, "test", ".services"), descriptor);
+    }
+
+    public static class ConfigTestService extends BaseService<ServiceConfiguration>
+    {
+        private ServiceConfiguration configuration;
+        private boolean stopped;
+
+        @Override
+        public void init(ServiceConfiguration configuration)
+        {
+            this.configuration = configuration;
+        }
+
+        @Override
+        public void stop()
+        {
+            this.stopped = true;
+        }
+
+        ServiceConfiguration getConfiguration()
+        {
+            return this.configuration;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class TestIdleEvictingServiceLifecycleController
+{
+    @Test
+    public void testEvictsIdleInstanceAndRecreates() throws Exception
+    {
+        Service firstService = mock(Service.class);
+        Service secondService = mock(Service.class);
+        ServiceInstanceProvider<Service> instanceProvider = mock(ServiceInstanceProvider.class);
+        when(instanceProvider.createServiceInstance()).thenReturn(firstService, secondService);
+
+        IdleEvictingServiceLifecycleController controllerToTest =
+            new IdleEvictingServiceLifecycleController(Duration.ofMillis(40));
+        MapConfiguration configuration = new MapConfiguration();
+        controllerToTest.init(instanceProvider, configuration);
+
+        assertSame(firstService, controllerToTest.getService());
+        assertSame(firstService, controllerToTest.getService());
+        verify(firstService).start();
+
+        verify(firstService, timeout(5000)).stop();
+        verify(firstService, timeout(5000)).destroy();
+
+        assertSame(secondService, controllerToTest.getService());
+        verify(secondService).init(configuration);
+        verify(secondService).start();
+
+        // The second instance may be evicted before shutdown.  Either way it is stopped once
+        controllerToTest.shutdown();
+        verify(secondService, timeout(5000)).stop();
+        verify(secondService, timeout(5000)).destroy();
+        assertThrows(IllegalStateException.class, () -> controllerToTest.getService());
+    }
+
+    @Test
+    public void testKeepsInstanceInUse() throws Exception
+    {
+        AtomicInteger createCount = new AtomicInteger();
+        ServiceInstanceProvider<Service> instanceProvider = () ->
+        {
+            createCount.incrementAndGet();
+            return new BaseService<ServiceConfiguration>() {};
+        };
+
+        IdleEvictingServiceLifecycleController controllerToTest =
+            new IdleEvictingServiceLifecycleController(Duration.ofMillis(200));
+        controllerToTest.init(instanceProvider, new MapConfiguration());
+
+        Service instance = controllerToTest.getService();
+        long endTime = System.nanoTime() + Duration.ofMillis(600).toNanos();
+        while (System.nanoTime() < endTime)
+        {
+            assertSame(instance, controllerToTest.getService());
+            Thread.sleep(10);
+        }
+        assertEquals(1, createCount.get());
+
+        controllerToTest.shutdown();
+    }
+
+    @Test
+    public void testIdleTimeoutProperty() throws Exception
+    {
+        Service service = mock(Service.class);
+        ServiceInstanceProvider<Service> instanceProvider = mock(ServiceInstanceProvider.class);
+        when(instanceProvider.createServiceInstance()).thenReturn(service);
+
+        MapConfiguration configuration = new MapConfiguration();
+        configuration.setProperty(IdleEvictingServiceLifecycleController.IDLE_TIMEOUT_MILLIS_PROPERTY, "20");
+
+        IdleEvictingServiceLifecycleController controllerToTest = new IdleEvictingServiceLifecycleController();
+        controllerToTest.init(instanceProvider, configuration);
+        controllerToTest.getService();
+
+        verify(service, timeout(5000)).destroy();
+        controllerToTest.shutdown();
+        verify(service).stop();
+
+        configuration.setProperty(IdleEvictingServiceLifecycleController.IDLE_TIMEOUT_MILLIS_PROPERTY, "soon");
+        assertThrows(IllegalArgumentException.class,
+                     () -> new IdleEvictingServiceLifecycleController().init(instanceProvider, configuration));
+        assertThrows(IllegalArgumentException.class, () -> new IdleEvictingServiceLifecycleController(Duration.ZERO));
+    }
+
+    @Test
+    public void testShutdownWithoutInstance() throws ServiceException
+    {
+        ServiceInstanceProvider<Service> instanceProvider = mock(ServiceInstanceProvider.class);
+
+        IdleEvictingServiceLifecycleController controllerToTest = new IdleEvictingServiceLifecycleController();
+        controllerToTest.init(instanceProvider, new MapConfiguration());
+        controllerToTest.shutdown();
+
+        verify(instanceProvider, never()).createServiceInstance();
+        assertThrows(IllegalStateException.class, () -> controllerToTest.getService());
+    }
+}
@@ -0,0 +1,234 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class TestPerConfigurationServiceLifecycleController
+{
+    @Test
+    public void testInstancePerConfiguration() throws ServiceException
+    {
+        AtomicInteger createCount = new AtomicInteger();
+        PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration> controllerToTest =
+            new PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration>();
+        CompactConfiguration registeredConfiguration = CompactConfiguration.builder().set("region", "default").build();
+        controllerToTest.init(countingProvider(createCount), registeredConfiguration);
+
+        CompactConfiguration eastConfiguration = CompactConfiguration.builder().set("region", "east").build();
+        ConfiguredService eastService = controllerToTest.getService(eastConfiguration);
+        assertSame(eastConfiguration, eastService.configuration);
+        assertTrue(eastService.started);
+
+        // Equal configurations share an instance, and repeated lookups do not create or initialize it again
+        assertSame(eastService, controllerToTest.getService(eastConfiguration));
+        assertSame(eastService,
+                   controllerToTest.getService(CompactConfiguration.builder().set("region", "east").build()));
+        assertEquals(1, createCount.get());
+
+        ConfiguredService westService =
+            controllerToTest.getService(CompactConfiguration.builder().set("region", "west").build());
+        assertNotSame(eastService, westService);
+
+        ConfiguredService defaultService = controllerToTest.getService();
+        assertSame(registeredConfiguration, defaultService.configuration);
+        assertEquals(3, controllerToTest.getInstanceCount());
+
+        controllerToTest.shutdown();
+        assertTrue(eastService.stopped && westService.stopped && defaultService.stopped);
+        assertEquals(0, controllerToTest.getInstanceCount());
+        assertThrows(IllegalStateException.class, () -> controllerToTest.getService(eastConfiguration));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws ServiceException
+    {
+        AtomicInteger createCount = new AtomicInteger();
+        PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration> controllerToTest =
+            new PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration>(2);
+        controllerToTest.init(countingProvider(createCount), CompactConfiguration.empty());
+
+        CompactConfiguration firstConfiguration = CompactConfiguration.builder().setInt("id", 1).build();
+        CompactConfiguration secondConfiguration = CompactConfiguration.builder().setInt("id", 2).build();
+        CompactConfiguration thirdConfiguration = CompactConfiguration.builder().setInt("id", 3).build();
+
+        ConfiguredService firstService = controllerToTest.getService(firstConfiguration);
+        ConfiguredService secondService = controllerToTest.getService(secondConfiguration);
+
+        // The CLOCK hand clears both reference flags, then evicts the first instance it passes again
+        ConfiguredService thirdService = controllerToTest.getService(thirdConfiguration);
+        assertTrue(firstService.stopped);
+        assertFalse(secondService.stopped);
+        assertEquals(2, controllerToTest.getInstanceCount());
+
+        // The second instance was not used since the hand passed it, unlike the third which was just created
+        controllerToTest.getService(thirdConfiguration);
+        ConfiguredService recreatedService = controllerToTest.getService(firstConfiguration);
+        assertNotSame(firstService, recreatedService);
+        assertTrue(secondService.stopped);
+        assertFalse(thirdService.stopped);
+        assertEquals(4, createCount.get());
+
+        controllerToTest.shutdown();
+    }
+
+    @Test
+    public void testCreatesOutsideLock() throws Exception
+    {
+        CountDownLatch startsEntered = new CountDownLatch(2);
+        CountDownLatch releaseStarts = new CountDownLatch(1);
+        List<ConfiguredService> createdServices = new CopyOnWriteArrayList<ConfiguredService>();
+        CompactConfiguration slowConfiguration = CompactConfiguration.builder().set("region", "slow").build();
+        PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration> controllerToTest =
+            new PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration>();
+        controllerToTest.init(() -> {
+            ConfiguredService service = new ConfiguredService()
+            {
+                @Override
+                public void start()
+                {
+                    super.start();
+                    if (this.getConfiguration() == slowConfiguration)
+                    {
+                        startsEntered.countDown();
+                        try
+                        {
+                            releaseStarts.await();
+                        }
+                        catch (InterruptedException exception)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            };
+            createdServices.add(service);
+            return service;
+        }, CompactConfiguration.empty());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<ConfiguredService> firstSlowService =
+                executor.submit(() -> controllerToTest.getService(slowConfiguration));
+            Future<ConfiguredService> secondSlowService =
+                executor.submit(() -> controllerToTest.getService(slowConfiguration));
+            assertTrue(startsEntered.await(10, TimeUnit.SECONDS));
+
+            // Another configuration is served while the slow instances are starting
+            ConfiguredService fastService =
+                controllerToTest.getService(CompactConfiguration.builder().set("region", "fast").build());
+            assertTrue(fastService.started);
+
+            // Both slow lookups receive the instance published first, and the other one is destroyed
+            releaseStarts.countDown();
+            ConfiguredService slowService = firstSlowService.get(10, TimeUnit.SECONDS);
+            assertSame(slowService, secondSlowService.get(10, TimeUnit.SECONDS));
+            assertFalse(slowService.stopped);
+            assertEquals(3, createdServices.size());
+            assertEquals(1, createdServices.stream().filter(service -> service.stopped).count());
+            assertEquals(2, controllerToTest.getInstanceCount());
+        }
+        finally
+        {
+            releaseStarts.countDown();
+            executor.shutdownNow();
+        }
+
+        controllerToTest.shutdown();
+    }
+
+    @Test
+    public void testMaxInstancesProperty() throws ServiceException
+    {
+        AtomicInteger createCount = new AtomicInteger();
+        PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration> controllerToTest =
+            new PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration>();
+        controllerToTest.init(
+            countingProvider(createCount),
+            CompactConfiguration.builder().set(PerConfigurationServiceLifecycleController.MAX_INSTANCES_PROPERTY, "1")
+                .build());
+
+        controllerToTest.getService(CompactConfiguration.builder().setInt("id", 1).build());
+        controllerToTest.getService(CompactConfiguration.builder().setInt("id", 2).build());
+        assertEquals(1, controllerToTest.getInstanceCount());
+        controllerToTest.shutdown();
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> new PerConfigurationServiceLifecycleController<ConfiguredService, ServiceConfiguration>(0));
+    }
+
+    @Test
+    public void testGetServiceWithConfigurationThroughStrategy() throws ServiceException
+    {
+        ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+        strategy.registerService("configured", countingProvider(new AtomicInteger()),
+                                 new PerConfigurationServiceLifecycleController(), CompactConfiguration.empty());
+
+        CompactConfiguration eastConfiguration = CompactConfiguration.builder().set("region", "east").build();
+        ConfiguredService eastService = strategy.getService("configured", eastConfiguration);
+        assertSame(eastConfiguration, eastService.configuration);
+        assertSame(eastService, strategy.getService(strategy.getServiceKey("configured"), eastConfiguration));
+
+        ConfiguredService defaultService = strategy.getService("configured");
+        assertSame(CompactConfiguration.empty(), defaultService.configuration);
+
+        strategy.shutdown();
+        assertTrue(eastService.stopped && defaultService.stopped);
+    }
+
+    private static ServiceInstanceProvider<ConfiguredService> countingProvider(AtomicInteger createCount)
+    {
+        return () -> {
+            createCount.incrementAndGet();
+            return new ConfiguredService();
+        };
+    }
+
+    public static class ConfiguredService extends BaseService<ServiceConfiguration>
+    {
+        private ServiceConfiguration configuration;
+        private boolean started;
+        private boolean stopped;
+
+        @Override
+        public void init(ServiceConfiguration configuration)
+        {
+            this.configuration = configuration;
+        }
+
+        @Override
+        public void start()
+        {
+            this.started = true;
+        }
+
+        @Override
+        public void stop()
+        {
+            this.stopped = true;
+        }
+
+        ServiceConfiguration getConfiguration()
+        {
+            return this.configuration;
+        }
+    }
+}
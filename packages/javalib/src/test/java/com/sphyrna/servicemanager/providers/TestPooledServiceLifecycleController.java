@@ -0,0 +1,207 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestPooledServiceLifecycleController
+{
+    private AtomicInteger createdCount;
+    private AtomicInteger destroyedCount;
+    private ServiceInstanceProvider<PooledTestService> countingProvider;
+    private MapConfiguration testServiceConfiguration;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        createdCount = new AtomicInteger();
+        destroyedCount = new AtomicInteger();
+        countingProvider = () -> new PooledTestService();
+        testServiceConfiguration = new MapConfiguration();
+    }
+
+    @Test
+    public void testWarmupBorrowRelease() throws ServiceException
+    {
+        PooledServiceLifecycleController<PooledTestService, ServiceConfiguration> controllerToTest =
+            new PooledServiceLifecycleController<PooledTestService, ServiceConfiguration>(2, 4, Duration.ofSeconds(1));
+
+        // First call getService without calling init
+        assertThrows(IllegalStateException.class, () -> { controllerToTest.getService(); });
+
+        controllerToTest.init(countingProvider, testServiceConfiguration);
+        assertEquals(2, createdCount.get(), "testWarmupBorrowRelease - Ensure pool is warmed up to the minimum size");
+
+        PooledTestService first = controllerToTest.getService();
+        PooledTestService second = controllerToTest.getService();
+        assertTrue(first != second, "testWarmupBorrowRelease - Ensure borrowed instances are distinct");
+        assertTrue(first.started && second.started, "testWarmupBorrowRelease - Ensure instances are started");
+        assertEquals(2, createdCount.get(), "testWarmupBorrowRelease - Ensure warm instances are borrowed first");
+
+        // Grow beyond the minimum size
+        PooledTestService third = controllerToTest.getService();
+        assertEquals(3, createdCount.get(), "testWarmupBorrowRelease - Ensure the pool grows on demand");
+
+        // A released instance is reused by the same thread
+        controllerToTest.releaseService(third);
+        assertTrue(third == controllerToTest.getService(),
+                   "testWarmupBorrowRelease - Ensure a released instance is reused");
+        assertEquals(3, createdCount.get(), "testWarmupBorrowRelease - Ensure no instance is created on reuse");
+    }
+
+    @Test
+    public void testExhaustedPoolFails() throws ServiceException
+    {
+        PooledServiceLifecycleController<PooledTestService, ServiceConfiguration> controllerToTest =
+            new PooledServiceLifecycleController<PooledTestService, ServiceConfiguration>();
+
+        // Configuration properties take precedence over the constructor
+        testServiceConfiguration.setProperty(PooledServiceLifecycleController.MAX_SIZE_PROPERTY, "1");
+        testServiceConfiguration.setProperty(PooledServiceLifecycleController.MAX_WAIT_MILLIS_PROPERTY, 10);
+        controllerToTest.init(countingProvider, testServiceConfiguration);
+
+        PooledTestService instance = controllerToTest.getService();
+        assertThrows(ServiceException.class, () -> { controllerToTest.getService(); });
+
+        controllerToTest.releaseService(instance);
+        assertTrue(instance == controllerToTest.getService(),
+                   "testExhaustedPoolFails - Ensure the pool recovers once an instance is released");
+    }
+
+    @Test
+    public void testDuplicateReleaseIsIgnored() throws ServiceException
+    {
+        PooledServiceLifecycleController<PooledTestService, ServiceConfiguration> controllerToTest =
+            new PooledServiceLifecycleController<PooledTestService, ServiceConfiguration>(1, 1, Duration.ofMillis(10));
+        controllerToTest.init(countingProvider, testServiceConfiguration);
+
+        PooledTestService instance = controllerToTest.getService();
+        controllerToTest.releaseService(instance);
+        controllerToTest.releaseService(instance);
+
+        // A second release must not hand out a permit beyond the maximum size or the same instance twice
+        assertTrue(instance == controllerToTest.getService(),
+                   "testDuplicateReleaseIsIgnored - Ensure the released instance is reused");
+        assertThrows(ServiceException.class, () -> { controllerToTest.getService(); });
+
+        // Releasing an instance that is idle, or that the pool did not create, is ignored as well
+        controllerToTest.releaseService(instance);
+        controllerToTest.releaseService(instance);
+        controllerToTest.releaseService(new PooledTestService());
+        assertTrue(instance == controllerToTest.getService(),
+                   "testDuplicateReleaseIsIgnored - Ensure the pool still holds a single instance");
+        assertThrows(ServiceException.class, () -> { controllerToTest.getService(); });
+    }
+
+    @Test
+    public void testConcurrentBorrowNeverExceedsMaxSize() throws Exception
+    {
+        int maxSize = 4;
+        int threadCount = 16;
+        PooledServiceLifecycleController<PooledTestService, ServiceConfiguration> controllerToTest =
+            new PooledServiceLifecycleController<PooledTestService, ServiceConfiguration>(0, maxSize,
+                                                                                          Duration.ofSeconds(10));
+        controllerToTest.init(countingProvider, testServiceConfiguration);
+
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (int i = 0; i < threadCount; i++)
+            {
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        PooledTestService instance = controllerToTest.getService();
+                        assertFalse(instance.borrowed, "Ensure an instance is never borrowed twice");
+                        instance.borrowed = true;
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        inUse.decrementAndGet();
+                        instance.borrowed = false;
+                        controllerToTest.releaseService(instance);
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> nextResult : results)
+            {
+                nextResult.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertTrue(createdCount.get() <= maxSize,
+                   "testConcurrentBorrowNeverExceedsMaxSize - Ensure no more than maxSize instances are created");
+        assertTrue(maxInUse.get() <= maxSize,
+                   "testConcurrentBorrowNeverExceedsMaxSize - Ensure no more than maxSize instances are borrowed");
+    }
+
+    @Test
+    public void testShutdown() throws ServiceException
+    {
+        PooledServiceLifecycleController<PooledTestService, ServiceConfiguration> controllerToTest =
+            new PooledServiceLifecycleController<PooledTestService, ServiceConfiguration>(2, 2, Duration.ofSeconds(1));
+        controllerToTest.init(countingProvider, testServiceConfiguration);
+
+        PooledTestService borrowed = controllerToTest.getService();
+        controllerToTest.shutdown();
+        assertEquals(1, destroyedCount.get(), "testShutdown - Ensure idle instances are destroyed");
+
+        // Instances returned after shutdown are destroyed
+        controllerToTest.releaseService(borrowed);
+        assertEquals(2, destroyedCount.get(), "testShutdown - Ensure returned instances are destroyed");
+        assertFalse(borrowed.started, "testShutdown - Ensure returned instances are stopped");
+
+        // Once it's shutdown, expect methods to throw errors
+        assertThrows(IllegalStateException.class, () -> { controllerToTest.getService(); });
+    }
+
+    private class PooledTestService extends BaseService<ServiceConfiguration>
+    {
+        private volatile boolean started;
+        private volatile boolean borrowed;
+
+        private PooledTestService()
+        {
+            createdCount.incrementAndGet();
+        }
+
+        @Override
+        public void start()
+        {
+            this.started = true;
+        }
+
+        @Override
+        public void stop()
+        {
+            this.started = false;
+        }
+
+        @Override
+        public void destroy()
+        {
+            destroyedCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestScopedServiceLifecycleController
+{
+    private AtomicInteger destroyedCount;
+    private ServiceInstanceProvider<CountingTestService> countingProvider;
+    private MapConfiguration testServiceConfiguration;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        destroyedCount = new AtomicInteger();
+        countingProvider = () -> new CountingTestService();
+        testServiceConfiguration = new MapConfiguration();
+    }
+
+    @Test
+    public void testInstancePerScope() throws ServiceException
+    {
+        ScopedServiceLifecycleController<CountingTestService, ServiceConfiguration> controllerToTest =
+            new ScopedServiceLifecycleController<CountingTestService, ServiceConfiguration>(countingProvider,
+                                                                                testServiceConfiguration);
+
+        // Without a scope, expect an error
+        assertThrows(IllegalStateException.class, () -> { controllerToTest.getService(); });
+
+        CountingTestService outerInstance;
+        try (ServiceScope outerScope = ServiceScope.open())
+        {
+            outerInstance = controllerToTest.getService();
+            assertTrue(outerInstance == controllerToTest.getService(),
+                       "testInstancePerScope - Ensure a scope always receives the same instance");
+
+            try (ServiceScope innerScope = ServiceScope.open())
+            {
+                assertTrue(outerInstance != controllerToTest.getService(),
+                           "testInstancePerScope - Ensure a nested scope receives its own instance");
+            }
+            assertEquals(1, destroyedCount.get(), "testInstancePerScope - Ensure the nested instance is destroyed");
+            assertTrue(outerScope == ServiceScope.current(), "testInstancePerScope - Ensure outer scope is restored");
+        }
+
+        assertEquals(2, destroyedCount.get(), "testInstancePerScope - Ensure the outer instance is destroyed");
+        assertNull(ServiceScope.current(), "testInstancePerScope - Ensure no scope remains bound");
+    }
+
+    @Test
+    public void testScopeSharedWithVirtualThreads() throws Exception
+    {
+        ScopedServiceLifecycleController<CountingTestService, ServiceConfiguration> controllerToTest =
+            new ScopedServiceLifecycleController<CountingTestService, ServiceConfiguration>(countingProvider,
+                                                                                testServiceConfiguration);
+
+        try (ServiceScope scope = ServiceScope.open();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            CountingTestService instance = controllerToTest.getService();
+            Future<CountingTestService> forkedInstance = executor.submit(() -> scope.call(() -> controllerToTest.getService()));
+            assertTrue(instance == forkedInstance.get(),
+                       "testScopeSharedWithVirtualThreads - Ensure forked work shares the scope instance");
+        }
+
+        assertEquals(1, destroyedCount.get(), "testScopeSharedWithVirtualThreads - Ensure the instance is destroyed");
+    }
+
+    @Test
+    public void testRegisterServiceByControllerOnly() throws ServiceException
+    {
+        ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+        strategy.registerServiceByControllerOnly(
+            "scopedService",
+            new ScopedServiceLifecycleController<CountingTestService, ServiceConfiguration>(countingProvider,
+                                                                                testServiceConfiguration),
+            testServiceConfiguration);
+
+        try (ServiceScope scope = ServiceScope.open())
+        {
+            CountingTestService instance = strategy.getService("scopedService");
+            assertTrue(instance == strategy.getService("scopedService"),
+                       "testRegisterServiceByControllerOnly - Ensure a scope always receives the same instance");
+        }
+        assertEquals(1, destroyedCount.get(), "testRegisterServiceByControllerOnly - Ensure the instance is destroyed");
+    }
+
+    private class CountingTestService extends BaseService<ServiceConfiguration>
+    {
+        @Override
+        public void destroy()
+        {
+            destroyedCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.InvalidServiceDefinitionException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class TestServiceDescriptorReader
+{
+    @Test
+    public void testRead() throws InvalidServiceDefinitionException, IOException
+    {
+        List<ServiceDescriptor> descriptors = ServiceDescriptorReader.read(new StringReader("""
+            # comment
+            [serviceOne]
+            class = com.example.One
+
+            [ serviceTwo ]
+              class=com.example.Two
+            controller = POOLED
+            dependsOn = serviceOne, ,serviceThree
+            property.url = jdbc:test://host?a=b
+            """), "test");
+
+        assertEquals(2, descriptors.size());
+        ServiceDescriptor serviceOne = descriptors.get(0);
+        assertEquals("serviceOne", serviceOne.getName());
+        assertEquals("com.example.One", serviceOne.getServiceClassName());
+        assertEquals(ServiceDescriptorReader.DEFAULT_CONTROLLER_NAME, serviceOne.getControllerName());
+        assertTrue(serviceOne.getProperties().isEmpty() && serviceOne.getDependencies().isEmpty());
+        assertEquals(2, serviceOne.getLineNumber());
+
+        ServiceDescriptor serviceTwo = descriptors.get(1);
+        assertEquals("serviceTwo", serviceTwo.getName());
+        assertEquals("com.example.Two", serviceTwo.getServiceClassName());
+        assertEquals("POOLED", serviceTwo.getControllerName());
+        assertEquals(List.of("serviceOne", "serviceThree"), serviceTwo.getDependencies());
+        assertEquals(Map.of("url", "jdbc:test://host?a=b"), serviceTwo.getProperties());
+    }
+
+    @Test
+    public void testReadInvalid()
+    {
+        assertInvalid("class = com.example.One\n");
+        assertInvalid("[serviceOne\nclass = com.example.One\n");
+        assertInvalid("[]\nclass = com.example.One\n");
+        assertInvalid("[   ]\nclass = com.example.One\n");
+        assertInvalid("[serviceOne]\ncontroller = POOLED\n");
+        assertInvalid("[serviceOne]\nclass = com.example.One\nunknown = value\n");
+        assertInvalid("[serviceOne]\nclass com.example.One\n");
+        assertInvalid("[serviceOne]\nclass = com.example.One\n[serviceOne]\nclass = com.example.One\n");
+        assertInvalid("[serviceOne]\nclass = com.example.One\ndependsOn = serviceTwo, serviceOne\n");
+    }
+
+    @Test
+    public void testReadInvalidReportsLine()
+    {
+        assertInvalidLine("""
+            [serviceOne]
+            class = com.example.One
+
+            [serviceOne]
+            class = com.example.Two
+            """, 4);
+        assertInvalidLine("""
+            [serviceOne]
+            class = com.example.One
+            dependsOn = serviceOne
+            """, 3);
+    }
+
+    private static void assertInvalidLine(String descriptor, int lineNumber)
+    {
+        InvalidServiceDefinitionException exception = assertThrows(InvalidServiceDefinitionException.class, () -> {
+            ServiceDescriptorReader.read(new StringReader(descriptor), "test");
+        }, descriptor);
+        assertTrue(exception.getMessage().startsWith("test:" + lineNumber + ": "), exception.getMessage());
+    }
+
+    private static void assertInvalid(String descriptor)
+    {
+        InvalidServiceDefinitionException exception = assertThrows(InvalidServiceDefinitionException.class, () -> {
+            ServiceDescriptorReader.read(new StringReader(descriptor), "test");
+        }, descriptor);
+        assertTrue(exception.getMessage().startsWith("test:"), exception.getMessage());
+    }
+}
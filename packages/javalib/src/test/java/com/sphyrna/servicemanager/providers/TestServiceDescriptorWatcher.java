@@ -0,0 +1,115 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.InvalidServiceDefinitionException;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.defaultimpl.ServiceKey;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import com.sphyrna.servicemanager.providers.TestConfigServiceManagerStrategy.ConfigTestService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestServiceDescriptorWatcher
+{
+    private static final String TEST_SERVICE_CLASS = ConfigTestService.class.getName();
+
+    @TempDir
+    private Path tempDirectory;
+
+    @Test
+    public void testReloadOnChange() throws Exception
+    {
+        Path descriptorPath = this.tempDirectory.resolve("test.services");
+        writeDescriptor(descriptorPath, "hello");
+        ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+
+        try (ServiceDescriptorWatcher watcherToTest =
+                 new ServiceDescriptorWatcher(strategy, descriptorPath, getClass().getClassLoader(), Duration.ZERO))
+        {
+            watcherToTest.start();
+            assertThrows(IllegalStateException.class, () -> { watcherToTest.start(); });
+
+            ServiceKey<ConfigTestService> serviceKey = strategy.getServiceKey("serviceOne");
+            assertEquals("hello", getGreeting(serviceKey.getService()));
+
+            // Writing an unrelated file in the same directory does not trigger a reload
+            Files.writeString(this.tempDirectory.resolve("unrelated.txt"), "unrelated");
+            writeDescriptor(descriptorPath, "goodbye");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (getGreeting(serviceKey.getService()).equals("hello") && (System.nanoTime() < deadline))
+            {
+                Thread.sleep(10);
+            }
+            assertEquals("goodbye", getGreeting(serviceKey.getService()),
+                         "testReloadOnChange - Ensure the changed descriptor replaced the service");
+
+            // An invalid descriptor leaves the current services in place
+            Files.writeString(descriptorPath, "[serviceOne]\nclass = com.example.DoesNotExist\n");
+            assertThrows(InvalidServiceDefinitionException.class, () -> { watcherToTest.reload(); });
+            assertEquals("goodbye", getGreeting(serviceKey.getService()));
+        }
+
+        strategy.shutdown();
+    }
+
+    @Test
+    public void testStartFailure() throws IOException, ServiceException
+    {
+        Path descriptorPath = this.tempDirectory.resolve("missing.services");
+        ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+        ServiceDescriptorWatcher watcherToTest =
+            new ServiceDescriptorWatcher(strategy, descriptorPath, getClass().getClassLoader());
+
+        assertThrows(ServiceException.class, () -> { watcherToTest.start(); });
+        assertFalse(strategy.isServiceDefined("serviceOne"));
+
+        // A failed start can be retried
+        writeDescriptor(descriptorPath, "hello");
+        watcherToTest.start();
+        assertTrue(strategy.isServiceDefined("serviceOne"));
+        watcherToTest.close();
+        strategy.shutdown();
+    }
+
+    @Test
+    public void testCloseAndRestart() throws Exception
+    {
+        Path descriptorPath = this.tempDirectory.resolve("restart.services");
+        writeDescriptor(descriptorPath, "hello");
+        ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+        ServiceDescriptorWatcher watcherToTest =
+            new ServiceDescriptorWatcher(strategy, descriptorPath, getClass().getClassLoader(), Duration.ZERO);
+
+        watcherToTest.start();
+        watcherToTest.close();
+        watcherToTest.close();
+
+        // A closed watcher can be started again and picks up changes made while it was closed
+        writeDescriptor(descriptorPath, "goodbye");
+        watcherToTest.start();
+        assertEquals("goodbye", getGreeting(strategy.<ConfigTestService>getService("serviceOne")),
+                     "testCloseAndRestart - Ensure a restart reloads the descriptor");
+        watcherToTest.close();
+        strategy.shutdown();
+    }
+
+    private static String getGreeting(ConfigTestService service)
+    {
+        return (String)service.getConfiguration().getProperty("greeting");
+    }
+
+    private static void writeDescriptor(Path descriptorPath, String greeting) throws IOException
+    {
+        Files.writeString(descriptorPath, "[serviceOne]\nclass = " + TEST_SERVICE_CLASS + "\nproperty.greeting = " +
+                                              greeting + "\n");
+    }
+}
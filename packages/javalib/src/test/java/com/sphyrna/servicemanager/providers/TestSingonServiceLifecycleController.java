@@ -1,5 +1,6 @@
 package com.sphyrna.servicemanager.providers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -10,8 +11,16 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.sphyrna.servicemanager.Service;
+import com.sphyrna.servicemanager.ServiceConfiguration;
 import com.sphyrna.servicemanager.ServiceException;
 import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -93,4 +102,49 @@ public class TestSingonServiceLifecycleController
         // Once it's shutdown, expect methods to throw errors
         assertThrows(IllegalStateException.class, () -> { controllerToTest.getService(); });
     }
+
+    @Test
+    public void testConcurrentGetServiceCreatesOneInstance() throws Exception
+    {
+        int threadCount = 32;
+
+        AtomicInteger startCount = new AtomicInteger();
+        ServiceInstanceProvider<Service> countingProvider = () -> new BaseService<ServiceConfiguration>() {
+            @Override
+            public void start()
+            {
+                startCount.incrementAndGet();
+            }
+        };
+        controllerToTest.init(countingProvider, testServiceConfiguration);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<Service>> results = new ArrayList<Future<Service>>();
+            for (int i = 0; i < threadCount; i++)
+            {
+                results.add(executor.submit(() -> {
+                    startLatch.await();
+                    return controllerToTest.getService();
+                }));
+            }
+            startLatch.countDown();
+
+            Service firstInstance = results.get(0).get();
+            for (Future<Service> nextResult : results)
+            {
+                assertTrue(nextResult.get() == firstInstance,
+                           "testConcurrentGetServiceCreatesOneInstance - Ensure every thread receives the same instance");
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, startCount.get(),
+                     "testConcurrentGetServiceCreatesOneInstance - Ensure the instance is started exactly once");
+    }
 }
@@ -0,0 +1,164 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class TestStripedServiceLifecycleController
+{
+    @Test
+    public void testStripesByThread() throws Exception
+    {
+        List<StripeService> createdServices = new ArrayList<StripeService>();
+        StripedServiceLifecycleController<StripeService, ServiceConfiguration> controllerToTest =
+            new StripedServiceLifecycleController<StripeService, ServiceConfiguration>(4);
+        controllerToTest.init(recordingProvider(createdServices, -1), new MapConfiguration());
+
+        // Every stripe is started on first use
+        StripeService service = controllerToTest.getService();
+        assertSame(service, controllerToTest.getService());
+        assertEquals(4, createdServices.size());
+        for (StripeService nextService : createdServices)
+        {
+            assertTrue(nextService.started);
+        }
+
+        // Threads are spread over all stripes, whatever their ids.  An unused thread is created before each caller so
+        // that the ids of the callers are not consecutive
+        Set<StripeService> threadServices = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 4; i++)
+        {
+            Thread.ofPlatform().unstarted(() -> {});
+            Thread.ofPlatform().start(() -> {
+                try
+                {
+                    threadServices.add(controllerToTest.getService());
+                }
+                catch (ServiceException exception)
+                {
+                    throw new IllegalStateException(exception);
+                }
+            }).join();
+        }
+        assertEquals(4, threadServices.size());
+
+        threadServices.clear();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 16; i++)
+        {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try
+                {
+                    StripeService threadService = controllerToTest.getService();
+                    if (threadService == controllerToTest.getService())
+                    {
+                        threadServices.add(threadService);
+                    }
+                }
+                catch (ServiceException exception)
+                {
+                    throw new IllegalStateException(exception);
+                }
+            }));
+        }
+        for (Thread nextThread : threads)
+        {
+            nextThread.join();
+        }
+        assertEquals(4, threadServices.size());
+
+        controllerToTest.shutdown();
+        for (StripeService nextService : createdServices)
+        {
+            assertTrue(nextService.stopped);
+        }
+        assertThrows(IllegalStateException.class, () -> controllerToTest.getService());
+    }
+
+    @Test
+    public void testStripeFailureStopsStartedStripes() throws ServiceException
+    {
+        List<StripeService> createdServices = new ArrayList<StripeService>();
+        StripedServiceLifecycleController<StripeService, ServiceConfiguration> controllerToTest =
+            new StripedServiceLifecycleController<StripeService, ServiceConfiguration>(3);
+        controllerToTest.init(recordingProvider(createdServices, 2), new MapConfiguration());
+
+        assertThrows(IllegalStateException.class, () -> controllerToTest.getService());
+        assertEquals(3, createdServices.size());
+        assertTrue(createdServices.get(0).stopped && createdServices.get(1).stopped);
+
+        controllerToTest.shutdown();
+    }
+
+    @Test
+    public void testStripeCountProperty() throws ServiceException
+    {
+        AtomicInteger createCount = new AtomicInteger();
+        MapConfiguration configuration = new MapConfiguration();
+        configuration.setProperty(StripedServiceLifecycleController.STRIPE_COUNT_PROPERTY, "2");
+
+        StripedServiceLifecycleController<StripeService, ServiceConfiguration> controllerToTest =
+            new StripedServiceLifecycleController<StripeService, ServiceConfiguration>();
+        controllerToTest.init(() -> {
+            createCount.incrementAndGet();
+            return new StripeService(false);
+        }, configuration);
+        controllerToTest.warmup();
+
+        assertEquals(2, controllerToTest.getStripeCount());
+        assertEquals(2, createCount.get());
+        controllerToTest.shutdown();
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> new StripedServiceLifecycleController<StripeService, ServiceConfiguration>(0));
+    }
+
+    private static ServiceInstanceProvider<StripeService> recordingProvider(List<StripeService> createdServices,
+                                                                            int failingStripe)
+    {
+        return () -> {
+            StripeService service = new StripeService(createdServices.size() == failingStripe);
+            createdServices.add(service);
+            return service;
+        };
+    }
+
+    public static class StripeService extends BaseService<ServiceConfiguration>
+    {
+        private final boolean failOnStart;
+        private boolean started;
+        private boolean stopped;
+
+        private StripeService(boolean failOnStart)
+        {
+            this.failOnStart = failOnStart;
+        }
+
+        @Override
+        public void start()
+        {
+            if (this.failOnStart)
+            {
+                throw new IllegalStateException("Stripe failed to start");
+            }
+            this.started = true;
+        }
+
+        @Override
+        public void stop()
+        {
+            this.stopped = true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceLifecyclePhase;
+import com.sphyrna.servicemanager.ServiceMetricsRecorder;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class TestStripedServiceMetrics
+{
+    @Test
+    public void testRecordAndSnapshot()
+    {
+        StripedServiceMetrics metricsToTest = new StripedServiceMetrics();
+        assertNull(metricsToTest.snapshot("serviceOne"));
+
+        ServiceMetricsRecorder recorder = metricsToTest.getRecorder("serviceOne");
+        assertTrue(recorder == metricsToTest.getRecorder("serviceOne"),
+                   "testRecordAndSnapshot - Ensure a service has a single recorder");
+
+        for (int i = 0; i < 10; i++)
+        {
+            recorder.recordLookup();
+        }
+        recorder.recordLookupMiss();
+        metricsToTest.getRecorder("serviceTwo").recordLookupMiss();
+
+        Map<String, ServiceMetricsSnapshot> snapshots = metricsToTest.snapshot();
+        assertEquals(2, snapshots.size());
+        assertEquals(10, snapshots.get("serviceOne").getLookupCount());
+        assertEquals(1, snapshots.get("serviceOne").getLookupMissCount());
+        assertEquals(0, snapshots.get("serviceTwo").getLookupCount());
+        assertEquals(1, snapshots.get("serviceTwo").getLookupMissCount());
+
+        metricsToTest.reset();
+        assertEquals(0, metricsToTest.snapshot("serviceOne").getLookupCount());
+    }
+
+    @Test
+    public void testLatencyHistogram()
+    {
+        StripedServiceMetrics metricsToTest = new StripedServiceMetrics();
+        ServiceMetricsRecorder recorder = metricsToTest.getRecorder("serviceOne");
+
+        // 90 fast starts, 10 slow starts
+        for (int i = 0; i < 90; i++)
+        {
+            recorder.recordLifecycleDuration(ServiceLifecyclePhase.START, 1_000);
+        }
+        for (int i = 0; i < 10; i++)
+        {
+            recorder.recordLifecycleDuration(ServiceLifecyclePhase.START, 1_000_000);
+        }
+
+        ServiceMetricsSnapshot.LatencySnapshot startSnapshot =
+            metricsToTest.snapshot("serviceOne").getLifecycleSnapshot(ServiceLifecyclePhase.START);
+        assertEquals(100, startSnapshot.getCount());
+        assertEquals(1_000_000, startSnapshot.getMaxNanos());
+        assertEquals((90 * 1_000 + 10 * 1_000_000) / 100, startSnapshot.getMeanNanos());
+
+        // Percentiles are accurate to within a factor of two
+        long medianNanos = startSnapshot.getPercentileNanos(50);
+        assertTrue((medianNanos >= 1_000) && (medianNanos < 2_000), "testLatencyHistogram - median " + medianNanos);
+        assertEquals(1_000_000, startSnapshot.getPercentileNanos(99));
+        assertEquals(1_000_000, startSnapshot.getPercentileNanos(100));
+        assertThrows(IllegalArgumentException.class, () -> { startSnapshot.getPercentileNanos(101); });
+
+        assertEquals(0, metricsToTest.snapshot("serviceOne").getLifecycleSnapshot(ServiceLifecyclePhase.STOP)
+                            .getPercentileNanos(99));
+    }
+}
@@ -0,0 +1,104 @@
+package com.sphyrna.servicemanager.providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sphyrna.servicemanager.ServiceConfiguration;
+import com.sphyrna.servicemanager.ServiceException;
+import com.sphyrna.servicemanager.ServiceInstanceProvider;
+import com.sphyrna.servicemanager.defaultimpl.ServiceManagerStrategyImpl;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestThreadConfinedServiceLifecycleController
+{
+    private AtomicInteger destroyedCount;
+    private ServiceInstanceProvider<CountingTestService> countingProvider;
+    private MapConfiguration testServiceConfiguration;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        destroyedCount = new AtomicInteger();
+        countingProvider = () -> new CountingTestService();
+        testServiceConfiguration = new MapConfiguration();
+    }
+
+    @Test
+    public void testInstancePerThread() throws Exception
+    {
+        ThreadConfinedServiceLifecycleController<CountingTestService, ServiceConfiguration> controllerToTest =
+            new ThreadConfinedServiceLifecycleController<CountingTestService, ServiceConfiguration>();
+
+        // First call getService without calling init
+        assertThrows(IllegalStateException.class, () -> { controllerToTest.getService(); });
+
+        controllerToTest.init(countingProvider, testServiceConfiguration);
+        CountingTestService instance = controllerToTest.getService();
+        assertTrue(instance == controllerToTest.getService(),
+                   "testInstancePerThread - Ensure a thread always receives the same instance");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<CountingTestService> otherInstance = executor.submit(() -> controllerToTest.getService());
+            assertTrue(instance != otherInstance.get(),
+                       "testInstancePerThread - Ensure another thread receives another instance");
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        controllerToTest.shutdown();
+        assertEquals(2, destroyedCount.get(), "testInstancePerThread - Ensure all instances are destroyed");
+
+        // Once it's shutdown, expect methods to throw errors
+        assertThrows(IllegalStateException.class, () -> { controllerToTest.getService(); });
+    }
+
+    @Test
+    public void testVirtualThreadRejected() throws Exception
+    {
+        ThreadConfinedServiceLifecycleController<CountingTestService, ServiceConfiguration> controllerToTest =
+            new ThreadConfinedServiceLifecycleController<CountingTestService, ServiceConfiguration>(countingProvider,
+                                                                                        testServiceConfiguration);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            Future<CountingTestService> instance = executor.submit(() -> controllerToTest.getService());
+            Throwable cause = assertThrows(Exception.class, () -> { instance.get(); }).getCause();
+            assertInstanceOf(IllegalStateException.class, cause);
+        }
+    }
+
+    @Test
+    public void testRegisterServiceByControllerOnly() throws ServiceException
+    {
+        ServiceManagerStrategyImpl strategy = new ServiceManagerStrategyImpl();
+        strategy.registerServiceByControllerOnly(
+            "threadConfinedService",
+            new ThreadConfinedServiceLifecycleController<CountingTestService, ServiceConfiguration>(countingProvider,
+                                                                                        testServiceConfiguration),
+            testServiceConfiguration);
+
+        CountingTestService instance = strategy.getService("threadConfinedService");
+        assertTrue(instance == strategy.getService("threadConfinedService"),
+                   "testRegisterServiceByControllerOnly - Ensure a thread always receives the same instance");
+    }
+
+    private class CountingTestService extends BaseService<ServiceConfiguration>
+    {
+        @Override
+        public void destroy()
+        {
+            destroyedCount.incrementAndGet();
+        }
+    }
+}